@@ -0,0 +1,31 @@
+package bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Jõudlustestide käivitaja: JMH tavaliste käsurea parameetritega, kuid
+ * alati koos GC profiilijaga (mälu eraldamise kiirus operatsiooni kohta)
+ * ning tulemustega JSON-failis, et eri versioonide tulemusi saaks
+ * omavahel võrrelda.<br>
+ * Nt. <code>java -jar benchmarks.jar SolveBenchmark -p set=korf</code>.
+ *
+ * @author Kristjan Kaitsa
+ * @version 1.0
+ *
+ */
+public class Benchmarks {
+	public static void main(String[] args) throws Exception {
+		CommandLineOptions commandLine = new CommandLineOptions(args);
+		Options options = new OptionsBuilder()
+				.parent(commandLine)
+				.addProfiler(GCProfiler.class)
+				.resultFormat(commandLine.getResultFormat().orElse(ResultFormatType.JSON))
+				.build();
+		new Runner(options).run();
+	}
+}
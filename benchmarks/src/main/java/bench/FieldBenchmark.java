@@ -0,0 +1,91 @@
+package bench;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import solver.Field;
+import solver.Field.Direction;
+import solver.Field.IllegalMoveException;
+
+/**
+ * {@link Field} põhitehted Korfi 4x4 seisudel: järglaste genereerimine,
+ * üksik käik ning <code>hashCode</code>/<code>equals</code>.
+ * Operatsioon on alati terve komplekti läbimine.
+ *
+ * @author Kristjan Kaitsa
+ * @version 1.0
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class FieldBenchmark {
+	/** Komplekti väljad. */
+	private Field[] fields;
+	/** Väljade koopiad (võrdsed, kuid erinevad objektid). */
+	private Field[] copies;
+
+	@Setup
+	public void setup() throws IOException {
+		List<int[][]> boards = Instances.load(Instances.KORF);
+		fields = new Field[boards.size()];
+		copies = new Field[boards.size()];
+		for (int i = 0; i < fields.length; i++) {
+			fields[i] = new Field(boards.get(i));
+			copies[i] = new Field(boards.get(i));
+		}
+	}
+
+	@Benchmark
+	public void children(Blackhole blackhole) {
+		for (Field field : fields)
+			blackhole.consume(field.getChildren());
+	}
+
+	@Benchmark
+	public void move(Blackhole blackhole) {
+		for (Field field : fields) {
+			try {
+				blackhole.consume(new Field(field, field.getEmptyIndex() >= 4 ? Direction.NORTH : Direction.SOUTH));
+			} catch (IllegalMoveException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+	}
+
+	@Benchmark
+	public int hashCodes() {
+		int hash = 0;
+		for (Field field : fields)
+			hash += field.hashCode();
+		return hash;
+	}
+
+	@Benchmark
+	public int equalities() {
+		int equal = 0;
+		for (int i = 0; i < fields.length; i++) {
+			if (fields[i].equals(copies[i]))
+				equal++;
+			if (fields[i].equals(copies[(i + 1) % copies.length]))
+				equal++;
+		}
+		return equal;
+	}
+}
@@ -0,0 +1,94 @@
+package bench;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import solver.AdditivePatternDatabase;
+import solver.CombinedHeuristic;
+import solver.Field;
+import solver.Field.Direction;
+import solver.Field.IllegalMoveException;
+import solver.Heuristic;
+import solver.LinearConflictHeuristic;
+import solver.ManhattanHeuristic;
+import solver.WalkingDistanceHeuristic;
+
+/**
+ * Heuristikate hindamise kiirus Korfi 4x4 seisudel: täielik hinnang
+ * ({@link Heuristic#estimate}) ning käigu järel uuendatud hinnang
+ * (järglase loomine {@link Field#Field(Field, Direction)} kaudu).<br>
+ * Mustriandmebaas (6-6-3) võetakse kataloogist
+ * <code>solver.pdb.dir</code> ning koostatakse vajadusel esimesel
+ * käivitusel.
+ *
+ * @author Kristjan Kaitsa
+ * @version 1.0
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class HeuristicBenchmark {
+	@Param({ "manhattan", "lc", "wd", "max", "pdb" })
+	public String heuristic;
+
+	/** Komplekti väljad valitud heuristikaga. */
+	private Field[] fields;
+	/** Valitud heuristika. */
+	private Heuristic instance;
+
+	@Setup
+	public void setup() throws IOException {
+		if (heuristic.equals("manhattan"))
+			instance = new ManhattanHeuristic();
+		else if (heuristic.equals("lc"))
+			instance = new LinearConflictHeuristic();
+		else if (heuristic.equals("wd"))
+			instance = new WalkingDistanceHeuristic();
+		else if (heuristic.equals("max"))
+			instance = CombinedHeuristic.max(new LinearConflictHeuristic(), new WalkingDistanceHeuristic());
+		else
+			instance = AdditivePatternDatabase.open(AdditivePatternDatabase.DEFAULT_DIRECTORY, 4, "663");
+		List<int[][]> boards = Instances.load(Instances.KORF);
+		fields = new Field[boards.size()];
+		for (int i = 0; i < fields.length; i++)
+			fields[i] = new Field(boards.get(i), instance);
+	}
+
+	@Benchmark
+	public int estimate() {
+		int sum = 0;
+		for (Field field : fields)
+			sum += instance.estimate(field);
+		return sum;
+	}
+
+	@Benchmark
+	public void update(Blackhole blackhole) {
+		for (Field field : fields) {
+			try {
+				blackhole.consume(new Field(field, field.getEmptyIndex() >= 4 ? Direction.NORTH : Direction.SOUTH)
+						.getEstimate());
+			} catch (IllegalMoveException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+	}
+}
@@ -0,0 +1,76 @@
+package bench;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Jõudlustestide fikseeritud seisude komplektid (ressursid paketis
+ * <code>bench</code>). Failis on üks seis rea kohta, numbrid ridade
+ * kaupa tühikutega eraldatult; <code>#</code>-st rea lõpuni on
+ * kommentaar (sama kuju loeb ka <code>ui.BatchSolver</code>).
+ *
+ * @author Kristjan Kaitsa
+ * @version 1.0
+ *
+ */
+public class Instances {
+	/** Korfi 15-mängu seisud (4x4). */
+	public static final String KORF = "korf100.txt";
+	/** 3x3 seisud. */
+	public static final String EIGHT = "eight.txt";
+	/** 5x5 seisud. */
+	public static final String FIVE = "five.txt";
+
+	/**
+	 * @param name Komplekti nimi: <code>korf</code>, <code>3x3</code> või <code>5x5</code>.
+	 * @return Tagastab komplekti faili nime.
+	 */
+	public static String file(String name) {
+		if (name.equals("korf"))
+			return KORF;
+		if (name.equals("3x3"))
+			return EIGHT;
+		if (name.equals("5x5"))
+			return FIVE;
+		throw new IllegalArgumentException("Tundmatu komplekt: " + name);
+	}
+
+	/**
+	 * Loeb komplekti seisud.
+	 * @param file Ressursi nimi (nt. {@link #KORF}).
+	 * @return Tagastab seisud kahedimensionaalsete massiividena.
+	 * @throws IOException Visatakse, kui ressurssi ei saa lugeda.
+	 */
+	public static List<int[][]> load(String file) throws IOException {
+		InputStream stream = Instances.class.getResourceAsStream(file);
+		if (stream == null)
+			throw new IOException("Ressurssi ei leitud: " + file);
+		List<int[][]> boards = new ArrayList<int[][]>();
+		BufferedReader reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.ISO_8859_1));
+		try {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				int comment = line.indexOf('#');
+				if (comment >= 0)
+					line = line.substring(0, comment);
+				line = line.trim();
+				if (line.isEmpty())
+					continue;
+				String[] numbers = line.split("\\s+");
+				int n = (int) Math.round(Math.sqrt(numbers.length));
+				int[][] values = new int[n][n];
+				for (int i = 0; i < numbers.length; i++)
+					values[i / n][i % n] = Integer.parseInt(numbers[i]);
+				boards.add(values);
+			}
+		} finally {
+			reader.close();
+		}
+		return boards;
+	}
+}
@@ -0,0 +1,219 @@
+package bench;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+import solver.Field;
+import solver.Field.Direction;
+import solver.Field.IllegalMoveException;
+import solver.Heuristic;
+import solver.LinearConflictHeuristic;
+import solver.Search;
+import solver.Search.UnsolvableException;
+import solver.StateTable;
+
+/**
+ * Võrdleb {@link Search}-i indekseeritud kuhja ({@link solver.IndexedHeap})
+ * varasemate <code>java.util.PriorityQueue</code> põhiste järjekordadega
+ * sügavatel juhuslikel 4x4 seisudel:
+ * <ul>
+ * <li><b>remove</b> - parema tee leidmisel eemaldatakse vana väli
+ * järjekorrast (<code>PriorityQueue.remove</code>, lineaarne).</li>
+ * <li><b>lazy</b> - väli lisatakse uuesti ning vananenud kirje jäetakse
+ * järjekorrast võtmisel vahele.</li>
+ * <li><b>heap</b> - {@link Search} ise (vähendatakse kirje võtit).</li>
+ * </ul>
+ * Kõik kolm laiendavad samu seise samas järjekorras, erinevus on vaid
+ * järjekorras. Kasutamine: <code>QueueBenchmark [seise] [kaal] [seeme]</code>.
+ *
+ * @author Kristjan Kaitsa
+ * @version 1.0
+ *
+ */
+public class QueueBenchmark {
+	/** Suunad järjestuses, mille järgi käike proovitakse. */
+	private static final Direction[] DIRECTIONS = Direction.values();
+	/** Heuristika, millega välju hinnatakse. */
+	private static final Heuristic HEURISTIC = new LinearConflictHeuristic();
+
+	public static void main(String[] args) throws Exception {
+		int count = (args.length > 0) ? Integer.parseInt(args[0]) : 10;
+		double weight = (args.length > 1) ? Double.parseDouble(args[1]) : 1.5;
+		Random random = new Random((args.length > 2) ? Long.parseLong(args[2]) : 1);
+
+		List<Field> fields = new ArrayList<Field>();
+		for (int i = 0; i < count; i++)
+			fields.add(randomField(random, 4));
+
+		// soojendus, et JIT jõuaks kõik kolm varianti kompileerida
+		for (int i = 0; i < Math.min(3, count); i++) {
+			solveRemove(fields.get(i), weight);
+			solveLazy(fields.get(i), weight);
+			solveHeap(fields.get(i), weight);
+		}
+
+		long[] totals = new long[3];
+		System.out.println("nr\tkaike\tseise\tremove ms\tlazy ms\theap ms");
+		for (int i = 0; i < count; i++) {
+			Field field = fields.get(i);
+			long start = System.nanoTime();
+			solveRemove(field, weight);
+			long remove = System.nanoTime() - start;
+			start = System.nanoTime();
+			solveLazy(field, weight);
+			long lazy = System.nanoTime() - start;
+			start = System.nanoTime();
+			Search search = solveHeap(field, weight);
+			long heap = System.nanoTime() - start;
+			totals[0] += remove;
+			totals[1] += lazy;
+			totals[2] += heap;
+			System.out.println((i + 1) + "\t" + search.getMovesToSolution().length() + "\t"
+					+ search.getStates() + "\t" + remove / 1000000 + "\t" + lazy / 1000000
+					+ "\t" + heap / 1000000);
+		}
+		System.out.println("kokku\t\t\t" + totals[0] / 1000000 + "\t" + totals[1] / 1000000
+				+ "\t" + totals[2] / 1000000);
+	}
+
+	/**
+	 * @param random Juhuarvude generaator.
+	 * @param dimension Mänguvälja dimensioon.
+	 * @return Tagastab juhusliku lahendatava välja.
+	 */
+	private static Field randomField(Random random, int dimension) {
+		List<Integer> tiles = new ArrayList<Integer>();
+		for (int i = 0; i < dimension * dimension; i++)
+			tiles.add(i);
+		while (true) {
+			Collections.shuffle(tiles, random);
+			int[][] values = new int[dimension][dimension];
+			for (int i = 0; i < tiles.size(); i++)
+				values[i / dimension][i % dimension] = tiles.get(i);
+			Field field = new Field(values, HEURISTIC);
+			if (field.isSolvable())
+				return field;
+		}
+	}
+
+	private static Search solveHeap(Field field, double weight) throws UnsolvableException {
+		Search search = new Search(field, HEURISTIC, weight);
+		search.run();
+		return search;
+	}
+
+	/**
+	 * @param weight Kaal, millega heuristilist hinnangut korrutatakse.
+	 * @return Tagastab järjekorra võrdleja f(n) = g(n) + w * h*(n) järgi
+	 * (võrdsete korral väiksem h*(n) enne, nagu {@link Search}-is).
+	 */
+	private static Comparator<Field> comparator(final double weight) {
+		return new Comparator<Field>() {
+			@Override
+			public int compare(Field a, Field b) {
+				int result = Double.compare(a.getMoves() + weight * a.getEstimate(),
+						b.getMoves() + weight * b.getEstimate());
+				return (result != 0) ? result : Integer.compare(a.getEstimate(), b.getEstimate());
+			}
+		};
+	}
+
+	/**
+	 * A* nagu enne indekseeritud kuhja: avatud väljad on paisktabelis, et
+	 * parema tee leidmisel vana väli järjekorrast eemaldada.
+	 * @return Tagastab läbivaadatud seisude arvu.
+	 */
+	private static long solveRemove(Field initField, double weight) throws IllegalMoveException {
+		PriorityQueue<Field> queue = new PriorityQueue<Field>(50000, comparator(weight));
+		Map<Field, Field> open = new HashMap<Field, Field>(50000);
+		StateTable table = new StateTable(initField.getDimension(), 50000);
+		table.add(initField, StateTable.NO_MOVE);
+		open.put(initField, initField);
+		queue.add(initField);
+		long states = 0;
+		while (!queue.isEmpty()) {
+			Field curField = queue.poll();
+			open.remove(curField);
+			states++;
+			if (curField.isSolved())
+				return states;
+			int id = table.find(curField);
+			table.close(id);
+			for (int move = 0; move < DIRECTIONS.length; move++) {
+				Field child = child(curField, table.getMove(id), move);
+				if (child == null) continue;
+				int childId = table.find(child);
+				if (childId < 0) {
+					table.add(child, move);
+					open.put(child, child);
+					queue.add(child);
+				} else if (!table.isClosed(childId) && (child.getMoves() < table.getCost(childId))) {
+					table.setPath(childId, child.getMoves(), move);
+					queue.remove(open.get(child));
+					open.put(child, child);
+					queue.add(child);
+				}
+			}
+		}
+		return states;
+	}
+
+	/**
+	 * A* ilma võtme vähendamiseta: parema tee leidmisel lisatakse väli
+	 * järjekorda uuesti ning vananenud kirjed jäetakse vahele.
+	 * @return Tagastab läbivaadatud seisude arvu.
+	 */
+	private static long solveLazy(Field initField, double weight) {
+		PriorityQueue<Field> queue = new PriorityQueue<Field>(50000, comparator(weight));
+		StateTable table = new StateTable(initField.getDimension(), 50000);
+		table.add(initField, StateTable.NO_MOVE);
+		queue.add(initField);
+		long states = 0;
+		while (!queue.isEmpty()) {
+			Field curField = queue.poll();
+			int id = table.find(curField);
+			if (table.isClosed(id) || (curField.getMoves() > table.getCost(id)))
+				continue;
+			states++;
+			if (curField.isSolved())
+				return states;
+			table.close(id);
+			for (int move = 0; move < DIRECTIONS.length; move++) {
+				Field child = child(curField, table.getMove(id), move);
+				if (child == null) continue;
+				int childId = table.find(child);
+				if (childId < 0) {
+					table.add(child, move);
+					queue.add(child);
+				} else if (!table.isClosed(childId) && (child.getMoves() < table.getCost(childId))) {
+					table.setPath(childId, child.getMoves(), move);
+					queue.add(child);
+				}
+			}
+		}
+		return states;
+	}
+
+	/**
+	 * @param field Laiendatav väli.
+	 * @param lastMove Käik, millega väljani jõuti.
+	 * @param move Proovitava käigu järjekorranumber.
+	 * @return Tagastab järglase või <code>null</code>-i, kui käik on
+	 * tagasikäik või väljalt välja.
+	 */
+	private static Field child(Field field, int lastMove, int move) {
+		if ((lastMove != StateTable.NO_MOVE) && (move == (lastMove + 2) % 4))
+			return null;
+		try {
+			return new Field(field, DIRECTIONS[move]);
+		} catch (IllegalMoveException e) {
+			return null;
+		}
+	}
+}
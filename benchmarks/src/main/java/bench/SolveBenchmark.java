@@ -0,0 +1,114 @@
+package bench;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import solver.AdditivePatternDatabase;
+import solver.EightPuzzleTable;
+import solver.Field;
+import solver.Heuristic;
+import solver.IdaStarSearch;
+import solver.LinearConflictHeuristic;
+import solver.Search;
+import solver.Search.UnsolvableException;
+import solver.Solver;
+import solver.TableSearch;
+
+/**
+ * Terve komplekti lahendamine:
+ * <ul>
+ * <li>{@link #search()} - kaalutud A* ({@link Search}) lineaarsete
+ * konfliktidega, komplektid <code>korf</code>, <code>3x3</code> ja
+ * <code>5x5</code>.</li>
+ * <li>{@link #idaStar()} - optimaalne IDA* ({@link IdaStarSearch})
+ * mustriandmebaasiga, 3x3 komplekt ning Korfi kümme esimest seisu.</li>
+ * <li>{@link #table()} - 3x3 komplekt täielikust tabelist
+ * ({@link TableSearch}).</li>
+ * </ul>
+ * Operatsioon on terve komplekti lahendamine, tulemuseks käikude summa.
+ *
+ * @author Kristjan Kaitsa
+ * @version 1.0
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class SolveBenchmark {
+	/** Korfi seisud, mida IDA* lahendab (kõik võtaks liiga kaua). */
+	private static final int KORF_IDA_LIMIT = 10;
+
+	@Param({ "korf", "3x3", "5x5" })
+	public String set;
+
+	@Param({ "3" })
+	public double weight;
+
+	/** Komplekti väljad. */
+	private List<int[][]> boards;
+	/** Heuristika kaalutud A* jaoks. */
+	private Heuristic heuristic;
+	/** Mustriandmebaas IDA* jaoks (5x5 puhul <code>null</code>). */
+	private Heuristic database;
+
+	@Setup
+	public void setup() throws IOException {
+		boards = Instances.load(Instances.file(set));
+		heuristic = new LinearConflictHeuristic();
+		EightPuzzleTable.getInstance();
+		if (set.equals("3x3"))
+			database = AdditivePatternDatabase.open(AdditivePatternDatabase.DEFAULT_DIRECTORY, 3, "44");
+		else if (set.equals("korf"))
+			database = AdditivePatternDatabase.open(AdditivePatternDatabase.DEFAULT_DIRECTORY, 4, "663");
+	}
+
+	@Benchmark
+	public int search() throws UnsolvableException {
+		int moves = 0;
+		for (int[][] board : boards)
+			moves += solve(new Search(new Field(board), heuristic, weight));
+		return moves;
+	}
+
+	@Benchmark
+	public int idaStar() throws UnsolvableException {
+		if (database == null)
+			return 0;
+		int limit = set.equals("korf") ? KORF_IDA_LIMIT : boards.size();
+		int moves = 0;
+		for (int[][] board : boards.subList(0, limit))
+			moves += solve(new IdaStarSearch(new Field(board, database)));
+		return moves;
+	}
+
+	@Benchmark
+	public int table() throws UnsolvableException {
+		if (!set.equals("3x3"))
+			return 0;
+		int moves = 0;
+		for (int[][] board : boards)
+			moves += solve(new TableSearch(new Field(board)));
+		return moves;
+	}
+
+	private static int solve(Solver solver) {
+		solver.run();
+		return solver.getMovesToSolution().length();
+	}
+}
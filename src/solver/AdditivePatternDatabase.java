@@ -0,0 +1,163 @@
+package solver;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Aditiivne lõikumatute mustrite andmebaas: ruudud on jaotatud
+ * mustriteks, millest igaühel on oma {@link PatternDatabase}, ning
+ * heuristiline hinnang on mustrite kauguste summa. Kuna iga mustri
+ * andmebaas loeb vaid oma ruutude käike, on summa lubav ja Manhattani
+ * kaugusest oluliselt täpsem.<br>
+ * Andmebaasid hoitakse failidena kataloogis ning koostatakse esmakordsel
+ * kasutamisel (vt. {@link #open(File, int, String)}).
+ *
+ * @author Kristjan Kaitsa
+ * @version 1.0
+ *
+ */
+public class AdditivePatternDatabase implements Heuristic {
+	/** Vaikimisi kataloog andmebaasi failide jaoks
+	 * (muudetav süsteemiparameetriga <code>solver.pdb.dir</code>). */
+	public static final File DEFAULT_DIRECTORY = new File(System.getProperty("solver.pdb.dir", "pdb"));
+
+	/** Mustrid, millest andmebaas koosneb. */
+	private final PatternDatabase[] patterns;
+	/** Iga ruudu numbri kohta selle mustri indeks. */
+	private final int[] patternOfTile;
+
+	/**
+	 * @param patterns Lõikumatud mustrid, mis katavad kõik ruudud.
+	 */
+	public AdditivePatternDatabase(PatternDatabase[] patterns) {
+		this.patterns = patterns.clone();
+		int dimension = patterns[0].getDimension();
+		this.patternOfTile = new int[dimension * dimension];
+		for (int i = 0; i < patterns.length; i++)
+			for (int tile : patterns[i].getTiles())
+				patternOfTile[tile] = i;
+	}
+
+	/**
+	 * Tagastab partitsiooni ruutude numbrid.<br>
+	 * Toetatud on:
+	 * <ul>
+	 * <li>3x3: <code>"44"</code></li>
+	 * <li>4x4: <code>"663"</code> ja <code>"78"</code></li>
+	 * <li>5x5: <code>"6666"</code></li>
+	 * </ul>
+	 * @param dimension Mänguvälja dimensioon.
+	 * @param partition Partitsiooni nimi (mustrite suurused).
+	 * @return Tagastab iga mustri ruutude numbrid.
+	 * @throws IllegalArgumentException Visatakse tundmatu partitsiooni korral.
+	 */
+	public static int[][] getPartition(int dimension, String partition) {
+		String key = dimension + ":" + partition;
+		if (key.equals("3:44"))
+			return new int[][] { {1, 2, 3, 4}, {5, 6, 7, 8} };
+		if (key.equals("4:663"))
+			return new int[][] { {1, 5, 6, 9, 10, 13}, {7, 8, 11, 12, 14, 15}, {2, 3, 4} };
+		if (key.equals("4:78"))
+			return new int[][] { {9, 10, 11, 12, 13, 14, 15}, {1, 2, 3, 4, 5, 6, 7, 8} };
+		if (key.equals("5:6666"))
+			return new int[][] { {1, 2, 3, 6, 7, 8}, {4, 5, 9, 10, 14, 15},
+					{11, 12, 16, 17, 21, 22}, {13, 18, 19, 20, 23, 24} };
+		throw new IllegalArgumentException("Tundmatu partitsioon " + partition
+				+ " " + dimension + "x" + dimension + " väljale.");
+	}
+
+	/**
+	 * Avab partitsiooni andmebaasid kataloogist. Puuduvad failid
+	 * koostatakse ja kirjutatakse kataloogi.
+	 * @param directory Andmebaasi failide kataloog.
+	 * @param dimension Mänguvälja dimensioon.
+	 * @param partition Partitsiooni nimi (vt. {@link #getPartition(int, String)}).
+	 * @return Tagastab avatud andmebaasi.
+	 * @throws IOException Visatakse, kui faile ei saa lugeda või kirjutada.
+	 */
+	public static AdditivePatternDatabase open(File directory, int dimension, String partition)
+			throws IOException {
+		int[][] partitionTiles = getPartition(dimension, partition);
+		PatternDatabase[] patterns = new PatternDatabase[partitionTiles.length];
+		for (int i = 0; i < partitionTiles.length; i++) {
+			File file = getFile(directory, dimension, partitionTiles[i]);
+			if (!file.exists()) {
+				if (!directory.isDirectory() && !directory.mkdirs())
+					throw new IOException("Kataloogi loomine ebaõnnestus: " + directory);
+				PatternDatabase.build(dimension, partitionTiles[i]).save(file);
+			}
+			patterns[i] = PatternDatabase.load(file);
+		}
+		return new AdditivePatternDatabase(patterns);
+	}
+
+	/**
+	 * Kontrollib, kas partitsiooni kõik failid on kataloogis olemas.
+	 * @param directory Andmebaasi failide kataloog.
+	 * @param dimension Mänguvälja dimensioon.
+	 * @param partition Partitsiooni nimi.
+	 * @return Tõeväärtus.
+	 */
+	public static boolean exists(File directory, int dimension, String partition) {
+		for (int[] tiles : getPartition(dimension, partition))
+			if (!getFile(directory, dimension, tiles).exists())
+				return false;
+		return true;
+	}
+
+	/**
+	 * @param directory Andmebaasi failide kataloog.
+	 * @param dimension Mänguvälja dimensioon.
+	 * @param tiles Mustri ruutude numbrid.
+	 * @return Tagastab mustri faili, nt. <code>pdb4-2-3-4.dat</code>.
+	 */
+	private static File getFile(File directory, int dimension, int[] tiles) {
+		StringBuilder name = new StringBuilder("pdb").append(dimension);
+		for (int tile : tiles)
+			name.append('-').append(tile);
+		return new File(directory, name.append(".dat").toString());
+	}
+
+	/**
+	 * @return Tagastab kõigi mustrite kauguste summa.
+	 */
+	@Override
+	public int estimate(Board board) {
+		int sum = 0;
+		for (PatternDatabase pattern : patterns)
+			sum += pattern.getDistance(board);
+		return sum;
+	}
+
+	/**
+	 * Käik muudab vaid liigutatud ruudu mustri kaugust.
+	 */
+	@Override
+	public int update(Board board, int estimate, int tile, int from, int to) {
+		PatternDatabase pattern = patterns[patternOfTile[tile]];
+		return estimate - pattern.getDistance(board, tile, from) + pattern.getDistance(board);
+	}
+
+	/**
+	 * Koostab partitsiooni andmebaasi failid ette, et hilisemad otsingud
+	 * saaksid need kohe mällu kaardistada.<br>
+	 * Kasutamine: <code>AdditivePatternDatabase &lt;dimensioon&gt;
+	 * &lt;partitsioon&gt; [kataloog]</code>, nt. <code>4 663</code>.
+	 * @param args Dimensioon, partitsioon ning soovi korral kataloog.
+	 */
+	public static void main(String[] args) {
+		if (args.length < 2) {
+			System.err.println("Kasutamine: AdditivePatternDatabase <m66de> <partitsioon> [kataloog]");
+			System.exit(-1);
+		}
+		File directory = (args.length > 2) ? new File(args[2]) : DEFAULT_DIRECTORY;
+		try {
+			long start = System.currentTimeMillis();
+			open(directory, Integer.parseInt(args[0]), args[1]);
+			System.out.println("Valmis: " + (System.currentTimeMillis() - start) + " ms");
+		} catch (IOException e) {
+			System.err.println("Andmebaasi koostamine eba6nnestus: " + e.getMessage());
+			System.exit(-1);
+		}
+	}
+}
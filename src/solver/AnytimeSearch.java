@@ -0,0 +1,320 @@
+package solver;
+
+import java.util.BitSet;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+import solver.Search.UnsolvableException;
+
+/**
+ * Lõime klass sooritamaks jätkuvat kaalutud A* otsingut (<i>Anytime
+ * Repairing A*</i>, ARA*): esimene lahendus leitakse kiiresti suure
+ * kaaluga (vt. {@link Search}), seejärel vähendatakse kaalu sammu kaupa
+ * kuni 1-ni ning parandatakse lahendust, kasutades juba leitud seise
+ * uuesti.<br>
+ * Iga kaalu juures laiendatakse seisu ülimalt korra: kui juba laiendatud
+ * seis saab lühema tee, jäetakse see ootele (<i>INCONS</i>) ning lisatakse
+ * järjekorda alles järgmise kaalu juures. Kaalu vahetamisel arvutatakse
+ * järjekorra võtmed f(n) = g(n) + w * h(n) ümber, tabelit ei tühjendata.<br>
+ * Iga parema lahenduse kohta teatatakse kuulajale (vt.
+ * {@link #setSolutionListener(BiConsumer)}) lahendus koos tõestatud
+ * ülemise tõkkega selle pikkuse ja optimaalse pikkuse suhtele:
+ * <code>min(w, G / min(g(n) + h(n)))</code> üle avatud ja ootel seisude.
+ * Tõke (ja lahenduse optimaalsus tõkkega 1) kehtib lubava ning järjekindla
+ * heuristika korral (vt. {@link Search}).<br>
+ * Tähtaeg määratakse juhtimisega ({@link SearchControl#setTimeout(long, TimeUnit)}):
+ * kui see (või mälupiirang) saabub pärast esimest lahendust, lõpetab
+ * otsing erindita ja {@link #getMovesToSolution()} on parim seni leitud
+ * lahendus. Enne esimest lahendust visatakse {@link SearchAbortedException}.
+ *
+ * @author Kristjan Kaitsa
+ * @version 1.0
+ *
+ */
+public class AnytimeSearch implements Solver {
+	/** Kaalu vähendamise samm vaikimisi. */
+	public static final double DEFAULT_STEP = 0.5;
+
+	/** Mänguvälja dimensioon. */
+	private final int dimension;
+	/** Heuristika, millega välju hinnatakse. */
+	private final Heuristic heuristic;
+	/** Dimensiooni käikude tabel. */
+	private final MoveTable moveTable;
+	/** Avatud, suletud ja ootel seisud. */
+	private final StateTable table;
+	/** Prioritiseeritud järjekord (avatud nimekirja kirjete numbrid). */
+	private final IndexedHeap queue;
+	/** Jooksva kaalu juures laiendatud seisud. */
+	private final BitSet closed = new BitSet();
+	/** Juba laiendatud seisud, mis said lühema tee (<i>INCONS</i>). */
+	private final BitSet inconsistent = new BitSet();
+	/** Kaalu vähendamise samm. */
+	private final double step;
+	/** Lõppseisu kirje number või -1, kui seda pole veel leitud. */
+	private int goalId = -1;
+	/** Jooksev kaal. */
+	private double weight;
+	/** Parim seni leitud lahendus.<br>
+	 *  Täidetakse pärast otsingu lõppu. */
+	private volatile String movesToSolution;
+	/** Parima lahenduse tõestatud suboptimaalsuse tõke. */
+	private volatile double bound = Double.POSITIVE_INFINITY;
+	/** Parema lahenduse kuulaja või <code>null</code>. */
+	private BiConsumer<String, Double> solutionListener;
+	/** Otsingu juhtimine (katkestamine, piirangud, tähtaeg). */
+	private SearchControl control = new SearchControl();
+	/** Tabeli ja järjekorra mälupiirang baitides. */
+	private long memoryLimit = Runtime.getRuntime().maxMemory() / 2;
+	/** Olekute arv, mis on läbivaadatud (kõigi kaalude peale kokku). */
+	private long states = 0;
+	/** Genereeritud järglaste arv (statistika). */
+	private long generated = 0;
+	/** Suletud nimekirjas juba olnud järglaste arv (statistika). */
+	private long duplicates = 0;
+	/** Lühema tee saanud järglaste arv (statistika). */
+	private long reopened = 0;
+	/** Järjekorra suurim suurus (statistika). */
+	private int peakFrontier = 0;
+	/** Aeg nanosekundites, mis kulus lahenduse leidmiseks. */
+	private long nanos = 0;
+
+	/**
+	 * Konstruktor vaikimisi kaalu ({@link Search#DEFAULT_WEIGHT}) ja
+	 * sammuga.
+	 * @param initField Algseis.
+	 * @throws UnsolvableException Visatakse, kui antud väli ei ole lahendatav.
+	 */
+	public AnytimeSearch(Field initField) throws UnsolvableException {
+		this(initField, Search.DEFAULT_WEIGHT, DEFAULT_STEP);
+	}
+
+	/**
+	 * @param initField Algseis.
+	 * @param weight Esimese lahenduse kaal (vähemalt 1).
+	 * @param step Kaalu vähendamise samm (positiivne).
+	 * @throws UnsolvableException Visatakse, kui antud väli ei ole lahendatav.
+	 */
+	public AnytimeSearch(Field initField, double weight, double step) throws UnsolvableException {
+		if (!initField.isSolvable())
+			throw new UnsolvableException();
+		if ((weight < 1) || (step <= 0))
+			throw new IllegalArgumentException("Kaal peab olema vähemalt 1 ja samm positiivne.");
+		this.weight = weight;
+		this.step = step;
+		this.dimension = initField.getDimension();
+		this.heuristic = initField.getHeuristic();
+		this.moveTable = MoveTable.forDimension(dimension);
+		this.table = new StateTable(dimension, 50000);
+		this.queue = new IndexedHeap(table, 50000);
+		int id = table.add(initField, StateTable.NO_MOVE);
+		if (initField.isSolved())
+			goalId = id;
+		queue.add(id, priority(initField.getMoves(), initField.getEstimate()), initField.getEstimate());
+	}
+
+	/**
+	 * @param cost Käikude arv algseisust ehk g(n).
+	 * @param estimate Heuristiline hinnang h(n).
+	 * @return Tagastab järjekorra võtme: f(n) = g(n) + w * h(n) bitid.
+	 */
+	private long priority(int cost, int estimate) {
+		return Double.doubleToLongBits(cost + weight * estimate);
+	}
+
+	/**
+	 * Alustab mänguvälja lahendamist.<br>
+	 * Töötab kuni optimaalsus on tõestatud või tähtaeg saabub.
+	 * @throws SearchAbortedException Visatakse, kui otsing lõpetati enne
+	 * esimest lahendust.
+	 */
+	@Override
+	public void run() {
+		long start = System.nanoTime();
+		SolveEvent event = new SolveEvent();
+		event.begin();
+		control.start();
+		String moves = null;
+		try {
+			moves = solve();
+		} finally {
+			nanos = System.nanoTime() - start;
+			SearchStatistics statistics = getStatistics();
+			event.report(this, heuristic, dimension, statistics, moves);
+			SearchMetrics.getInstance().record(statistics, moves != null);
+		}
+		movesToSolution = moves;
+	}
+
+	/**
+	 * Otsingu välimine tsükkel: parandab lahendust ning vähendab kaalu.
+	 * @return Tagastab parima leitud lahenduse või <code>null</code>-i, kui
+	 * järjekord sai tühjaks.
+	 */
+	private String solve() {
+		String best = null;
+		try {
+			while (true) {
+				String moves = improve();
+				if (moves == null)
+					return best;
+				double proven = Math.min(weight, moves.length() / lowerBound());
+				if ((best == null) || (moves.length() < best.length()) || (proven < bound)) {
+					best = moves;
+					bound = Math.max(proven, 1);
+					if (solutionListener != null)
+						solutionListener.accept(best, bound);
+				}
+				if ((weight <= 1) || (bound <= 1))
+					return best;
+				weight = Math.max(1, weight - step);
+				rebuild();
+			}
+		} catch (SearchAbortedException e) {
+			if (best == null)
+				throw e;
+			return best;
+		}
+	}
+
+	/**
+	 * Laiendab seise jooksva kaalu juures, kuni lõppseisu f(n) pole
+	 * suurem kui järjekorra vähim (ARA* <i>ImprovePath</i>).
+	 * @return Tagastab lahenduse või <code>null</code>-i, kui järjekord
+	 * sai tühjaks lõppseisu leidmata.
+	 */
+	private String improve() {
+		// järglasi lisatakse kuni 4 enne piirangu kontrolli
+		int maxStates = (int) Math.min(memoryLimit / Search.BYTES_PER_STATE, StateTable.MAX_STATES - 4);
+		while (!queue.isEmpty()) {
+			if ((goalId >= 0) && (Double.longBitsToDouble(queue.peekKey()) >= table.getCost(goalId)))
+				return table.path(goalId);
+			int id = queue.poll();
+			table.close(id);
+			closed.set(id);
+			Field curField = new Field(dimension, table.getLow(id), table.getHigh(id),
+					table.getCost(id), heuristic, table.getEstimate(id));
+			this.states++;
+			if ((states & (SearchControl.CHECK_INTERVAL - 1)) == 0)
+				control.check(states, queue.size(), weight);
+			int emptyIndex = curField.getEmptyIndex();
+			int list = moveTable.moves(emptyIndex, table.getMove(id));
+			for (int i = 0; i < MoveTable.count(list); i++) {
+				int move = MoveTable.move(list, i);
+				Field child = new Field(curField, move, moveTable.destination(emptyIndex, move));
+				this.generated++;
+				int childId = table.find(child);
+				long priority = priority(child.getMoves(), child.getEstimate());
+				if (childId < 0) {
+					childId = table.add(child, move);
+					queue.add(childId, priority, child.getEstimate());
+					if (child.isSolved())
+						goalId = childId;
+				} else if (child.getMoves() >= table.getCost(childId)) {
+					this.duplicates++;
+				} else {
+					this.reopened++;
+					table.setPath(childId, child.getMoves(), move);
+					if (!table.isClosed(childId))
+						queue.decrease(childId, priority, child.getEstimate());
+					else if (closed.get(childId))
+						inconsistent.set(childId);
+					else
+						queue.add(childId, priority, child.getEstimate());
+				}
+			}
+			if (queue.size() > peakFrontier)
+				peakFrontier = queue.size();
+			if (table.size() >= maxStates)
+				throw new SearchAbortedException(SearchAbortedException.Reason.MEMORY_LIMIT, states);
+		}
+		return (goalId >= 0) ? table.path(goalId) : null;
+	}
+
+	/**
+	 * @return Tagastab optimaalse lahenduse pikkuse alumise tõkke: vähima
+	 * g(n) + h(n) avatud ja ootel seisude seas.
+	 */
+	private double lowerBound() {
+		int lower = Integer.MAX_VALUE;
+		for (int id = 0; id < table.size(); id++)
+			if (!table.isClosed(id) || inconsistent.get(id))
+				lower = Math.min(lower, table.getCost(id) + table.getEstimate(id));
+		return (lower == Integer.MAX_VALUE) ? Double.POSITIVE_INFINITY : Math.max(lower, 1);
+	}
+
+	/**
+	 * Valmistab ette järgmise kaalu: ootel seisud lisatakse järjekorda,
+	 * kõigi järjekorras olevate võtmed arvutatakse ümber ning laiendatud
+	 * seisude märgid kustutatakse.
+	 */
+	private void rebuild() {
+		queue.clear();
+		for (int id = 0; id < table.size(); id++)
+			if (!table.isClosed(id) || inconsistent.get(id))
+				queue.add(id, priority(table.getCost(id), table.getEstimate(id)), table.getEstimate(id));
+		inconsistent.clear();
+		closed.clear();
+	}
+
+	/**
+	 * Määrab parema lahenduse kuulaja. Kuulajat kutsutakse otsingu lõimest
+	 * iga kord, kui leitakse lühem lahendus või tõestatakse väiksem tõke.
+	 * @param listener Kuulaja: käigud (vt. {@link Field#backtrack()}) ja
+	 * tõestatud suboptimaalsuse tõke.
+	 */
+	public void setSolutionListener(BiConsumer<String, Double> listener) {
+		this.solutionListener = listener;
+	}
+
+	/**
+	 * @return Tagastab parima lahenduse tõestatud ülemise tõkke selle pikkuse
+	 * ja optimaalse pikkuse suhtele (1 - optimaalne) või lõpmatuse, kui
+	 * lahendust pole.
+	 */
+	public double getBound() {
+		return bound;
+	}
+
+	/**
+	 * @return Tagastab jooksva (otsingu lõppedes viimase) kaalu.
+	 */
+	public double getWeight() {
+		return weight;
+	}
+
+	/**
+	 * Määrab tabeli ja järjekorra mälupiirangu (vaikimisi pool
+	 * <code>Runtime.maxMemory()</code>-ist). Piirangu täitumisel lõpetatakse
+	 * parima seni leitud lahendusega.
+	 * @param bytes Mälupiirang baitides.
+	 */
+	public void setMemoryLimit(long bytes) {
+		this.memoryLimit = bytes;
+	}
+
+	@Override
+	public String getMovesToSolution() {
+		return movesToSolution;
+	}
+
+	@Override
+	public long getTime() {
+		return TimeUnit.NANOSECONDS.toMillis(nanos);
+	}
+
+	@Override
+	public long getStates() {
+		return states;
+	}
+
+	@Override
+	public SearchStatistics getStatistics() {
+		return new SearchStatistics(states, generated, duplicates, reopened, peakFrontier, nanos);
+	}
+
+	@Override
+	public void setControl(SearchControl control) {
+		this.control = control;
+	}
+}
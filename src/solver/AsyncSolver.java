@@ -0,0 +1,83 @@
+package solver;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * <code>CompletableFuture</code>-põhine liides otsingute käivitamiseks.<br>
+ * Otsing ({@link Solver}) käivitatakse antud <code>Executor</code>-is ning
+ * tulemuseks on sama otsing, mille {@link Solver#getMovesToSolution()}
+ * jms. on siis kindlasti nähtavad (tulevikuobjekti lõpetamine tagab
+ * <i>happens-before</i> seose). Kui otsing lõpetab
+ * {@link SearchAbortedException}-iga (katkestamine, aja- või
+ * olekute piirang), lõpeb tulevikuobjekt sama erindiga.<br>
+ * Tulevikuobjekti katkestamine (<code>cancel</code>) või mistahes muu
+ * enneaegne lõpetamine (nt. <code>orTimeout</code>) katkestab ka otsingu
+ * (vt. {@link SearchControl#cancel()}), seega ei jää see taustal tööle.
+ *
+ * @author Kristjan Kaitsa
+ * @version 1.0
+ *
+ */
+public class AsyncSolver {
+	/** Täitja, milles otsingud jooksevad. */
+	private final Executor executor;
+
+	/**
+	 * Käivitab iga otsingu eraldi taustalõimes (<i>daemon</i>). Ühist
+	 * <code>ForkJoinPool</code>-i ei kasutata, sest otsingud on pikad ning
+	 * hõivaksid selle lõimed.
+	 */
+	public AsyncSolver() {
+		this(task -> {
+			Thread thread = new Thread(task, "otsing");
+			thread.setDaemon(true);
+			thread.start();
+		});
+	}
+
+	/**
+	 * @param executor Täitja, milles otsingud jooksevad.
+	 */
+	public AsyncSolver(Executor executor) {
+		this.executor = executor;
+	}
+
+	/**
+	 * Käivitab otsingu ilma piiranguteta.
+	 * @param solver Otsing.
+	 * @return Tagastab tulevikuobjekti, mis lõpeb otsinguga.
+	 */
+	public CompletableFuture<Solver> solve(Solver solver) {
+		return solve(solver, new SearchControl());
+	}
+
+	/**
+	 * Käivitab otsingu antud piirangutega.
+	 * @param solver Otsing.
+	 * @param control Otsingu juhtimine (piirangud, edenemise kuulaja).
+	 * @return Tagastab tulevikuobjekti, mis lõpeb otsinguga.
+	 */
+	public CompletableFuture<Solver> solve(final Solver solver, final SearchControl control) {
+		final CompletableFuture<Solver> future = new CompletableFuture<Solver>();
+		solver.setControl(control);
+		future.whenComplete((result, error) -> {
+			if (error != null)
+				control.cancel();
+		});
+		executor.execute(new Runnable() {
+			@Override
+			public void run() {
+				if (future.isDone())
+					return;
+				try {
+					solver.run();
+					future.complete(solver);
+				} catch (Throwable e) {
+					future.completeExceptionally(e);
+				}
+			}
+		});
+		return future;
+	}
+}
@@ -0,0 +1,288 @@
+package solver;
+
+import java.util.concurrent.TimeUnit;
+
+import solver.Field.Direction;
+import solver.Search.UnsolvableException;
+
+/**
+ * Lõime klass sooritamaks kahesuunalist A* otsingut (<i>front-to-end
+ * bidirectional A*</i>): üks otsing liigub algseisust lõppseisu poole,
+ * teine lõppseisust algseisu poole ning lahendus liidetakse kohtumisseisus
+ * kokku.<br>
+ * Edasi otsib välja enda heuristika, tagasi {@link ManhattanHeuristic}
+ * kaugusena algseisust (vt. {@link ManhattanHeuristic#ManhattanHeuristic(Board)}).
+ * Mõlemad pooled hoiavad seise oma {@link StateTable}-is ning iga uue või
+ * lühema teega seisu korral otsitakse seda ka teise poole tabelist - nii
+ * leitakse kohtumised pakitud kuju järgi ilma objekte loomata. Igal
+ * sammul laiendatakse väiksema avatud nimekirjaga poolt. Sümmeetrilise
+ * heuristika (nt. Manhattani kaugus mõlemas suunas) korral laiendatakse
+ * vähem seise kui ühesuunalise A* puhul; tugeva edasi-heuristika (nt.
+ * mustriandmebaas) korral jääb tagurpidi pool nõrgemaks ning
+ * {@link Search} kaaluga 1 on tavaliselt kiirem.<br>
+ * Otsing lõpeb, kui parima kohtumise pikkus &mu; ei ületa kummagi poole
+ * vähimat f(n)-i: iga lühem tee peaks läbima mõlema poole avatud seisu,
+ * mille f(n) on lubava heuristika korral alumine tõke. Lubava ja
+ * kooskõlalise heuristikaga on tulemus seega <b>optimaalne</b>.<br>
+ * Mälu piiratakse nagu {@link Search}-is, kuid lõikudeks ei jagata:
+ * piirangu täitumisel lõpetab otsing
+ * {@link SearchAbortedException.Reason#MEMORY_LIMIT}-iga.
+ *
+ * @author Kristjan Kaitsa
+ * @version 1.0
+ *
+ */
+public class BidirectionalSearch implements Solver {
+	/** Suunad järjekorranumbri järgi. */
+	private static final Direction[] DIRECTIONS = Direction.values();
+
+	/** Mänguvälja dimensioon. */
+	private final int dimension;
+	/** Dimensiooni käikude tabel. */
+	private final MoveTable moveTable;
+	/** Algseisust lõppseisu poole liikuv pool. */
+	private final Side forward;
+	/** Lõppseisust algseisu poole liikuv pool. */
+	private final Side backward;
+	/** Kas algseis on juba lõppseis. */
+	private final boolean solved;
+	/** Käigud, mis lahenduseni jõudmiseks teha vaja.<br>
+	 *  Täidetakse pärast lõppolekusse jõudmist. */
+	private volatile String movesToSolution;
+	/** Otsingu juhtimine (katkestamine, piirangud). */
+	private SearchControl control = new SearchControl();
+	/** Tabelite ja järjekordade mälupiirang baitides (kokku). */
+	private long memoryLimit = Runtime.getRuntime().maxMemory() / 2;
+	/** Parima kohtumise pikkus &mu;. */
+	private int bestCost = Integer.MAX_VALUE;
+	/** Parima kohtumise seisu pakitud kuju alumised bitid. */
+	private long meetLow;
+	/** Parima kohtumise seisu pakitud kuju ülemised bitid. */
+	private long meetHigh;
+	/** Läbivaadatud (laiendatud) olekute arv mõlemas suunas kokku. */
+	private long states = 0;
+	/** Genereeritud järglaste arv (statistika). */
+	private long generated = 0;
+	/** Suletud nimekirjas juba olnud järglaste arv (statistika). */
+	private long duplicates = 0;
+	/** Avatud nimekirjas lühema tee saanud järglaste arv (statistika). */
+	private long reopened = 0;
+	/** Mõlema järjekorra suurim kogusuurus (statistika). */
+	private int peakFrontier = 0;
+	/** Aeg nanosekundites, mis kulus lahenduse leidmiseks. */
+	private long nanos = 0;
+
+	/**
+	 * Konstruktor uue otsingu sooritamiseks algseisu heuristikaga.
+	 * @param initField Algseis.
+	 * @throws UnsolvableException Visatakse, kui antud väli ei ole lahendatav.
+	 */
+	public BidirectionalSearch(Field initField) throws UnsolvableException {
+		if (!initField.isSolvable())
+			throw new UnsolvableException();
+		this.dimension = initField.getDimension();
+		this.moveTable = MoveTable.forDimension(dimension);
+		this.solved = initField.isSolved();
+		this.forward = new Side(initField);
+		this.backward = new Side(new Field(initField.generateSolved(), new ManhattanHeuristic(initField)));
+	}
+
+	/**
+	 * Konstruktor uue otsingu sooritamiseks valitud heuristikaga.
+	 * @param initField Algseis.
+	 * @param heuristic Heuristika, millega edasi liikuva poole välju hinnatakse.
+	 * @throws UnsolvableException Visatakse, kui antud väli ei ole lahendatav.
+	 */
+	public BidirectionalSearch(Field initField, Heuristic heuristic) throws UnsolvableException {
+		this(new Field(initField.getValues(), heuristic));
+	}
+
+	/**
+	 * Alustab mänguvälja lahendamist.<br>
+	 * Töötab kuni lahendus leitakse.
+	 * @throws SearchAbortedException Visatakse, kui otsing katkestati või
+	 * mõni piirang ületati (vt. {@link #setControl(SearchControl)}).
+	 */
+	@Override
+	public void run() {
+		long start = System.nanoTime();
+		SolveEvent event = new SolveEvent();
+		event.begin();
+		control.start();
+		String moves = null;
+		try {
+			moves = solve();
+		} finally {
+			nanos = System.nanoTime() - start;
+			SearchStatistics statistics = getStatistics();
+			event.report(this, forward.heuristic, dimension, statistics, moves);
+			SearchMetrics.getInstance().record(statistics, moves != null);
+		}
+		movesToSolution = moves;
+	}
+
+	/**
+	 * Otsingu põhitsükkel.
+	 * @return Tagastab lahenduse käigud või <code>null</code>-i, kui
+	 * järjekorrad said tühjaks.
+	 */
+	private String solve() {
+		if (solved)
+			return "";
+		// järglasi lisatakse kuni 4 enne piirangu kontrolli
+		int maxStates = (int) Math.min(memoryLimit / Search.BYTES_PER_STATE, StateTable.MAX_STATES - 4);
+		while (!forward.queue.isEmpty() && !backward.queue.isEmpty()) {
+			long bound = Math.max(forward.queue.peekKey(), backward.queue.peekKey());
+			if (bestCost <= bound)
+				break;
+			if (forward.queue.size() <= backward.queue.size())
+				expand(forward, backward);
+			else
+				expand(backward, forward);
+			this.states++;
+			if ((states & (SearchControl.CHECK_INTERVAL - 1)) == 0)
+				control.check(states, forward.queue.size() + backward.queue.size(), bound);
+			if (forward.queue.size() + backward.queue.size() > peakFrontier)
+				peakFrontier = forward.queue.size() + backward.queue.size();
+			if (forward.table.size() + backward.table.size() >= maxStates)
+				throw new SearchAbortedException(SearchAbortedException.Reason.MEMORY_LIMIT, states);
+		}
+		if (bestCost == Integer.MAX_VALUE)
+			return null;
+		return splice(forward.table.path(forward.table.find(meetLow, meetHigh)),
+				backward.table.path(backward.table.find(meetLow, meetHigh)));
+	}
+
+	/**
+	 * Laiendab poole vähima f(n)-ga seisu ning kontrollib iga uue või
+	 * lühema teega järglase korral, kas teine pool on seal juba käinud.
+	 * @param side Laiendatav pool.
+	 * @param other Teine pool.
+	 */
+	private void expand(Side side, Side other) {
+		StateTable table = side.table;
+		int id = side.queue.poll();
+		table.close(id);
+		Field curField = new Field(dimension, table.getLow(id), table.getHigh(id),
+				table.getCost(id), side.heuristic, table.getEstimate(id));
+		int emptyIndex = curField.getEmptyIndex();
+		int list = moveTable.moves(emptyIndex, table.getMove(id));
+		for (int i = 0; i < MoveTable.count(list); i++) {
+			int move = MoveTable.move(list, i);
+			Field child = new Field(curField, move, moveTable.destination(emptyIndex, move));
+			this.generated++;
+			int childId = table.find(child);
+			if (childId < 0) {
+				childId = table.add(child, move);
+				side.queue.add(childId, child.getMoves() + child.getEstimate(), child.getEstimate());
+			} else if (table.isClosed(childId)) {
+				this.duplicates++;
+				continue;
+			} else if (child.getMoves() < table.getCost(childId)) {
+				this.reopened++;
+				table.setPath(childId, child.getMoves(), move);
+				side.queue.decrease(childId, child.getMoves() + child.getEstimate(), child.getEstimate());
+			} else
+				continue;
+			int otherId = other.table.find(child);
+			if ((otherId >= 0) && (child.getMoves() + other.table.getCost(otherId) < bestCost)) {
+				bestCost = child.getMoves() + other.table.getCost(otherId);
+				meetLow = child.getLow();
+				meetHigh = child.getHigh();
+			}
+		}
+	}
+
+	/**
+	 * Liidab pooled kokku: tagurpidi poole käigud (lõppseisust
+	 * kohtumiseni) pööratakse ümber ja vastupidiseks.
+	 * @param head Käigud algseisust kohtumiseni.
+	 * @param tail Käigud lõppseisust kohtumiseni.
+	 * @return Tagastab käigud algseisust lõppseisuni.
+	 */
+	private static String splice(String head, String tail) {
+		char[] path = new char[head.length() + tail.length()];
+		head.getChars(0, head.length(), path, 0);
+		for (int i = 0; i < tail.length(); i++)
+			path[path.length - 1 - i] = opposite(tail.charAt(i));
+		return new String(path);
+	}
+
+	/**
+	 * @param symbol Käigu tähis.
+	 * @return Tagastab vastupidise käigu tähise.
+	 */
+	private static char opposite(char symbol) {
+		for (Direction direction : DIRECTIONS)
+			if (direction.getSymbol() == symbol)
+				return direction.opposite().getSymbol();
+		throw new IllegalStateException("Tundmatu käik: " + symbol);
+	}
+
+	/**
+	 * Määrab mõlema poole tabelite ja järjekordade ühise mälupiirangu
+	 * (vaikimisi pool <code>Runtime.maxMemory()</code>-ist).
+	 * @param bytes Mälupiirang baitides.
+	 */
+	public void setMemoryLimit(long bytes) {
+		this.memoryLimit = bytes;
+	}
+
+	/**
+	 * @return Tagastab seni parima kohtumise pikkuse (otsingu lõppedes
+	 * lahenduse pikkuse) või <code>Integer.MAX_VALUE</code>, kui pooled pole
+	 * veel kohtunud.
+	 */
+	public int getBestCost() {
+		return bestCost;
+	}
+
+	@Override
+	public String getMovesToSolution() {
+		return movesToSolution;
+	}
+
+	@Override
+	public long getTime() {
+		return TimeUnit.NANOSECONDS.toMillis(nanos);
+	}
+
+	@Override
+	public long getStates() {
+		return states;
+	}
+
+	@Override
+	public SearchStatistics getStatistics() {
+		return new SearchStatistics(states, generated, duplicates, reopened, peakFrontier, nanos);
+	}
+
+	@Override
+	public void setControl(SearchControl control) {
+		this.control = control;
+	}
+
+	/**
+	 * Otsingu üks pool: tabel, järjekord ja heuristika. Järjekorra võti
+	 * on f(n) = g(n) + h(n), võrdsete korral eelistatakse väiksemat h(n)-i.
+	 */
+	private class Side {
+		/** Avatud ja suletud nimekiri. */
+		final StateTable table;
+		/** Avatud nimekirja kirjete numbrid. */
+		final IndexedHeap queue;
+		/** Heuristika kaugusele poole sihtseisust. */
+		final Heuristic heuristic;
+
+		/**
+		 * @param root Poole lähteseis (heuristikaga, mis hindab kaugust sihtseisust).
+		 */
+		Side(Field root) {
+			this.heuristic = root.getHeuristic();
+			this.table = new StateTable(dimension, 50000);
+			this.queue = new IndexedHeap(table, 50000);
+			int id = table.add(root, StateTable.NO_MOVE);
+			queue.add(id, root.getMoves() + root.getEstimate(), root.getEstimate());
+		}
+	}
+}
@@ -0,0 +1,30 @@
+package solver;
+
+/**
+ * Mänguvälja seisu lugemise liides, mille kaudu heuristikud
+ * ({@link Heuristic}) seisu hindavad. Realiseerivad nii pakitud
+ * {@link Field} kui ka kohapeal muudetav {@link MutableField}.<br>
+ * Ruute indekseeritakse reakaupa: <code>y * dimension + x</code>.
+ *
+ * @author Kristjan Kaitsa
+ * @version 1.0
+ *
+ */
+public interface Board {
+	/**
+	 * @return Tagastab mänguvälja dimensiooni (nt. 4x4 ehk 15-mängu puhul 4).
+	 */
+	public int getDimension();
+
+	/**
+	 * @param index Ruudu indeks.
+	 * @return Tagastab ruudul oleva numbri (tühja ruudu puhul 0).
+	 */
+	public int getTile(int index);
+
+	/**
+	 * @param tile Ruudu number (tühja ruudu puhul 0).
+	 * @return Tagastab ruudu asukoha indeksi.
+	 */
+	public int getPosition(int tile);
+}
@@ -0,0 +1,55 @@
+package solver;
+
+/**
+ * Mitme heuristika ühendus: kas nende maksimum või summa.<br>
+ * Lubavate heuristikate maksimum on lubav. Summa on lubav vaid siis,
+ * kui osad loevad erinevate ruutude käike (nagu lõikumatud
+ * mustriandmebaasid), muul juhul sobib see vaid kaalutud otsingule.
+ *
+ * @author Kristjan Kaitsa
+ * @version 1.0
+ *
+ */
+public class CombinedHeuristic implements Heuristic {
+	/** Ühendatavad heuristikad. */
+	private final Heuristic[] parts;
+	/** Kas liita (muidu võetakse maksimum). */
+	private final boolean sum;
+
+	/**
+	 * @param sum Kas liita (muidu võetakse maksimum).
+	 * @param parts Ühendatavad heuristikad.
+	 */
+	private CombinedHeuristic(boolean sum, Heuristic[] parts) {
+		if (parts.length == 0)
+			throw new IllegalArgumentException("Vähemalt üks heuristika on vajalik.");
+		this.sum = sum;
+		this.parts = parts.clone();
+	}
+
+	/**
+	 * @param parts Ühendatavad heuristikad.
+	 * @return Tagastab heuristika, mis võtab osade hinnangutest suurima.
+	 */
+	public static CombinedHeuristic max(Heuristic... parts) {
+		return new CombinedHeuristic(false, parts);
+	}
+
+	/**
+	 * @param parts Ühendatavad heuristikad.
+	 * @return Tagastab heuristika, mis liidab osade hinnangud.
+	 */
+	public static CombinedHeuristic sum(Heuristic... parts) {
+		return new CombinedHeuristic(true, parts);
+	}
+
+	@Override
+	public int estimate(Board board) {
+		int result = 0;
+		for (Heuristic part : parts) {
+			int value = part.estimate(board);
+			result = sum ? result + value : Math.max(result, value);
+		}
+		return result;
+	}
+}
@@ -0,0 +1,174 @@
+package solver;
+
+import solver.Field.Direction;
+import solver.Field.IllegalMoveException;
+
+/**
+ * Otsingute vahel jagatud tõestatud täpsete kauguste hoidla
+ * (<i>transposition table</i>): iga optimaalse lahenduse kõigi seisude
+ * kohta jäetakse meelde kaugus lõppseisuni ning esimene käik. Seega on
+ * iga kord lahendatud tee mistahes seisu lahendus kohe taastatav (vt.
+ * {@link #solution(Field)}) ning otsingud saavad kaugust kasutada
+ * täpse alumise ja ülemise tõkkena (vt.
+ * {@link IdaStarSearch#setDistanceStore(DistanceStore)}).<br>
+ * Tabel on fikseeritud suurusega ja otsese adresseerimisega: kirje koht
+ * on pakitud seisu räsi, uus kirje asendab samal kohal oleva vana (nagu
+ * malemootorite tabelites). Lukke ei kasutata - võti salvestatakse
+ * andmetega XOR-ituna, seega poolikult kirjutatud kirje lugemisel võti ei
+ * klapi ning kirjet lihtsalt ei leita.
+ *
+ * @author Kristjan Kaitsa
+ * @version 1.0
+ *
+ */
+public class DistanceStore {
+	/** Kirjete arv vaikimisi (24 MB). */
+	public static final int DEFAULT_CAPACITY = 1 << 20;
+	/** Suunad järjekorranumbri järgi. */
+	private static final Direction[] DIRECTIONS = Direction.values();
+	/** Andmete bitt, mis eristab kirjet tühjast kohast. */
+	private static final long PRESENT = 1L << 32;
+	/** Käigu tähis lõppseisu kirjes (käiku pole). */
+	private static final int NO_MOVE = 7;
+
+	/** Pakitud seisude alumised bitid XOR andmed. */
+	private final long[] lows;
+	/** Pakitud seisude ülemised bitid XOR andmed. */
+	private final long[] highs;
+	/** Kirjete andmed: kaugus (bitid 0-15), käik (16-18), dimensioon (20-23). */
+	private final long[] data;
+	/** Indeksi mask (kirjete arv - 1). */
+	private final int mask;
+
+	/**
+	 * Loob vaikimisi suurusega hoidla.
+	 */
+	public DistanceStore() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * @param capacity Kirjete arv (ümardatakse üles kahe astmeni).
+	 */
+	public DistanceStore(int capacity) {
+		if (capacity < 1)
+			throw new IllegalArgumentException("Hoidla suurus peab olema positiivne.");
+		int size = Integer.highestOneBit(Math.max(capacity - 1, 1)) << 1;
+		this.lows = new long[size];
+		this.highs = new long[size];
+		this.data = new long[size];
+		this.mask = size - 1;
+	}
+
+	/**
+	 * Jätab meelde <b>optimaalse</b> lahenduse kõik seisud. Mitteoptimaalse
+	 * lahenduse korral oleksid kaugused valed, seega neid lisada ei tohi.
+	 * @param start Algseis.
+	 * @param moves Optimaalne lahendus (vt. {@link Field#backtrack()}).
+	 * @throws IllegalArgumentException Visatakse, kui käigud ei vii algseisust
+	 * lõppseisu.
+	 */
+	public void addSolution(Field start, String moves) {
+		Field field = start;
+		try {
+			for (int i = 0; i < moves.length(); i++) {
+				int move = moveIndex(moves.charAt(i));
+				put(field.getDimension(), field.getLow(), field.getHigh(), moves.length() - i, move);
+				field = new Field(field, DIRECTIONS[move]);
+			}
+		} catch (IllegalMoveException e) {
+			throw new IllegalArgumentException("Vigane lahendus: " + moves);
+		}
+		if (!field.isSolved())
+			throw new IllegalArgumentException("Lahendus ei vii lõppseisu: " + moves);
+		put(field.getDimension(), field.getLow(), field.getHigh(), 0, NO_MOVE);
+	}
+
+	/**
+	 * @param field Väli.
+	 * @return Tagastab välja täpse kauguse lõppseisust või -1, kui see pole teada.
+	 */
+	public int distance(Field field) {
+		return distance(field.getDimension(), field.getLow(), field.getHigh());
+	}
+
+	/**
+	 * @param dimension Välja dimensioon.
+	 * @param low Pakitud kuju alumised bitid.
+	 * @param high Pakitud kuju ülemised bitid.
+	 * @return Tagastab välja täpse kauguse lõppseisust või -1, kui see pole teada.
+	 */
+	int distance(int dimension, long low, long high) {
+		long entry = get(dimension, low, high);
+		return (entry == 0) ? -1 : (int) (entry & 0xFFFF);
+	}
+
+	/**
+	 * Taastab optimaalse lahenduse, järgides salvestatud käike.
+	 * @param field Väli.
+	 * @return Tagastab lahenduse käigud või <code>null</code>-i, kui
+	 * välja (või mõnda tee seisu) hoidlas pole.
+	 */
+	public String solution(Field field) {
+		long entry = get(field.getDimension(), field.getLow(), field.getHigh());
+		if (entry == 0)
+			return null;
+		char[] path = new char[(int) (entry & 0xFFFF)];
+		try {
+			for (int i = 0; i < path.length; i++) {
+				Direction move = DIRECTIONS[(int) (entry >>> 16) & 7];
+				path[i] = move.getSymbol();
+				field = new Field(field, move);
+				entry = get(field.getDimension(), field.getLow(), field.getHigh());
+				if ((entry == 0) || ((entry & 0xFFFF) != path.length - i - 1))
+					return null;
+			}
+		} catch (IllegalMoveException e) {
+			return null;
+		}
+		return new String(path);
+	}
+
+	/**
+	 * @param dimension Välja dimensioon.
+	 * @param low Pakitud kuju alumised bitid.
+	 * @param high Pakitud kuju ülemised bitid.
+	 * @return Tagastab kirje andmed või 0, kui kirjet pole.
+	 */
+	private long get(int dimension, long low, long high) {
+		int index = Field.hash(low, high) & mask;
+		long entry = data[index];
+		if ((entry != 0) && ((lows[index] ^ entry) == low) && ((highs[index] ^ entry) == high)
+				&& (((entry >>> 20) & 0xF) == dimension))
+			return entry;
+		return 0;
+	}
+
+	/**
+	 * Kirjutab kirje, asendades samal kohal oleva.
+	 * @param dimension Välja dimensioon.
+	 * @param low Pakitud kuju alumised bitid.
+	 * @param high Pakitud kuju ülemised bitid.
+	 * @param distance Kaugus lõppseisust.
+	 * @param move Esimese käigu suuna järjekorranumber.
+	 */
+	private void put(int dimension, long low, long high, int distance, int move) {
+		int index = Field.hash(low, high) & mask;
+		long entry = PRESENT | ((long) dimension << 20) | ((long) move << 16) | distance;
+		data[index] = entry;
+		lows[index] = low ^ entry;
+		highs[index] = high ^ entry;
+	}
+
+	/**
+	 * @param symbol Käigu tähis.
+	 * @return Tagastab suuna järjekorranumbri.
+	 * @throws IllegalMoveException Visatakse tundmatu tähise korral.
+	 */
+	private static int moveIndex(char symbol) throws IllegalMoveException {
+		for (Direction direction : DIRECTIONS)
+			if (direction.getSymbol() == symbol)
+				return direction.ordinal();
+		throw new IllegalMoveException();
+	}
+}
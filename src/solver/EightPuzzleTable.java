@@ -0,0 +1,189 @@
+package solver;
+
+import solver.Field.Direction;
+
+/**
+ * Täielik tabel 3x3 välja (8-mängu) jaoks: iga seisu optimaalne kaugus
+ * lõppseisust ning esimene käik optimaalsel teel.<br>
+ * Seis indekseeritakse permutatsiooni järjekorranumbriga (Lehmeri kood,
+ * 9! = 362880 kohta, millest pooled on saavutatavad), kirje on üks bait:
+ * <code>(kaugus &lt;&lt; 2 | käigu suund) + 1</code>, 0 tähistab
+ * saavutamatut seisu. Tabel koostatakse esimesel kasutamisel tagurpidi
+ * laiuti otsinguga lõppseisust (alla sekundi) ning seda jagatakse kõigi
+ * lõimede vahel.<br>
+ * Lahenduse taastamine on seega lineaarne selle pikkuses ning ei loo
+ * vahepealseid objekte (vt. {@link #solve(Board)}). Tabel on ka täpne
+ * heuristika.
+ *
+ * @author Kristjan Kaitsa
+ * @version 1.0
+ *
+ */
+public class EightPuzzleTable implements Heuristic {
+	/** Mänguvälja dimensioon, mille jaoks tabel on. */
+	public static final int DIMENSION = 3;
+	/** Ruutude arv. */
+	private static final int SIZE = DIMENSION * DIMENSION;
+	/** Permutatsioonide arv (9!). */
+	private static final int PERMUTATIONS = 362880;
+	/** Saavutatavate seisude arv (9! / 2). */
+	private static final int REACHABLE = PERMUTATIONS / 2;
+	/** Kohakaalud järjekorranumbri arvutamiseks: (8 - i)!. */
+	private static final int[] FACTORIALS = { 40320, 5040, 720, 120, 24, 6, 2, 1, 1 };
+	/** Suunad järjekorranumbri järgi. */
+	private static final Direction[] DIRECTIONS = Direction.values();
+	/** Tühja ruudu indeksi muutus suundade kaupa. */
+	private static final int[] OFFSETS = { -DIMENSION, 1, DIMENSION, -1 };
+
+	/** Jagatud tabel (koostatakse esimesel vajadusel). */
+	private static EightPuzzleTable instance;
+
+	/** Kirjed järjekorranumbri järgi. */
+	private final byte[] table;
+
+	/**
+	 * @param table Kirjed järjekorranumbri järgi.
+	 */
+	private EightPuzzleTable(byte[] table) {
+		this.table = table;
+	}
+
+	/**
+	 * @return Tagastab jagatud tabeli, koostades selle esimesel kutsel.
+	 */
+	public static synchronized EightPuzzleTable getInstance() {
+		if (instance == null)
+			instance = build();
+		return instance;
+	}
+
+	/**
+	 * Koostab tabeli laiuti otsinguga lõppseisust. Seisud on järjekorras
+	 * pakitud kujul (4 bitti ruudu kohta, nagu {@link Field}-is). Kui
+	 * seisust <i>s</i> viib tühja ruudu käik suunas <i>d</i> uude seisu,
+	 * on uue seisu esimene käik lõppseisu poole <i>d</i> vastassuund.
+	 * @return Tagastab koostatud tabeli.
+	 */
+	private static EightPuzzleTable build() {
+		byte[] table = new byte[PERMUTATIONS];
+		long[] queue = new long[REACHABLE];
+		long goal = 0;
+		for (int index = 0; index < SIZE - 1; index++)
+			goal |= (long) (index + 1) << (4 * index);
+		queue[0] = goal;
+		table[rank(goal)] = 1;
+		int tail = 1;
+		MoveTable moves = MoveTable.forDimension(DIMENSION);
+		for (int head = 0; head < tail; head++) {
+			long state = queue[head];
+			int distance = ((table[rank(state)] & 0xFF) - 1) >>> 2;
+			int emptyIndex = emptyIndex(state);
+			for (int move = 0; move < DIRECTIONS.length; move++) {
+				int destIndex = moves.destination(emptyIndex, move);
+				if (destIndex < 0)
+					continue;
+				long child = swap(state, emptyIndex, destIndex);
+				int childRank = rank(child);
+				if (table[childRank] == 0) {
+					table[childRank] = (byte) ((((distance + 1) << 2) | ((move + 2) % 4)) + 1);
+					queue[tail++] = child;
+				}
+			}
+		}
+		return new EightPuzzleTable(table);
+	}
+
+	/**
+	 * @param board 3x3 väli.
+	 * @return Tagastab optimaalse käikude arvu lõppseisuni või -1, kui
+	 * väli ei ole lahendatav.
+	 */
+	public int distance(Board board) {
+		int entry = (table[rank(pack(board))] & 0xFF) - 1;
+		return (entry < 0) ? -1 : entry >>> 2;
+	}
+
+	/**
+	 * Taastab optimaalse lahenduse tabelist.
+	 * @param board 3x3 väli.
+	 * @return Tagastab lahenduse käigud (vt. {@link Field#backtrack()}) või
+	 * <code>null</code>-i, kui väli ei ole lahendatav.
+	 */
+	public String solve(Board board) {
+		long state = pack(board);
+		int entry = (table[rank(state)] & 0xFF) - 1;
+		if (entry < 0)
+			return null;
+		char[] path = new char[entry >>> 2];
+		int emptyIndex = emptyIndex(state);
+		for (int i = 0; i < path.length; i++) {
+			int move = entry & 3;
+			path[i] = DIRECTIONS[move].getSymbol();
+			int destIndex = emptyIndex + OFFSETS[move];
+			state = swap(state, emptyIndex, destIndex);
+			emptyIndex = destIndex;
+			entry = (table[rank(state)] & 0xFF) - 1;
+		}
+		return new String(path);
+	}
+
+	/**
+	 * Täpne heuristika: optimaalne kaugus (lahendamatu välja korral 0).
+	 */
+	@Override
+	public int estimate(Board board) {
+		return Math.max(distance(board), 0);
+	}
+
+	/**
+	 * @param board 3x3 väli.
+	 * @return Tagastab välja pakitud kuju.
+	 * @throws IllegalArgumentException Visatakse, kui väli ei ole 3x3.
+	 */
+	private static long pack(Board board) {
+		if (board.getDimension() != DIMENSION)
+			throw new IllegalArgumentException("Tabel on vaid 3x3 väljadele.");
+		long state = 0;
+		for (int index = 0; index < SIZE; index++)
+			state |= (long) board.getTile(index) << (4 * index);
+		return state;
+	}
+
+	/**
+	 * @param state Pakitud seis.
+	 * @return Tagastab seisu permutatsiooni järjekorranumbri (Lehmeri kood).
+	 */
+	private static int rank(long state) {
+		int rank = 0;
+		int used = 0;
+		for (int index = 0; index < SIZE; index++) {
+			int tile = (int) (state >>> (4 * index)) & 0xF;
+			rank += (tile - Integer.bitCount(used & ((1 << tile) - 1))) * FACTORIALS[index];
+			used |= 1 << tile;
+		}
+		return rank;
+	}
+
+	/**
+	 * @param state Pakitud seis.
+	 * @return Tagastab tühja ruudu indeksi.
+	 */
+	private static int emptyIndex(long state) {
+		for (int index = 0; index < SIZE; index++)
+			if (((state >>> (4 * index)) & 0xF) == 0)
+				return index;
+		return -1;
+	}
+
+	/**
+	 * Lükkab ruudu <code>destIndex</code> pealt tühjale kohale.
+	 * @param state Pakitud seis.
+	 * @param emptyIndex Tühja ruudu indeks.
+	 * @param destIndex Tühjaga naabruses oleva ruudu indeks.
+	 * @return Tagastab uue pakitud seisu.
+	 */
+	private static long swap(long state, int emptyIndex, int destIndex) {
+		long tile = (state >>> (4 * destIndex)) & 0xF;
+		return state & ~(0xFL << (4 * destIndex)) | (tile << (4 * emptyIndex));
+	}
+}
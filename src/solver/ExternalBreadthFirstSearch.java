@@ -0,0 +1,586 @@
+package solver;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.PriorityQueue;
+import java.util.function.BiConsumer;
+import java.util.function.LongConsumer;
+
+/**
+ * Kettal hoitav kihtide kaupa laiuti otsing kogu olekuruumi (või selle
+ * algusosa) läbimiseks, nt. kauguste histogrammi, oma mustriandmebaaside
+ * või lahendajate optimaalsuse kontrolli jaoks. Mälus ei hoita ühtegi
+ * {@link Field}-i - seis on permutatsiooni järjekorranumber (Lehmeri
+ * kood, nagu {@link EightPuzzleTable}-is), seega toetatud on kuni 4x4
+ * väljad (16! mahub <code>long</code>-i).<br>
+ * Iga kiht on kataloogis failina <code>kiht-NNN.bin</code>: kasvavalt
+ * sorditud järjekorranumbrid, mis on kirjutatud vahedena (esimene
+ * absoluutselt) muutuva pikkusega kodeeringus (7 bitti baidi kohta,
+ * kõrgeim bitt tähistab jätku). Faile loetakse mällu kaardistatuna
+ * ({@link FileChannel#map}).<br>
+ * Kihi <i>d</i> + 1 arvutamiseks laiendatakse kihi <i>d</i> seisud;
+ * järglased kogutakse mälupuhvrisse (vt. {@link #setMemoryLimit(long)}),
+ * mis täitumisel sorditakse ning kirjutatakse jooksuna kettale. Lõpuks
+ * ühendatakse jooksud (<i>external merge</i>), korduvad eemaldatakse ning
+ * lahutatakse kiht <i>d</i> - 1. Rohkem kihte vaadata pole vaja: iga
+ * käik muudab tühja ruudu ruudustiku "värvi", seega on olekugraaf kahealuseline
+ * ning järglane saab olla vaid kihis <i>d</i> - 1 või <i>d</i> + 1.<br>
+ * Otsing on jätkatav: pärast iga jooksu ja kihti kirjutatakse kataloogi
+ * kontrollpunkt (<code>olek.bin</code>). Katkestatud (või
+ * {@link SearchControl}-iga peatatud) otsing jätkub samast kataloogist
+ * uuesti käivitades viimasest valmis jooksust.
+ *
+ * @author Kristjan Kaitsa
+ * @version 1.0
+ *
+ */
+public class ExternalBreadthFirstSearch {
+	/** Kontrollpunkti faili tunnus ("BFS1"). */
+	public static final int MAGIC = 0x42465331;
+	/** Suurim toetatud dimensioon. */
+	public static final int MAX_DIMENSION = 4;
+	/** Kontrollpunkti faili nimi. */
+	private static final String CHECKPOINT = "olek.bin";
+	/** Kaardistatava lugemisakna suurus baitides. */
+	private static final int WINDOW = 1 << 26;
+
+	/** Kataloog, kus hoitakse kihte, jookse ja kontrollpunkti. */
+	private final File directory;
+	/** Mänguvälja dimensioon. */
+	private final int dimension;
+	/** Ruutude arv. */
+	private final int size;
+	/** Kohakaalud järjekorranumbri arvutamiseks: (size - 1 - i)!. */
+	private final long[] factorials;
+	/** Algseisu järjekorranumber. */
+	private final long start;
+	/** Dimensiooni käikude tabel. */
+	private final MoveTable moveTable;
+	/** Järglaste puhvri mälupiirang baitides. */
+	private long memoryLimit = Runtime.getRuntime().maxMemory() / 4;
+	/** Suurim kiht, milleni otsitakse. */
+	private int maxDepth = Integer.MAX_VALUE;
+	/** Kas vanad kihid jäetakse alles. */
+	private boolean keepLayers = false;
+	/** Otsingu juhtimine (katkestamine, piirangud). */
+	private SearchControl control = new SearchControl();
+	/** Valminud kihi kuulaja (kiht, seisude arv) või <code>null</code>. */
+	private BiConsumer<Integer, Long> layerListener = null;
+	/** Läbivaadatud (laiendatud) seisude arv selles käivituses. */
+	private long states = 0;
+
+	/**
+	 * @param directory Kataloog, kus hoitakse kihte ja kontrollpunkti
+	 * (luuakse, kui seda pole).
+	 * @param start Algseis (lõppseisust alustades on kihid kaugused lõppseisust).
+	 * @throws IllegalArgumentException Visatakse, kui väli on suurem kui 4x4.
+	 */
+	public ExternalBreadthFirstSearch(File directory, Field start) {
+		if (start.getDimension() > MAX_DIMENSION)
+			throw new IllegalArgumentException("Kettal otsing toetab kuni " + MAX_DIMENSION + "x"
+					+ MAX_DIMENSION + " välju.");
+		this.directory = directory;
+		this.dimension = start.getDimension();
+		this.size = dimension * dimension;
+		this.factorials = new long[size];
+		long factorial = 1;
+		for (int i = size - 1; i >= 0; i--) {
+			factorials[i] = factorial;
+			factorial *= size - i;
+		}
+		this.moveTable = MoveTable.forDimension(dimension);
+		int[] tiles = new int[size];
+		for (int index = 0; index < size; index++)
+			tiles[index] = start.getTile(index);
+		this.start = rank(tiles);
+	}
+
+	/**
+	 * @param bytes Järglaste puhvri suurus baitides (8 baiti seisu kohta,
+	 * vaikimisi veerand JVM-i mälust).
+	 */
+	public void setMemoryLimit(long bytes) {
+		this.memoryLimit = bytes;
+	}
+
+	/**
+	 * @param maxDepth Suurim kiht, milleni otsitakse.
+	 */
+	public void setMaxDepth(int maxDepth) {
+		this.maxDepth = maxDepth;
+	}
+
+	/**
+	 * @param keepLayers Kas kõik kihid jäetakse kettale (vaikimisi
+	 * kustutatakse kihid, mida järgmiste arvutamiseks enam vaja pole).
+	 */
+	public void setKeepLayers(boolean keepLayers) {
+		this.keepLayers = keepLayers;
+	}
+
+	/**
+	 * @param control Otsingu juhtimine (katkestamine, piirangud, edenemine).
+	 */
+	public void setControl(SearchControl control) {
+		this.control = control;
+	}
+
+	/**
+	 * @param listener Kuulaja, mida kutsutakse iga valminud kihi kohta
+	 * (ka jätkamisel juba valmis kihtide kohta).
+	 */
+	public void setLayerListener(BiConsumer<Integer, Long> listener) {
+		this.layerListener = listener;
+	}
+
+	/**
+	 * @return Tagastab selles käivituses laiendatud seisude arvu.
+	 */
+	public long getStates() {
+		return states;
+	}
+
+	/**
+	 * Otsib (või jätkab otsingut), kuni kiht on tühi või jõutakse
+	 * suurima kihini.
+	 * @return Tagastab seisude arvu kihtide kaupa (kauguste histogramm).
+	 * @throws IOException Visatakse, kui kettale kirjutamine või lugemine
+	 * ebaõnnestub või kontrollpunkt on teise otsingu oma.
+	 * @throws SearchAbortedException Visatakse, kui otsing katkestati;
+	 * otsingut saab hiljem jätkata.
+	 */
+	public long[] run() throws IOException {
+		if (!directory.isDirectory() && !directory.mkdirs())
+			throw new IOException("Kataloogi ei saa luua: " + directory);
+		control.start();
+		Checkpoint checkpoint = readCheckpoint();
+		if (checkpoint == null) {
+			OutputStream output = createLayer(0);
+			try {
+				writeVarLong(output, start);
+			} finally {
+				output.close();
+			}
+			commitLayer(0);
+			checkpoint = new Checkpoint(new long[] { 1 }, 0, 0);
+			writeCheckpoint(checkpoint);
+		}
+		for (int depth = 0; depth < checkpoint.histogram.length; depth++)
+			notifyLayer(depth, checkpoint.histogram[depth]);
+
+		long[] buffer = new long[(int) Math.max(1024, Math.min(memoryLimit / 8, Integer.MAX_VALUE - 8))];
+		int[] tiles = new int[size];
+		while (true) {
+			int depth = checkpoint.histogram.length - 1;
+			if ((checkpoint.histogram[depth] == 0) || (depth >= maxDepth))
+				break;
+			int runs = checkpoint.runs;
+			long consumed = checkpoint.consumed;
+			int count = 0;
+			Reader layer = new Reader(layerFile(depth));
+			try {
+				for (long i = 0; i < consumed; i++)
+					layer.next();
+				while (layer.hasNext()) {
+					long state = layer.next();
+					unrank(state, tiles);
+					int emptyIndex = 0;
+					while (tiles[emptyIndex] != 0)
+						emptyIndex++;
+					int list = moveTable.moves(emptyIndex, MoveTable.NO_MOVE);
+					for (int i = 0; i < MoveTable.count(list); i++) {
+						int destIndex = moveTable.destination(emptyIndex, MoveTable.move(list, i));
+						tiles[emptyIndex] = tiles[destIndex];
+						tiles[destIndex] = 0;
+						buffer[count++] = rank(tiles);
+						tiles[destIndex] = tiles[emptyIndex];
+						tiles[emptyIndex] = 0;
+					}
+					consumed++;
+					if ((++states & (SearchControl.CHECK_INTERVAL - 1)) == 0)
+						control.check(states, count, depth);
+					if (count > buffer.length - 4) {
+						writeRun(depth + 1, runs++, buffer, count);
+						count = 0;
+						writeCheckpoint(new Checkpoint(checkpoint.histogram, runs, consumed));
+					}
+				}
+			} finally {
+				layer.close();
+			}
+			if (count > 0)
+				writeRun(depth + 1, runs++, buffer, count);
+			long layerSize = merge(depth + 1, runs);
+			long[] histogram = Arrays.copyOf(checkpoint.histogram, depth + 2);
+			histogram[depth + 1] = layerSize;
+			checkpoint = new Checkpoint(histogram, 0, 0);
+			writeCheckpoint(checkpoint);
+			for (int run = 0; run < runs; run++)
+				Files.deleteIfExists(runFile(depth + 1, run).toPath());
+			if (!keepLayers && (depth > 0))
+				Files.deleteIfExists(layerFile(depth - 1).toPath());
+			notifyLayer(depth + 1, layerSize);
+		}
+		long[] histogram = checkpoint.histogram;
+		int length = histogram.length;
+		while ((length > 1) && (histogram[length - 1] == 0))
+			length--;
+		return Arrays.copyOf(histogram, length);
+	}
+
+	/**
+	 * Loeb kihi kõik seisud.
+	 * @param depth Kiht (peab olema kettal, vt. {@link #setKeepLayers(boolean)}).
+	 * @param consumer Seisude järjekorranumbrite vastuvõtja (kasvavas järjekorras).
+	 * @throws IOException Visatakse, kui kihti ei saa lugeda.
+	 */
+	public void forEach(int depth, LongConsumer consumer) throws IOException {
+		Reader layer = new Reader(layerFile(depth));
+		try {
+			while (layer.hasNext())
+				consumer.accept(layer.next());
+		} finally {
+			layer.close();
+		}
+	}
+
+	/**
+	 * @param rank Seisu järjekorranumber.
+	 * @return Tagastab järjekorranumbrile vastava välja.
+	 */
+	public Field toField(long rank) {
+		int[] tiles = new int[size];
+		unrank(rank, tiles);
+		int[][] values = new int[dimension][dimension];
+		for (int index = 0; index < size; index++)
+			values[index / dimension][index % dimension] = tiles[index];
+		return new Field(values);
+	}
+
+	/**
+	 * @param depth Kiht.
+	 * @return Tagastab kihi faili.
+	 */
+	public File layerFile(int depth) {
+		return new File(directory, String.format("kiht-%03d.bin", depth));
+	}
+
+	/**
+	 * Ühendab kihi jooksud, eemaldab korduvad ning kaks kihti tagasi olevad
+	 * seisud ja kirjutab kihi faili.
+	 * @param depth Kiht, mida luuakse.
+	 * @param runs Jooksude arv.
+	 * @return Tagastab kihi seisude arvu.
+	 * @throws IOException Visatakse, kui kettale kirjutamine või lugemine ebaõnnestub.
+	 */
+	private long merge(int depth, int runs) throws IOException {
+		PriorityQueue<Reader> readers = new PriorityQueue<Reader>(Math.max(runs, 1));
+		Reader previous = (depth >= 2) ? new Reader(layerFile(depth - 2)) : null;
+		OutputStream output = createLayer(depth);
+		long count = 0;
+		try {
+			for (int run = 0; run < runs; run++) {
+				Reader reader = new Reader(runFile(depth, run));
+				if (reader.advance())
+					readers.add(reader);
+				else
+					reader.close();
+			}
+			boolean hasPrevious = (previous != null) && previous.advance();
+			long last = -1;
+			long written = -1;
+			while (!readers.isEmpty()) {
+				Reader reader = readers.poll();
+				long state = reader.current;
+				if (reader.advance())
+					readers.add(reader);
+				else
+					reader.close();
+				if (state == last)
+					continue;
+				last = state;
+				while (hasPrevious && (previous.current < state))
+					hasPrevious = previous.advance();
+				if (!hasPrevious || (previous.current != state)) {
+					writeVarLong(output, (written < 0) ? state : state - written);
+					written = state;
+					count++;
+				}
+			}
+		} finally {
+			output.close();
+			for (Reader reader : readers)
+				reader.close();
+			if (previous != null)
+				previous.close();
+		}
+		commitLayer(depth);
+		return count;
+	}
+
+	/**
+	 * Sordib puhvri ning kirjutab selle jooksuna kettale (korduvad eemaldatakse).
+	 * @param depth Kiht, mille jooks see on.
+	 * @param run Jooksu number.
+	 * @param buffer Järglaste puhver.
+	 * @param count Puhvris olevate järglaste arv.
+	 * @throws IOException Visatakse, kui kirjutamine ebaõnnestub.
+	 */
+	private void writeRun(int depth, int run, long[] buffer, int count) throws IOException {
+		Arrays.sort(buffer, 0, count);
+		File file = runFile(depth, run);
+		File temp = new File(file.getPath() + ".tmp");
+		OutputStream output = new BufferedOutputStream(new FileOutputStream(temp), 1 << 16);
+		try {
+			long last = -1;
+			for (int i = 0; i < count; i++) {
+				if (buffer[i] == last)
+					continue;
+				writeVarLong(output, (last < 0) ? buffer[i] : buffer[i] - last);
+				last = buffer[i];
+			}
+		} finally {
+			output.close();
+		}
+		Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+				StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * @param depth Kiht.
+	 * @return Tagastab kihi ajutisse faili kirjutava voo.
+	 * @throws FileNotFoundException Visatakse, kui faili ei saa luua.
+	 */
+	private OutputStream createLayer(int depth) throws FileNotFoundException {
+		File temp = new File(layerFile(depth).getPath() + ".tmp");
+		return new BufferedOutputStream(new FileOutputStream(temp), 1 << 16);
+	}
+
+	/**
+	 * Nimetab kihi ajutise faili ümber, et poolikut kihti ei jääks.
+	 * @param depth Kiht.
+	 * @throws IOException Visatakse, kui ümbernimetamine ebaõnnestub.
+	 */
+	private void commitLayer(int depth) throws IOException {
+		File file = layerFile(depth);
+		Files.move(new File(file.getPath() + ".tmp").toPath(), file.toPath(),
+				StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * @param depth Kiht, mille jooks see on.
+	 * @param run Jooksu number.
+	 * @return Tagastab jooksu faili.
+	 */
+	private File runFile(int depth, int run) {
+		return new File(directory, String.format("jooks-%03d-%05d.bin", depth, run));
+	}
+
+	/**
+	 * @return Tagastab kataloogis oleva kontrollpunkti või <code>null</code>-i,
+	 * kui seda pole.
+	 * @throws IOException Visatakse, kui kontrollpunkt on vigane või teise
+	 * otsingu oma.
+	 */
+	private Checkpoint readCheckpoint() throws IOException {
+		File file = new File(directory, CHECKPOINT);
+		if (!file.exists())
+			return null;
+		DataInputStream input = new DataInputStream(new FileInputStream(file));
+		try {
+			if (input.readInt() != MAGIC)
+				throw new IOException("Vigane kontrollpunkt: " + file);
+			if ((input.readByte() != dimension) || (input.readLong() != start))
+				throw new IOException("Kontrollpunkt on teise algseisu oma: " + file);
+			int runs = input.readInt();
+			long consumed = input.readLong();
+			long[] histogram = new long[input.readInt()];
+			for (int depth = 0; depth < histogram.length; depth++)
+				histogram[depth] = input.readLong();
+			return new Checkpoint(histogram, runs, consumed);
+		} finally {
+			input.close();
+		}
+	}
+
+	/**
+	 * Kirjutab kontrollpunkti (ajutisse faili ning nimetab selle ümber).
+	 * @param checkpoint Kontrollpunkt.
+	 * @throws IOException Visatakse, kui kirjutamine ebaõnnestub.
+	 */
+	private void writeCheckpoint(Checkpoint checkpoint) throws IOException {
+		File file = new File(directory, CHECKPOINT);
+		File temp = new File(file.getPath() + ".tmp");
+		DataOutputStream output = new DataOutputStream(new FileOutputStream(temp));
+		try {
+			output.writeInt(MAGIC);
+			output.writeByte(dimension);
+			output.writeLong(start);
+			output.writeInt(checkpoint.runs);
+			output.writeLong(checkpoint.consumed);
+			output.writeInt(checkpoint.histogram.length);
+			for (long count : checkpoint.histogram)
+				output.writeLong(count);
+		} finally {
+			output.close();
+		}
+		Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+				StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * @param depth Valminud kiht.
+	 * @param count Kihi seisude arv.
+	 */
+	private void notifyLayer(int depth, long count) {
+		if ((layerListener != null) && (count > 0))
+			layerListener.accept(depth, count);
+	}
+
+	/**
+	 * @param tiles Ruutude numbrid indeksi järgi.
+	 * @return Tagastab permutatsiooni järjekorranumbri (Lehmeri kood).
+	 */
+	private long rank(int[] tiles) {
+		long rank = 0;
+		int used = 0;
+		for (int index = 0; index < size; index++) {
+			int tile = tiles[index];
+			rank += (tile - Integer.bitCount(used & ((1 << tile) - 1))) * factorials[index];
+			used |= 1 << tile;
+		}
+		return rank;
+	}
+
+	/**
+	 * @param rank Permutatsiooni järjekorranumber.
+	 * @param tiles Massiiv, kuhu kirjutatakse ruutude numbrid indeksi järgi.
+	 */
+	private void unrank(long rank, int[] tiles) {
+		int used = 0;
+		for (int index = 0; index < size; index++) {
+			int digit = (int) (rank / factorials[index]);
+			rank -= digit * factorials[index];
+			int tile = 0;
+			while (true) {
+				if ((used & (1 << tile)) == 0) {
+					if (digit == 0)
+						break;
+					digit--;
+				}
+				tile++;
+			}
+			tiles[index] = tile;
+			used |= 1 << tile;
+		}
+	}
+
+	/**
+	 * Kirjutab arvu muutuva pikkusega kodeeringus (7 bitti baidi kohta).
+	 * @param output Väljund.
+	 * @param value Mittenegatiivne arv.
+	 * @throws IOException Visatakse, kui kirjutamine ebaõnnestub.
+	 */
+	private static void writeVarLong(OutputStream output, long value) throws IOException {
+		while ((value & ~0x7FL) != 0) {
+			output.write((int) (value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		output.write((int) value);
+	}
+
+	/**
+	 * Kontrollpunkt: valmis kihtide suurused ning viimase kihi laiendamise seis.
+	 */
+	private static class Checkpoint {
+		/** Valmis kihtide seisude arvud. */
+		private final long[] histogram;
+		/** Järgmise kihi valmis jooksude arv. */
+		private final int runs;
+		/** Viimase kihi seisude arv, mille järglased on jooksudes. */
+		private final long consumed;
+
+		Checkpoint(long[] histogram, int runs, long consumed) {
+			this.histogram = histogram;
+			this.runs = runs;
+			this.consumed = consumed;
+		}
+	}
+
+	/**
+	 * Kihi või jooksu faili lugeja: kaardistab faili aknakaupa mällu ning
+	 * dekodeerib vahed tagasi järjekorranumbriteks.
+	 */
+	private static class Reader implements Comparable<Reader> {
+		private final FileChannel channel;
+		private final long length;
+		private MappedByteBuffer window;
+		private long windowStart = 0;
+		private long last = -1;
+		/** Viimati loetud järjekorranumber (vt. {@link #advance()}). */
+		private long current;
+
+		Reader(File file) throws IOException {
+			this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+			this.length = channel.size();
+			map(0);
+		}
+
+		boolean hasNext() throws IOException {
+			return windowStart + window.position() < length;
+		}
+
+		long next() throws IOException {
+			if (window.remaining() < 10)
+				map(windowStart + window.position());
+			long value = 0;
+			int shift = 0;
+			int b;
+			do {
+				b = window.get();
+				value |= (long) (b & 0x7F) << shift;
+				shift += 7;
+			} while ((b & 0x80) != 0);
+			last = (last < 0) ? value : last + value;
+			return last;
+		}
+
+		/**
+		 * @return Loeb järgmise väärtuse {@link #current}-i ning tagastab
+		 * <code>false</code>, kui fail on lõppenud.
+		 */
+		boolean advance() throws IOException {
+			if (!hasNext())
+				return false;
+			current = next();
+			return true;
+		}
+
+		void close() throws IOException {
+			channel.close();
+		}
+
+		private void map(long position) throws IOException {
+			windowStart = position;
+			window = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(WINDOW, length - position));
+		}
+
+		@Override
+		public int compareTo(Reader other) {
+			return Long.compare(current, other.current);
+		}
+	}
+}
@@ -1,194 +1,335 @@
 package solver;
 
 import java.awt.Point;
-import java.util.Arrays;
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
- * <code>Field</code> klass kujutab endast mnguvlja seisu<br>
- * ning vimaldab sellega manipuleerida ja seda kontrollida.
+ * <code>Field</code> klass kujutab endast mänguvälja seisu<br>
+ * ning võimaldab sellega manipuleerida ja seda kontrollida.
  * 
  * @author Kristjan Kaitsa
  * @version 1.0
  * 
  */
-public class Field implements Comparable<Field> {
-	/** Thja ruudu asukoht. */
-	private Point emptyPoint;
-	/** Mnguvlja dimensioon (15-mngu ehk 4x4 puhul 4). */
-	private int dimension;
-	/** Mnguvlja ruutude vrtused kahedimensionaalses massiivis. */
-	private int[][] values;
-	/** Antud vljale eelnev vli ehk vli, millest he liigutusega on
-	 * vimalik selle vljani juda. */
+public class Field implements Board {
+	/** Heuristika, mida kasutatakse, kui seda eraldi ei määrata. */
+	private static final Heuristic DEFAULT_HEURISTIC = new ManhattanHeuristic();
+	/** Suurim toetatud mänguvälja dimensioon: 5x5 väli mahub veel kahte
+	 * <code>long</code>-i. */
+	public static final int MAX_DIMENSION = 5;
+	/** Lahendatud väljade pakitud kujud dimensioonide kaupa (alumised 64 bitti). */
+	private static final long[] SOLVED_LOW = new long[MAX_DIMENSION + 1];
+	/** Lahendatud väljade pakitud kujud dimensioonide kaupa (ülemised bitid). */
+	private static final long[] SOLVED_HIGH = new long[MAX_DIMENSION + 1];
+	/** Käikude tabelid dimensioonide kaupa (vt. {@link MoveTable}). */
+	private static final MoveTable[] MOVE_TABLES = new MoveTable[MAX_DIMENSION + 1];
+	
+	static {
+		for (int dimension = 1; dimension <= MAX_DIMENSION; dimension++) {
+			MOVE_TABLES[dimension] = MoveTable.forDimension(dimension);
+			Field solved = new Field(generateSolved(dimension), null, 0);
+			SOLVED_LOW[dimension] = solved.low;
+			SOLVED_HIGH[dimension] = solved.high;
+		}
+	}
+	
+	/** Mänguvälja dimensioon (15-mängu ehk 4x4 puhul 4). */
+	private final byte dimension;
+	/** Tühja ruudu indeks (<code>y * dimension + x</code>). */
+	private byte emptyIndex;
+	/** Mänguvälja ruutude väärtused pakitult: ruut indeksiga <code>i</code>
+	 * asub bittidel <code>i * bitsPerTile</code> alates. 3x3 ja 4x4 väli
+	 * mahub tervenisti siia (4 bitti ruudu kohta). */
+	private long low;
+	/** 5x5 välja (5 bitti ruudu kohta) 64-st bitist üle jääv osa. */
+	private long high;
+	/** Antud väljale eelnev väli ehk väli, millest ühe liigutusega on
+	 * võimalik selle väljani jõuda. Otsingud eelast ei seo (vt.
+	 * {@link #Field(Field, int, int)}), seega ei hoia väli kinni kogu
+	 * läbitud puud - tee taastatakse käikude kaudu (vt.
+	 * {@link StateTable#path(int)}). */
 	private Field parent;
-	/** Kikude arv, mis vaja sooritada, et algseisust antud vljani juda. */
+	/** Suuna järjekorranumber, millega väljani jõuti, või
+	 * {@link MoveTable#NO_MOVE} (2 bitti + tähis, hoitakse baidina). */
+	private byte lastMove = MoveTable.NO_MOVE;
+	/** Käikude arv, mis vaja sooritada, et algseisust antud väljani jõuda. */
 	private int moves;
-	/** Massiiv kujutamaks oodatava lahendatud vlja numbrite paigutust. */
-	private int[][] solvedValues;
-	/** Antud vlja kigi ruutude Manhattani kauguste summa nende nutud kohast. */ 
-	private int manhattanDistance;
+	/** Heuristika, millega välja hinnatakse. Antakse edasi väljalt-väljale. */
+	private final Heuristic heuristic;
+	/** Antud välja heuristiline hinnang h*(n). */
+	private int estimate;
 	
 	/**
-	 * Koostab uue vlja vastavalt ette antud seisule.<br>
-	 * Kasutatakse algseisu phjal vlja loomiseks -
+	 * Koostab uue välja vastavalt ette antud seisule.<br>
+	 * Kasutatakse algseisu põhjal välja loomiseks -
 	 * ei oma eelasi.
-	 * @param values Kahedimensionaalne massiiv vlja numbritega.
+	 * Hinnatakse Manhattani kaugusega ({@link ManhattanHeuristic}).
+	 * @param values Kahedimensionaalne massiiv välja numbritega.
+	 * @throws IllegalArgumentException Visatakse, kui välja dimensioon on
+	 * suurem kui {@link #MAX_DIMENSION}.
 	 */
 	public Field(int[][] values) {
-		this.moves = 0;
-		this.dimension = values.length;
-		this.solvedValues = generateSolved();
-		this.values = new int[dimension][dimension];
+		this(values, DEFAULT_HEURISTIC);
+	}
+	
+	/**
+	 * Koostab uue välja vastavalt ette antud seisule ja heuristikale.
+	 * Heuristika antakse edasi kõigile järglastele.
+	 * @param values Kahedimensionaalne massiiv välja numbritega.
+	 * @param heuristic Heuristika, millega välja ja järglasi hinnatakse.
+	 * @throws IllegalArgumentException Visatakse, kui välja dimensioon on
+	 * suurem kui {@link #MAX_DIMENSION}.
+	 */
+	public Field(int[][] values, Heuristic heuristic) {
+		this(values, heuristic, 0);
+		this.estimate = heuristic.estimate(this);
+	}
+	
+	/**
+	 * Pakib ette antud seisu, heuristikat arvutamata.
+	 * @param values Kahedimensionaalne massiiv välja numbritega.
+	 * @param heuristic Heuristika, millega välja hinnatakse.
+	 * @param moves Käikude arv algseisust.
+	 */
+	private Field(int[][] values, Heuristic heuristic, int moves) {
+		if (values.length > MAX_DIMENSION)
+			throw new IllegalArgumentException("Toetatud on kuni " + MAX_DIMENSION + "x"
+					+ MAX_DIMENSION + " väljad.");
+		this.heuristic = heuristic;
+		this.moves = moves;
+		this.dimension = (byte) values.length;
 		for (int y = 0; y < dimension; y++) {
 			for (int x = 0; x < dimension; x++) {
-				this.values[y][x] = values[y][x];
+				setTile(y * dimension + x, values[y][x]);
 				if (values[y][x] == 0)
-					this.emptyPoint = new Point(x, y);
+					this.emptyIndex = (byte) (y * dimension + x);
 			}
 		}
-		this.manhattanDistance = this.calculateManhattanDistance();
 	}
 	
 	/**
-	 * Koostab uue vlja vastavalt ette antud vljale ning
-	 * thja ruudu liigutamise suunale.
-	 * @param parent Antud vlja eelane.
-	 * @param emptyMove Thja ruudu liigutamise suund.
+	 * Taastab välja pakitud kujult (nt. {@link StateTable} kirjest),
+	 * heuristikat uuesti arvutamata. Eelast ei ole.
+	 * @param dimension Mänguvälja dimensioon.
+	 * @param low Pakitud kuju alumised bitid.
+	 * @param high Pakitud kuju ülemised bitid.
+	 * @param moves Käikude arv algseisust.
+	 * @param heuristic Heuristika, millega välja hinnatakse.
+	 * @param estimate Välja varem arvutatud heuristiline hinnang.
+	 */
+	Field(int dimension, long low, long high, int moves, Heuristic heuristic, int estimate) {
+		this.dimension = (byte) dimension;
+		this.low = low;
+		this.high = high;
+		this.moves = moves;
+		this.heuristic = heuristic;
+		this.estimate = estimate;
+		for (int index = 0; index < dimension * dimension; index++)
+			if (getTile(index) == 0)
+				this.emptyIndex = (byte) index;
+	}
+	
+	/**
+	 * Koostab uue välja vastavalt ette antud väljale ning
+	 * tühja ruudu liigutamise suunale.
+	 * @param parent Antud välja eelane.
+	 * @param emptyMove Tühja ruudu liigutamise suund.
 	 * @throws IllegalMoveException Visatakse, kui antud suunas ei ole
-	 * vimalik thja ruutu liigutada.
+	 * võimalik tühja ruutu liigutada.
 	 */
 	public Field(Field parent, Direction emptyMove) throws IllegalMoveException {
+		this(parent, emptyMove.ordinal(), destination(parent, emptyMove));
 		this.parent = parent;
+	}
+	
+	/**
+	 * Koostab järglase ilma käigu legaalsust kontrollimata (vt.
+	 * {@link MoveTable}) - otsingute sisemise tsükli jaoks. Järglane
+	 * jätab meelde vaid käigu, millega sinna jõuti, eelast see ei viita.
+	 * @param parent Antud välja eelane.
+	 * @param move Tühja ruudu liigutamise suuna järjekorranumber.
+	 * @param destIndex Tühjaga naabruses oleva ruudu indeks, kuhu tühi ruut liigub.
+	 */
+	Field(Field parent, int move, int destIndex) {
+		this.lastMove = (byte) move;
 		this.moves = parent.getMoves() + 1;
-		this.dimension = parent.getDimension();
-		this.emptyPoint = parent.getEmptyPoint();
+		this.dimension = parent.dimension;
+		this.heuristic = parent.heuristic;
+		this.emptyIndex = parent.emptyIndex;
+		this.low = parent.low;
+		this.high = parent.high;
 		
-		Point destPoint = directionToPoint(this.emptyPoint, emptyMove);
+		int tile = getTile(destIndex);
 		
-		this.solvedValues = parent.getSolvedValues();
-		this.values = new int[dimension][dimension];
-		for (int i = 0; i < dimension; i++)
-			System.arraycopy(parent.getValues()[i], 0, this.values[i], 0, dimension);
-		
-		swapElements(this.emptyPoint, destPoint);
-		this.emptyPoint = destPoint;
-		this.manhattanDistance = this.calculateManhattanDistance();
+		setTile(this.emptyIndex, tile);
+		setTile(destIndex, 0);
+		this.emptyIndex = (byte) destIndex;
+		this.estimate = heuristic.update(this, parent.estimate, tile, destIndex, parent.emptyIndex);
 	}
 	
 	/**
-	 * @return Tagastab mnguvlja ruutude vrtused kahe-dimensionaalse massiivina.
+	 * Pakib mänguvälja lahti. Koostab iga kord uue massiivi, seega
+	 * mõeldud vaid väljastamiseks ja kasutajaliidese tarbeks - otsingud
+	 * töötavad pakitud kujuga.
+	 * @return Tagastab mänguvälja ruutude väärtused kahe-dimensionaalse massiivina.
 	 */
 	public int[][] getValues() {
-		return this.values;
+		int[][] values = new int[dimension][dimension];
+		for (int y = 0; y < dimension; y++)
+			for (int x = 0; x < dimension; x++)
+				values[y][x] = getTile(y * dimension + x);
+		return values;
 	}
 	
 	/**
-	 * @return Tagastab mnguvlja dimensiooni (nt. 4x4 ehk 15-mngu puhul 4).
+	 * @return Tagastab mänguvälja dimensiooni (nt. 4x4 ehk 15-mängu puhul 4).
 	 */
+	@Override
 	public int getDimension() {
 		return this.dimension;
 	}
 	
 	/**
-	 * @return Tagastab thja ruudu asukoha mnguvljal.
+	 * @return Tagastab tühja ruudu asukoha mänguväljal.
 	 */
 	public Point getEmptyPoint() {
-		return this.emptyPoint;
+		return new Point(emptyIndex % dimension, emptyIndex / dimension);
 	}
 	
 	/**
-	 * @return Tagastab antud vljani judmiseks vajaminevate kikude arvu algolekust.
+	 * @return Tagastab tühja ruudu indeksi (<code>y * dimension + x</code>).
 	 */
-	public int getMoves() {
-		return this.moves;
+	public int getEmptyIndex() {
+		return this.emptyIndex;
 	}
 	
 	/**
-	 * @return Tagastab oodatava lahendatud vlja vrtused.
-	 * Antakse edasi vljalt-vljale, et ei peaks alati uuesti arvutama.
+	 * @return Tagastab antud väljani jõudmiseks vajaminevate käikude arvu algolekust.
 	 */
-	public int[][] getSolvedValues() {
-		return this.solvedValues;
+	public int getMoves() {
+		return this.moves;
 	}
 	
 	/**
-	 * @return Tagastab antud vlja vahetu eelase ehk vlja, millest he liigutusega on
-	 * vimalik selle vljani juda.
+	 * @return Tagastab antud välja vahetu eelase ehk välja, millest ühe liigutusega on
+	 * võimalik selle väljani jõuda.
 	 */
 	public Field getParent() {
 		return parent;
 	}
 	
 	/**
-	 * Vahetab antud vlja esivanema vlja.<br>
-	 * Vajalik A* algoritmis toimuva tippudevaheliste viitade mberorienteerimiseks.
-	 * @param parent Antud vljale uus eelane.
+	 * Vahetab antud välja esivanema välja.<br>
+	 * Vajalik A* algoritmis toimuva tippudevaheliste viitade ümberorienteerimiseks.
+	 * @param parent Antud väljale uus eelane.
 	 */
 	public void setParent(Field parent) {
 		this.parent = parent;
 		this.moves = parent.getMoves() + 1;
+		int difference = emptyIndex - parent.emptyIndex;
+		if (difference == -dimension)
+			this.lastMove = (byte) Direction.NORTH.ordinal();
+		else if (difference == 1)
+			this.lastMove = (byte) Direction.EAST.ordinal();
+		else if (difference == dimension)
+			this.lastMove = (byte) Direction.SOUTH.ordinal();
+		else
+			this.lastMove = (byte) Direction.WEST.ordinal();
 	}
 	
-	public int getManhattanDistance() {
-		return this.manhattanDistance;
+	/**
+	 * @return Tagastab suuna järjekorranumbri, millega väljani jõuti, või
+	 * {@link MoveTable#NO_MOVE} algseisu korral.
+	 */
+	public int getLastMove() {
+		return lastMove;
 	}
 	
 	/**
-	 * Hinnangufunktsioon: f(n)= <b>g(n)</b> + 3 * <b>h*(n)</b>.<br>
-	 * <ul>
-	 * <li><b>g(n)</b> - siia olekusse judmiseks lbitud tippude arv.</li>
-	 * <li><b>h*(n)</b> - minimaalne kikude arv, mis siit lpptippu judmiseks
-	 * teha oleks vaja.</li>
-	 * </ul>
-	 * Kiiremini lahenduse leidmiseks ohverdatakse algoritmi optimaalsus ning
-	 * <b>h*(n)</b> korrutatakse kolmega.
-	 * @return Tagastab antud vlja hinnangu.
+	 * @return Tagastab heuristika, millega välja hinnatakse.
 	 */
-	public int getHeuristicValue() {
-		return this.moves + 3 * this.getManhattanDistance();
+	public Heuristic getHeuristic() {
+		return this.heuristic;
 	}
 	
 	/**
-	 * Kontrollib, kas antud vlja nol on tegemist lahendatud vljaga.
-	 * @return Tevrtuse.
+	 * Heuristiline hinnang <b>h*(n)</b> - minimaalne käikude arv, mis siit
+	 * lõpptippu jõudmiseks teha oleks vaja (lubava heuristika puhul
+	 * alahinnang). Kaalu, millega seda otsingus arvestatakse, määrab otsing
+	 * (vt. {@link Search}).
+	 * @return Tagastab antud välja hinnangu.
+	 */
+	public int getEstimate() {
+		return this.estimate;
+	}
+	
+	/**
+	 * Kontrollib, kas antud välja näol on tegemist lahendatud väljaga.
+	 * @return Tõeväärtuse.
 	 */
 	public boolean isSolved() {
-		if (Arrays.deepEquals(this.values, this.solvedValues))
-			return true;
-		else
-			return false;
+		return (this.low == SOLVED_LOW[dimension]) && (this.high == SOLVED_HIGH[dimension]);
 	}
 	
 	/**
-	 * Genereerib antud vljale kik legaalsed jrglased va.
-	 * tagasikigu (ehk antud vlja eelase).
-	 * @return Lingitud listi antud vlja jrglastega.
+	 * Genereerib antud väljale kõik legaalsed järglased va.
+	 * tagasikäigu (ehk antud välja eelase).
+	 * @return Listi antud välja järglastega.
 	 */
 	public List<Field> getChildren() {
-		List<Field> children = new LinkedList<Field>();
-		for (Direction direction : Direction.values()) {
-			try {
-				Field child = new Field(this, direction);
-				if ((parent == null) || 
-						((parent != null) && (!parent.getEmptyPoint().equals(child.getEmptyPoint()))))
-					children.add(child);				
-			} catch (IllegalMoveException e) {
-				continue;
-			}
-		}
+		List<Field> children = new ArrayList<Field>(4);
+		forEachChild(children::add);
 		return children;
 	}
 	
 	/**
-	 * Genereerib vastavalt mngu dimensioonile oodatava lahenduse
+	 * Annab kõik legaalsed järglased va. tagasikäigu ette antud
+	 * vastuvõtjale. Käigud tulevad {@link MoveTable}-ist, seega luuakse
+	 * vaid järglased ise.
+	 * @param visitor Järglaste vastuvõtja.
+	 */
+	public void forEachChild(Consumer<Field> visitor) {
+		MoveTable table = MOVE_TABLES[dimension];
+		int list = table.moves(emptyIndex, lastMove);
+		for (int i = 0; i < MoveTable.count(list); i++) {
+			int move = MoveTable.move(list, i);
+			Field child = new Field(this, move, table.destination(emptyIndex, move));
+			child.parent = this;
+			visitor.accept(child);
+		}
+	}
+	
+	/**
+	 * Liigutab tühja ruudu <b>kohapeal</b>, heuristikat ja käikude arvu
+	 * muutmata. Mõeldud vaid tee taastamiseks abiväljal, mida keegi teine
+	 * ei näe (vt. {@link StateTable#path(int)}) - tavaliselt on väli muutumatu.
+	 * @param destIndex Tühjaga naabruses oleva ruudu indeks.
+	 */
+	void moveEmpty(int destIndex) {
+		setTile(emptyIndex, getTile(destIndex));
+		setTile(destIndex, 0);
+		this.emptyIndex = (byte) destIndex;
+	}
+	
+	/**
+	 * Genereerib vastavalt mängu dimensioonile oodatava lahenduse
 	 * massiivi. Eeldatakse, et lahenduses peavad numbrid
-	 * olema jrjest levalt vasakult kuni alla paremale ning thi
-	 * ruut (ehk 0) on kige lpus.
-	 * @return Tagastab lahendatud vlja massiivi.
+	 * olema järjest ülevalt vasakult kuni alla paremale ning tühi
+	 * ruut (ehk 0) on kõige lõpus.
+	 * @return Tagastab lahendatud välja massiivi.
 	 */
 	public int[][] generateSolved() {
+		return generateSolved(dimension);
+	}
+	
+	/**
+	 * Vt. {@link #generateSolved()}.
+	 * @param dimension Mänguvälja dimensioon.
+	 * @return Tagastab lahendatud välja massiivi.
+	 */
+	private static int[][] generateSolved(int dimension) {
 		int number = 1;
 		int[][] solved = new int[dimension][dimension];
 		for (int y = 0; y < dimension; y++) {
@@ -204,45 +345,18 @@ public class Field implements Comparable<Field> {
 	}
 	
 	/**
-	 * Arvutab koordinaadid, kuhu jutakse <code>basePoint</code>'i liigutades
-	 * mratud suunas (<code>direction</code>).
-	 * @param basePoint Ruut, mida soovitakse liigutada.
-	 * @param direction Suund, kuhu <code>basePoint</code> liigutada.
-	 * @return Tagastab ruudu koordinaadid, kuhu liigutuse sooritamisel jutakse.
-	 * @throws IllegalMoveException Visatakse, kui kik ei ole 15-mngu
-	 * reeglite jrgi legaalne.
+	 * Leiab ruudu, kuhu tühi ruut antud suunas liigub.
+	 * @param field Väli.
+	 * @param direction Tühja ruudu liigutamise suund.
+	 * @return Tagastab ruudu indeksi, kuhu liigutuse sooritamisel jõutakse.
+	 * @throws IllegalMoveException Visatakse, kui käik ei ole 15-mängu
+	 * reeglite järgi legaalne.
 	 */
-	private Point directionToPoint(Point basePoint, Direction direction) throws IllegalMoveException {
-		if ((basePoint.y < 0) || (basePoint.y >= dimension))
-			throw new IllegalMoveException();
-		if ((basePoint.x < 0) || (basePoint.x >= dimension))
+	private static int destination(Field field, Direction direction) throws IllegalMoveException {
+		int destIndex = MOVE_TABLES[field.dimension].destination(field.emptyIndex, direction.ordinal());
+		if (destIndex < 0)
 			throw new IllegalMoveException();
-		
-		Point destPoint = new Point();
-		
-		switch (direction) {
-		case NORTH:
-			if (emptyPoint.y == 0)
-				throw new IllegalMoveException();
-			destPoint.setLocation(emptyPoint.x, emptyPoint.y - 1);
-			break;
-		case EAST:
-			if (emptyPoint.x >= dimension - 1)
-				throw new IllegalMoveException();
-			destPoint.setLocation(emptyPoint.x + 1, emptyPoint.y);
-			break;
-		case SOUTH:
-			if (emptyPoint.y >= dimension - 1)
-				throw new IllegalMoveException();
-			destPoint.setLocation(emptyPoint.x, emptyPoint.y + 1);
-			break;
-		case WEST:
-			if (emptyPoint.x == 0)
-				throw new IllegalMoveException();
-			destPoint.setLocation(emptyPoint.x - 1, emptyPoint.y);
-			break;
-		}
-		return destPoint;
+		return destIndex;
 	}
 	
 	/**
@@ -250,9 +364,9 @@ public class Field implements Comparable<Field> {
 	 * <code>toPoint</code>. 
 	 * @param fromPoint Algse asukoha koordinaadid.
 	 * @param toPoint Sihtpunkti koordinaadid.
-	 * @return Tagastab liikumisuuna, kuhu <code>fromPoint</code> vaja lkata.
-	 * @throws IllegalMoveException Visatakse, kui antud kiku ei ole 15-mngu
-	 * reeglite kohaselt vimalik teha.
+	 * @return Tagastab liikumisuuna, kuhu <code>fromPoint</code> vaja lükata.
+	 * @throws IllegalMoveException Visatakse, kui antud käiku ei ole 15-mängu
+	 * reeglite kohaselt võimalik teha.
 	 */
 	public static Direction pointsToDirection(Point fromPoint, Point toPoint) throws IllegalMoveException {
 		if ((fromPoint.x == toPoint.x) && (fromPoint.y - 1 == toPoint.y))
@@ -267,147 +381,178 @@ public class Field implements Comparable<Field> {
 	}
 	
 	/**
-	 * Vahetab mrgitud koordinaatidel olevad arvud.
-	 * @param a Esimene koordinaat.
-	 * @param b Teine koordinaat.
+	 * @param dimension Mänguvälja dimensioon.
+	 * @return Tagastab bittide arvu, mida üks ruut pakitud kujul võtab.
 	 */
-	private void swapElements(Point a, Point b) {
-		int temp = values[a.y][a.x];
-		values[a.y][a.x] = values[b.y][b.x];
-		values[b.y][b.x] = temp;
+	static int bitsPerTile(int dimension) {
+		return (dimension <= 4) ? 4 : 5;
 	}
 	
 	/**
-	 * Arvutab iga vlja kauguse nende asukohast lahendatud mnguvljal ning
-	 * liidab kaugused kokku. Kaugus arvutatakse
-	 * <a href='http://en.wikipedia.org/wiki/Taxicab_geometry'>Manhattan Distance</a> 
-	 * phimttel. Kasutatakse heuristilises funktsioonis h*(n)-ina. 
-	 * Nulli ei arvestata, kuna soovime, et algoritm oleks lubav (ennem
-	 * lbikaalumist vhemalt ;) )
-	 * @return
+	 * Loeb pakitud kujult ühe ruudu väärtuse. 5x5 välja puhul võib ruut
+	 * jääda <code>low</code> ja <code>high</code> piirile.
+	 * @param index Ruudu indeks (<code>y * dimension + x</code>).
+	 * @return Tagastab ruudul oleva numbri (tühja ruudu puhul 0).
 	 */
-	private int calculateManhattanDistance() {
-		/* Arvutamised eeldatakse, et lppvljal peaks
-		 * arvud paiknema jrjest levalt vasakult nurgast
-		 * suunaga paremasse alumisse nurka ning null kige
-		 * lpus. */
-		int distance = 0;
-		for (int y = 0; y < dimension; y++) {
-			for (int x = 0; x < dimension; x++) {
-				int number = values[y][x];
-				if (number == 0) continue;
-				int dest_x = (number - 1) % dimension;
-				int dest_y = (number - 1) / dimension;
-				distance += Math.abs(x - dest_x) + Math.abs(y - dest_y);
-			}
+	@Override
+	public int getTile(int index) {
+		int bits = bitsPerTile(dimension);
+		int shift = index * bits;
+		long value = 0;
+		if (shift < 64)
+			value = low >>> shift;
+		if (shift + bits > 64)
+			value |= (shift >= 64) ? high >>> (shift - 64) : high << (64 - shift);
+		return (int) (value & ((1L << bits) - 1));
+	}
+	
+	/**
+	 * Leiab ruudu asukoha. Kuni 4x4 väljal leitakse see ühe
+	 * <code>long</code>-i tehetega (otsitakse nullist poolbaiti pärast
+	 * XOR-i otsitava numbriga), 5x5 väljal läbitakse ruudud.
+	 * @param tile Ruudu number (tühja ruudu puhul 0).
+	 * @return Tagastab ruudu indeksi või -1, kui sellist ruutu pole.
+	 */
+	@Override
+	public int getPosition(int tile) {
+		if (tile == 0)
+			return emptyIndex;
+		if (dimension <= 4) {
+			long difference = low ^ (tile * 0x1111111111111111L);
+			long zeros = (difference - 0x1111111111111111L) & ~difference & 0x8888888888888888L;
+			return (zeros == 0) ? -1 : Long.numberOfTrailingZeros(zeros) >>> 2;
 		}
-		return distance;
+		for (int index = 0; index < dimension * dimension; index++)
+			if (getTile(index) == tile)
+				return index;
+		return -1;
 	}
 	
 	/**
-	 * Arvutab mnguvlja inversioonid, et kontrollida lahendatavust ({@link #isSolvable}).<br>
-	 * Phineb jrgneval algoritmil:<br>
+	 * Kirjutab pakitud kujule ühe ruudu väärtuse.
+	 * @param index Ruudu indeks (<code>y * dimension + x</code>).
+	 * @param value Ruudule pandav number.
+	 */
+	private void setTile(int index, int value) {
+		int bits = bitsPerTile(dimension);
+		int shift = index * bits;
+		long mask = (1L << bits) - 1;
+		if (shift < 64)
+			low = (low & ~(mask << shift)) | ((long) value << shift);
+		if (shift + bits > 64) {
+			if (shift >= 64)
+				high = (high & ~(mask << (shift - 64))) | ((long) value << (shift - 64));
+			else
+				high = (high & ~(mask >>> (64 - shift))) | ((long) value >>> (64 - shift));
+		}
+	}
+	
+	/**
+	 * Arvutab mänguvälja inversioonid, et kontrollida lahendatavust ({@link #isSolvable}).<br>
+	 * Põhineb järgneval algoritmil:<br>
 	 * <a href='http://www.cs.bham.ac.uk/~mdr/teaching/modules04/java2/TilesSolvability.html'>
 	 * Mark Ryan - Solvability of the Tiles Game</a>
 	 * @return Tagastab inversioonide summa.
 	 */
 	private int inversions() {
-		int inversionsCount = 0; 
-		for (int y1 = 0; y1 < dimension; y1++) {
-			for (int x1 = 0; x1 < dimension; x1++) {
-				if ((y1 == dimension - 1) && (x1 == dimension -1))
-					return inversionsCount;
-				if (values[y1][x1] == 0) continue;
-				for (int y2 = (x1 == dimension - 1) ? y1 + 1: y1; y2 < dimension; y2++) {
-					for (int x2 = (y2 == y1) && (x1 != dimension - 1) ? x1 + 1 : 0; x2 < dimension; x2++) {
-						if ((values[y2][x2] != 0) && (values[y2][x2] < values[y1][x1])) inversionsCount++;
-					}
-				}
+		int inversionsCount = 0;
+		int size = dimension * dimension;
+		for (int i = 0; i < size - 1; i++) {
+			int first = getTile(i);
+			if (first == 0) continue;
+			for (int j = i + 1; j < size; j++) {
+				int second = getTile(j);
+				if ((second != 0) && (second < first)) inversionsCount++;
 			}
 		}
 		return inversionsCount;
 	}
 	
 	/**
-	 * Kontrollib matemaatiliselt, kas antud vli on lahendatav.<br>
-	 * Kasutatud jrgnevat algoritmi:<br>
+	 * Kontrollib matemaatiliselt, kas antud väli on lahendatav.<br>
+	 * Kasutatud järgnevat algoritmi:<br>
 	 * <a href='http://www.cs.bham.ac.uk/~mdr/teaching/modules04/java2/TilesSolvability.html'>
 	 * Mark Ryan - Solvability of the Tiles Game</a>
-	 * @return Tagastab tevrtuse, kas vlja on vimalik lahedada.
+	 * @return Tagastab tõeväärtuse, kas välja on võimalik lahedada.
 	 */
 	public boolean isSolvable() {
 		int inversionsCount = inversions();
-        int emptySlotLineFromBotton = dimension - emptyPoint.y;
+        int emptySlotLineFromBotton = dimension - emptyIndex / dimension;
         if (((dimension % 2 != 0) && (inversionsCount % 2 == 0)) 
         		|| ((dimension % 2 == 0) && (emptySlotLineFromBotton % 2 != inversionsCount % 2))) return true;
         else return false;
 	}
 	
 	/**
-	 * Koostab sne, mis nitab lahenduseni judmiseks vajalikke kike.<br>
-	 * Liigutatakse thja ruutu thega mrgitud suunas!<br>
+	 * Koostab sõne, mis näitab lahenduseni jõudmiseks vajalikke käike.<br>
+	 * Liigutatakse tühja ruutu tähega märgitud suunas!<br>
 	 * <ul>
-	 * <li> - lesse</li>
+	 * <li>Ü - ülesse</li>
 	 * <li>P - paremale</li>
 	 * <li>A - alla</li>
 	 * <li>V - vasakule</li>
 	 * </ul>
-	 * @return Tagastab liigutusi kirjeldava sne. Lugeda vasakult paremale.
-	 * @throws IllegalMoveException Visatakse, kui kuskil esineb vigane kik.
-	 * Normaalse t puhul ei tohiks juhtuda!
+	 * Käigud loetakse eelaste ahelast ({@link #getLastMove()}) lõpust
+	 * alates otse ette eraldatud massiivi, seega on aeg lineaarne.
+	 * @return Tagastab liigutusi kirjeldava sõne. Lugeda vasakult paremale.
+	 * @throws IllegalMoveException Visatakse, kui kuskil esineb vigane käik.
+	 * Normaalse töö puhul ei tohiks juhtuda!
 	 */
 	public String backtrack() throws IllegalMoveException {
-		StringBuffer moves = new StringBuffer(100);
-		Field curField = this;
-		Field curParent = this.getParent();
-		
-		while (curParent != null) {
-			Point curEmpty = curField.getEmptyPoint();
-			Point prevEmpty = curParent.getEmptyPoint();
-			char curMove;
-			switch (Field.pointsToDirection(prevEmpty, curEmpty)) {
-			case NORTH:
-				curMove = '';
-				break;
-			case SOUTH:
-				curMove = 'A';
-				break;
-			case WEST:
-				curMove = 'V';
-				break;
-			case EAST:
-				curMove = 'P';
-				break;
-			default:
+		char[] path = new char[moves];
+		int start = moves;
+		for (Field curField = this; curField.parent != null; curField = curField.parent) {
+			if ((start == 0) || (curField.lastMove == MoveTable.NO_MOVE))
 				throw new IllegalMoveException();
-			}
-			moves.insert(0, curMove);
-			curField = curParent;
-			curParent = curField.getParent();
+			path[--start] = Direction.values()[curField.lastMove].getSymbol();
 		}
-
-		return moves.toString();
+		return new String(path, start, moves - start);
 	}
 
 	/**
-	 * Phimtteliselt Eclipse poolt genereeritud rsifunktsioon:
-	 * vimalik, et parema meldes saaks etema judluse.<br>
+	 * Räsifunktsioon pakitud kujult: segab mõlemad <code>long</code>-id
+	 * kokku, ilma välja lahti pakkimata.<br>
 	 * Vajalik paisktabelisse paigutamisel/leidmisel.
-	 * @return Antud objekti rsivrtuse.
+	 * @return Antud objekti räsiväärtuse.
 	 */
 	@Override
 	public int hashCode() {
-		final int prime = 31;
-		int result = 1;
-		result = prime * result + Arrays.deepHashCode((values));
-		return result;
+		return hash(low, high);
+	}
+	
+	/**
+	 * @param low Pakitud kuju alumised bitid.
+	 * @param high Pakitud kuju ülemised bitid.
+	 * @return Tagastab pakitud kuju räsiväärtuse (vt. {@link #hashCode()}).
+	 */
+	static int hash(long low, long high) {
+		// korrutamine liigutab bitte vaid ülespoole, seega enne seda
+		// segatakse ülemised bitid alla - muidu ei mõjutaks viimased
+		// ruudud räsi alumisi bitte (tabeli indeksit)
+		long hash = low ^ (high * 0x9E3779B97F4A7C15L);
+		hash = (hash ^ (hash >>> 32)) * 0xBF58476D1CE4E5B9L;
+		return (int) (hash ^ (hash >>> 32));
+	}
+	
+	/**
+	 * @return Tagastab pakitud kuju alumised 64 bitti.
+	 */
+	long getLow() {
+		return low;
+	}
+	
+	/**
+	 * @return Tagastab pakitud kuju ülemised bitid (3x3 ja 4x4 puhul 0).
+	 */
+	long getHigh() {
+		return high;
 	}
 
 	/**
-	 * Kontrollib kahe vlja samavrsust. Vaadatakse kigi numbrite paigutust - 
-	 * eelased jms. thtsust ei oma.
-	 * @param obj Teine objekt, millega vrrelda.
-	 * @return Tevrtus.
+	 * Kontrollib kahe välja samaväärsust. Vaadatakse kõigi numbrite paigutust - 
+	 * eelased jms. tähtsust ei oma.
+	 * @param obj Teine objekt, millega võrrelda.
+	 * @return Tõeväärtus.
 	 */
 	@Override
 	public boolean equals(Object obj) {
@@ -418,45 +563,53 @@ public class Field implements Comparable<Field> {
 		if (getClass() != obj.getClass())
 			return false;
 		Field cObj = (Field) obj;
-		if (!Arrays.deepEquals(this.getValues(), cObj.getValues()))
-			return false;
-		return true;
-	}
-
-	/**
-	 * Vrreldakse kahte vlja: ehk tpsemalt nende heuristilisi vrtusi.
-	 * Vajalik jrjekorda paigutamisel.
-	 * @param o Teine objekt, millega vrrelda.
-	 * @return Kui antud objekti (<code>this</code>) heuristiline vrtus on parem,
-	 * siis tagastatakse negatiivne arv.
-	 */
-	@Override
-	public int compareTo(Field o) {
-		return this.getHeuristicValue() - o.getHeuristicValue();
+		return (this.dimension == cObj.dimension) && (this.low == cObj.low)
+				&& (this.high == cObj.high);
 	}
 	
 	/**
 	 * Kirjeldab suunda.
-	 * Kasutatakse thja ruudu liigutamisel.
+	 * Kasutatakse tühja ruudu liigutamisel.
 	 * 
 	 * @author Kristjan Kaitsa
 	 * @version 1.0
 	 * 
 	 */
 	public static enum Direction {
-		/** Phi ehk lesse. */
-		NORTH,
+		/** Põhi ehk ülesse. */
+		NORTH('Ü'),
 		/** Ida ehk paremale. */
-		EAST,
-		/** Luna ehk alla. */
-		SOUTH,
-		/** Ls ehk vasakule. */
-		WEST
+		EAST('P'),
+		/** Lõuna ehk alla. */
+		SOUTH('A'),
+		/** Lääs ehk vasakule. */
+		WEST('V');
+		
+		/** Täht, millega suunda lahenduse sõnes tähistatakse. */
+		private final char symbol;
+		
+		private Direction(char symbol) {
+			this.symbol = symbol;
+		}
+		
+		/**
+		 * @return Tagastab suuna tähise lahenduse sõnes (vt. {@link Field#backtrack()}).
+		 */
+		public char getSymbol() {
+			return symbol;
+		}
+		
+		/**
+		 * @return Tagastab vastassuuna ehk käigu, mis antud käigu tagasi võtab.
+		 */
+		public Direction opposite() {
+			return values()[(ordinal() + 2) % 4];
+		}
 	}
 	
 	/**
-	 * Erind, mis visatakse, kui proovitud kik ei ole legaalne
-	 * ehk ei vasta 15-mngu reeglitele.
+	 * Erind, mis visatakse, kui proovitud käik ei ole legaalne
+	 * ehk ei vasta 15-mängu reeglitele.
 	 * 
 	 * @author Kristjan Kaitsa
 	 * @version 1.0
@@ -467,17 +620,17 @@ public class Field implements Comparable<Field> {
 	}
 	
 	/**
-	 * Vljastab mnguvlja tabulaatorite ja reavahetustega
+	 * Väljastab mänguvälja tabulaatorite ja reavahetustega
 	 * vormistatuna konsooli.
 	 * 
-	 * @return Mnguvlja kujutav sne.
+	 * @return Mänguvälja kujutav sõne.
 	 */
 	@Override
 	public String toString() {
 		StringBuffer output = new StringBuffer();
 		for (int y = 0; y < dimension; y++) {
 			for (int x = 0; x < dimension; x++) {
-				output.append(values[y][x]);
+				output.append(getTile(y * dimension + x));
 				output.append('\t');
 			}
 			if (y != dimension - 1)	output.append("\n");
@@ -0,0 +1,36 @@
+package solver;
+
+/**
+ * Heuristiline funktsioon h*(n): hinnang käikude arvule antud seisust
+ * lõppseisuni. Otsingud ({@link Search}, {@link IdaStarSearch}) saavad
+ * heuristika parameetrina, et saaks iga töö jaoks valida sobiva
+ * tasakaalu ühe tipu hindamise hinna ja läbivaadatud tippude arvu vahel.
+ *
+ * @author Kristjan Kaitsa
+ * @version 1.0
+ *
+ */
+public interface Heuristic {
+	/**
+	 * Hindab seisu tervikuna.
+	 * @param board Hinnatav seis.
+	 * @return Tagastab hinnangu (lubava heuristika puhul mitte rohkem kui
+	 * tegelik vähim käikude arv).
+	 */
+	public int estimate(Board board);
+
+	/**
+	 * Hindab seisu pärast üht käiku, teades eelmise seisu hinnangut.
+	 * Vaikimisi hinnatakse seis uuesti tervikuna, kuid realisatsioonid
+	 * võivad arvestada vaid käigust mõjutatud osa.
+	 * @param board Seis <b>pärast</b> käiku.
+	 * @param estimate Seisu hinnang enne käiku.
+	 * @param tile Liigutatud ruudu number.
+	 * @param from Ruudu asukoht enne käiku (ehk uus tühja ruudu asukoht).
+	 * @param to Ruudu asukoht pärast käiku (ehk endine tühja ruudu asukoht).
+	 * @return Tagastab uue seisu hinnangu.
+	 */
+	public default int update(Board board, int estimate, int tile, int from, int to) {
+		return estimate(board);
+	}
+}
@@ -0,0 +1,266 @@
+package solver;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import solver.Field.Direction;
+import solver.Search.UnsolvableException;
+
+/**
+ * Lõime klass sooritamaks iteratiivselt süvenevat A* (IDA*) otsingut.<br>
+ * Erinevalt {@link Search}-ist kasutatakse kaalumata, lubavat heuristikat
+ * (nt. {@link ManhattanHeuristic} või {@link AdditivePatternDatabase}),
+ * mistõttu leitud lahendus on <b>optimaalne</b>.
+ * Olekuid ei hoita mälus: otsitakse sügavuti kuni piirini
+ * f(n) = g(n) + h(n) ning iga iteratsiooni järel tõstetakse piiri
+ * vähima seda ületanud f(n) väärtuseni. Mälukasutus on seega võrdeline
+ * lahenduse pikkusega.
+ *
+ * @author Kristjan Kaitsa
+ * @version 1.0
+ *
+ */
+public class IdaStarSearch implements Solver {
+	/** Tagastusväärtus, mis tähistab lahenduse leidmist. */
+	private static final int FOUND = -1;
+	/** Suunad järjestuses, mille järgi käike proovitakse. */
+	private static final Direction[] DIRECTIONS = Direction.values();
+
+	/** Mänguvälja dimensioon. */
+	private final int dimension;
+	/** Seis, mida otsingu käigus kohapeal muudetakse. */
+	private final MutableField field;
+	/** Heuristika, millega seise hinnatakse. */
+	private final Heuristic heuristic;
+	/** Dimensiooni käikude tabel. */
+	private final MoveTable moveTable;
+	/** Jooksva seisu heuristiline hinnang h(n). */
+	private int estimate;
+	/** Jooksva tee käigud (suundade tähised). */
+	private char[] path;
+	/** Tõestatud kauguste hoidla või <code>null</code>. */
+	private DistanceStore store;
+	/** Jooksva seisu pakitud kuju (vt. {@link Field}), kui hoidlat kasutatakse. */
+	private long key;
+	/** Käigud, mis lahenduseni jõudmiseks teha vaja.<br>
+	 *  Täidetakse pärast lõppolekusse jõudmist. */
+	private volatile String movesToSolution;
+	/** Otsingu juhtimine (katkestamine, piirangud). */
+	private SearchControl control = new SearchControl();
+	/** Olekute arv, mis on läbivaadatud (kõigi iteratsioonide peale kokku).<br>
+	 * Vajalik puhtalt statistikaks. */
+	private long states = 0;
+	/** Genereeritud järglaste arv (statistika). */
+	private long generated = 0;
+	/** Suurim otsingusügavus (statistika). */
+	private int peakDepth = 0;
+	/** Aeg nanosekundites, mis kulus lahenduse leidmiseks.<br>
+	 * Vajalik puhtalt statistikaks. */
+	private long nanos = 0;
+
+	/**
+	 * Konstruktor uue otsingu sooritamiseks algseisu heuristikaga.
+	 * @param initField Algseis.
+	 * @throws UnsolvableException Visatakse, kui antud väli ei ole lahendatav.
+	 * Kontrollitakse matemaatiliselt (vt. {@link Field#isSolvable()}).
+	 */
+	public IdaStarSearch(Field initField) throws UnsolvableException {
+		this(initField, initField.getHeuristic());
+	}
+	
+	/**
+	 * Konstruktor uue otsingu sooritamiseks valitud heuristikaga.
+	 * @param initField Algseis.
+	 * @param heuristic Lubav heuristika (nt. {@link AdditivePatternDatabase});
+	 * mittelubava heuristikaga ei ole lahendus garanteeritult optimaalne.
+	 * @throws UnsolvableException Visatakse, kui antud väli ei ole lahendatav.
+	 * Kontrollitakse matemaatiliselt (vt. {@link Field#isSolvable()}).
+	 */
+	public IdaStarSearch(Field initField, Heuristic heuristic) throws UnsolvableException {
+		if (!initField.isSolvable())
+			throw new UnsolvableException();
+		this.dimension = initField.getDimension();
+		this.field = new MutableField(initField);
+		this.heuristic = heuristic;
+		this.moveTable = MoveTable.forDimension(dimension);
+		this.estimate = heuristic.estimate(field);
+		this.path = new char[Math.max(estimate, 1) * 2];
+		this.key = initField.getLow();
+	}
+
+	/**
+	 * Määrab tõestatud kauguste hoidla (vt. {@link SolutionCache}). Kui
+	 * seis on hoidlas, on selle kaugus täpne: see kärbib piiri ületava
+	 * haru ning piiri sisse jäädes on lahendus kohe olemas (kuna
+	 * väiksema piiriga iteratsioonid lahendust ei leidnud, on see ka
+	 * optimaalne). Toetatud kuni 4x4 väljadel, kus pakitud kuju mahub
+	 * ühte <code>long</code>-i ja seda saab käikudega kaasas hoida.
+	 * @param store Hoidla või <code>null</code>.
+	 */
+	public void setDistanceStore(DistanceStore store) {
+		this.store = (dimension <= 4) ? store : null;
+	}
+
+	/**
+	 * Alustab mänguvälja lahendamist.<br>
+	 * Töötab kuni lahendus leitakse.
+	 * @throws SearchAbortedException Visatakse, kui otsing katkestati või
+	 * mõni piirang ületati (vt. {@link #setControl(SearchControl)}).
+	 */
+	@Override
+	public void run() {
+		long start = System.nanoTime();
+		SolveEvent event = new SolveEvent();
+		event.begin();
+		control.start();
+		String moves = null;
+		try {
+			moves = solve();
+		} finally {
+			nanos = System.nanoTime() - start;
+			SearchStatistics statistics = getStatistics();
+			event.report(this, heuristic, dimension, statistics, moves);
+			SearchMetrics.getInstance().record(statistics, moves != null);
+		}
+		movesToSolution = moves;
+	}
+
+	/**
+	 * Iteratsioonid kasvava piiriga; iga iteratsioon on üks f-kiht
+	 * (vt. {@link LayerEvent}).
+	 * @return Tagastab lahenduse käigud.
+	 */
+	private String solve() {
+		int bound = estimate;
+		while (true) {
+			LayerEvent layer = new LayerEvent();
+			layer.begin();
+			long layerStates = states;
+			int result = search(0, bound, MoveTable.NO_MOVE);
+			layer.report(this, bound, states - layerStates, peakDepth);
+			if (result < 0)
+				return new String(path, 0, FOUND - result);
+			bound = result;
+		}
+	}
+
+	/**
+	 * Sügavuti otsing jooksvast seisust kuni piirini <code>bound</code>.
+	 * @param moves Jooksva seisuni tehtud käikude arv ehk g(n).
+	 * @param bound Jooksva iteratsiooni piir f(n)-ile.
+	 * @param lastMove Eelmise käigu suuna järjekorranumber või {@link MoveTable#NO_MOVE}.
+	 * @return Lahenduse leidmisel <code>FOUND - käikude arv</code>, vastasel
+	 * korral vähim piiri ületanud f(n).
+	 */
+	private int search(int moves, int bound, int lastMove) {
+		int cost = moves + estimate;
+		if (cost > bound)
+			return cost;
+		if ((estimate == 0) && isSolved())
+			return FOUND - moves;
+		if (store != null) {
+			int distance = store.distance(dimension, key, 0);
+			if ((distance >= 0) && (moves + distance > bound))
+				return moves + distance;
+			if ((distance >= 0) && appendStored(moves))
+				return FOUND - moves - distance;
+		}
+
+		this.states++;
+		if ((states & (SearchControl.CHECK_INTERVAL - 1)) == 0)
+			control.check(states, moves, bound);
+		if (moves > peakDepth)
+			peakDepth = moves;
+		if (moves == path.length) {
+			char[] longer = new char[path.length * 2];
+			System.arraycopy(path, 0, longer, 0, path.length);
+			path = longer;
+		}
+
+		int min = Integer.MAX_VALUE;
+		int emptyIndex = field.getEmptyIndex();
+		int list = moveTable.moves(emptyIndex, lastMove);
+		for (int i = 0; i < MoveTable.count(list); i++) {
+			int move = MoveTable.move(list, i);
+			int destIndex = moveTable.destination(emptyIndex, move);
+
+			this.generated++;
+			moveTile(destIndex);
+			path[moves] = DIRECTIONS[move].getSymbol();
+			int result = search(moves + 1, bound, move);
+			moveTile(emptyIndex);
+
+			if (result < 0)
+				return result;
+			if (result < min)
+				min = result;
+		}
+		return min;
+	}
+
+	/**
+	 * Lükkab ruudu <code>index</code> pealt tühjale kohale ning
+	 * uuendab hinnangut heuristika kaudu (vt. {@link Heuristic#update}).
+	 * Käigu tagasivõtmiseks tuleb ruut samamoodi tagasi lükata.
+	 * @param index Tühjaga naabruses oleva ruudu indeks.
+	 */
+	private void moveTile(int index) {
+		int emptyIndex = field.getEmptyIndex();
+		int tile = field.move(index);
+		estimate = heuristic.update(field, estimate, tile, index, emptyIndex);
+		key ^= ((long) tile << (4 * index)) ^ ((long) tile << (4 * emptyIndex));
+	}
+
+	/**
+	 * Lisab jooksvale teele hoidlast taastatud lahenduse.
+	 * @param moves Jooksva seisuni tehtud käikude arv.
+	 * @return Tagastab tõeväärtuse, kas lahendus oli taastatav (kirjeid
+	 * võidakse vahepeal asendada).
+	 */
+	private boolean appendStored(int moves) {
+		String rest = store.solution(new Field(dimension, key, 0, moves, heuristic, estimate));
+		if (rest == null)
+			return false;
+		if (moves + rest.length() > path.length)
+			path = Arrays.copyOf(path, moves + rest.length());
+		rest.getChars(0, rest.length(), path, moves);
+		return true;
+	}
+
+	/**
+	 * Kontrollib, kas kõik ruudud on oma kohal. Heuristika võib ka
+	 * lahendamata seisule anda hinnangu 0, seega seda eraldi.
+	 * @return Tõeväärtuse.
+	 */
+	private boolean isSolved() {
+		for (int index = 0; index < dimension * dimension - 1; index++)
+			if (field.getTile(index) != index + 1)
+				return false;
+		return true;
+	}
+
+	@Override
+	public String getMovesToSolution() {
+		return movesToSolution;
+	}
+
+	@Override
+	public long getTime() {
+		return TimeUnit.NANOSECONDS.toMillis(nanos);
+	}
+
+	@Override
+	public long getStates() {
+		return states;
+	}
+
+	@Override
+	public SearchStatistics getStatistics() {
+		return new SearchStatistics(states, generated, 0, 0, peakDepth, nanos);
+	}
+
+	@Override
+	public void setControl(SearchControl control) {
+		this.control = control;
+	}
+}
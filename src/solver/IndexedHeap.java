@@ -0,0 +1,264 @@
+package solver;
+
+import java.util.Arrays;
+
+/**
+ * Indekseeritud kahendkuhi {@link StateTable} kirjete jaoks.<br>
+ * Kuhjas hoitakse vaid kirjete numbreid ning nende võtmeid, iga kirje
+ * asukoht kuhjas salvestatakse tabelisse (vt.
+ * {@link StateTable#getHeapIndex(int)}). Seega saab kirje võtit
+ * vähendada ajaga O(log n), ilma järjekorda läbi otsimata ja ilma
+ * vananenud kirjeid järjekorda jätmata.<br>
+ * Võtmed on kahetasemelised: esmalt võrreldakse põhivõtit (nt. f(n)) ning
+ * võrdsete korral teisest võtit (nt. h(n)) - väiksem tuleb enne.<br>
+ * Kui tabel hoiab kirjeid väljaspool Java kuhja (vt.
+ * {@link StateTable#isOffHeap()}), tehakse sama ka kuhjaga: kirje on siis
+ * 16-baidine {@link NodeArena} kirje ja kasvamisel massiive ei kopeerita.
+ *
+ * @author Kristjan Kaitsa
+ * @version 1.0
+ *
+ */
+public class IndexedHeap {
+	/** Kuhjavälise kirje laius: põhivõti, kirje number, teisene võti. */
+	private static final int ENTRY_SIZE = 16;
+	/** Põhivõtme nihe kuhjavälises kirjes. */
+	private static final int KEY = 0;
+	/** Kirje numbri nihe kuhjavälises kirjes. */
+	private static final int ID = 8;
+	/** Teisese võtme nihe kuhjavälises kirjes. */
+	private static final int TIE = 12;
+
+	/** Tabel, kuhu kirjete asukohad kuhjas salvestatakse. */
+	private final StateTable table;
+	/** Kirjete numbrid kuhja järjestuses. */
+	private int[] ids;
+	/** Põhivõtmed kuhja järjestuses. */
+	private long[] keys;
+	/** Teisesed võtmed kuhja järjestuses. */
+	private int[] ties;
+	/** Kuhjavälised kirjed (võti, number, teisene võti) või <code>null</code>. */
+	private final NodeArena entries;
+	/** Kirjete arv kuhjas. */
+	private int size = 0;
+
+	/**
+	 * @param table Tabel, mille kirjeid kuhjas hoitakse.
+	 * @param capacity Algne mahutavus (kuhi kasvab vajadusel).
+	 */
+	public IndexedHeap(StateTable table, int capacity) {
+		this.table = table;
+		capacity = Math.max(capacity, 16);
+		if (table.isOffHeap()) {
+			this.entries = new NodeArena(ENTRY_SIZE, capacity);
+			return;
+		}
+		this.entries = null;
+		this.ids = new int[capacity];
+		this.keys = new long[capacity];
+		this.ties = new int[capacity];
+	}
+
+	/**
+	 * @return Tagastab tõeväärtuse, kas kuhi on tühi.
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * @return Tagastab kirjete arvu kuhjas.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Eemaldab kõik kirjed (massiivid jäetakse alles).
+	 */
+	public void clear() {
+		size = 0;
+	}
+
+	/**
+	 * Vabastab kuhjavälise mälu (vt. {@link StateTable#release()}).
+	 */
+	public void release() {
+		if (entries != null)
+			entries.release();
+		size = 0;
+	}
+
+	/**
+	 * Lisab kirje kuhja.
+	 * @param id Kirje number (ei tohi kuhjas juba olla).
+	 * @param key Põhivõti.
+	 * @param tie Teisene võti.
+	 */
+	public void add(int id, long key, int tie) {
+		if (entries != null)
+			entries.ensureCapacity(size + 1L);
+		else if (size == ids.length) {
+			int capacity = ids.length + (ids.length >> 1);
+			ids = Arrays.copyOf(ids, capacity);
+			keys = Arrays.copyOf(keys, capacity);
+			ties = Arrays.copyOf(ties, capacity);
+		}
+		set(size, id, key, tie);
+		siftUp(size++);
+	}
+
+	/**
+	 * Vähendab kuhjas oleva kirje võtit.
+	 * @param id Kirje number (peab kuhjas olema).
+	 * @param key Uus põhivõti (mitte suurem kui senine).
+	 * @param tie Uus teisene võti.
+	 */
+	public void decrease(int id, long key, int tie) {
+		int index = table.getHeapIndex(id);
+		set(index, id, key, tie);
+		siftUp(index);
+	}
+
+	/**
+	 * @return Tagastab vähima võtmega kirje numbri, seda kuhjast eemaldamata.
+	 */
+	public int peek() {
+		return id(0);
+	}
+
+	/**
+	 * @return Tagastab vähima kirje põhivõtme.
+	 */
+	public long peekKey() {
+		return key(0);
+	}
+
+	/**
+	 * Eemaldab vähima võtmega kirje. Kirje asukohta tabelis ei muudeta,
+	 * selle peab kutsuja (nt. {@link StateTable#close(int)}) määrama.
+	 * @return Tagastab eemaldatud kirje numbri.
+	 */
+	public int poll() {
+		int id = id(0);
+		size--;
+		if (size > 0) {
+			set(0, id(size), key(size), tie(size));
+			siftDown(0);
+		}
+		return id;
+	}
+
+	/**
+	 * Tõstab kirjet kuhjas ülespoole, kuni eelane pole sellest suurem.
+	 * @param index Kirje asukoht kuhjas.
+	 */
+	private void siftUp(int index) {
+		int id = id(index);
+		long key = key(index);
+		int tie = tie(index);
+		while (index > 0) {
+			int parent = (index - 1) >>> 1;
+			long parentKey = key(parent);
+			int parentTie = tie(parent);
+			if (!less(key, tie, parentKey, parentTie))
+				break;
+			move(parent, index, parentKey, parentTie);
+			index = parent;
+		}
+		set(index, id, key, tie);
+		table.setHeapIndex(id, index);
+	}
+
+	/**
+	 * Langetab kirjet kuhjas allapoole, kuni järglased pole sellest väiksemad.
+	 * @param index Kirje asukoht kuhjas.
+	 */
+	private void siftDown(int index) {
+		int id = id(index);
+		long key = key(index);
+		int tie = tie(index);
+		int half = size >>> 1;
+		while (index < half) {
+			int child = 2 * index + 1;
+			long childKey = key(child);
+			int childTie = tie(child);
+			int right = child + 1;
+			if (right < size) {
+				long rightKey = key(right);
+				int rightTie = tie(right);
+				if (less(rightKey, rightTie, childKey, childTie)) {
+					child = right;
+					childKey = rightKey;
+					childTie = rightTie;
+				}
+			}
+			if (!less(childKey, childTie, key, tie))
+				break;
+			move(child, index, childKey, childTie);
+			index = child;
+		}
+		set(index, id, key, tie);
+		table.setHeapIndex(id, index);
+	}
+
+	/**
+	 * Tõstab kirje kuhjas teisele kohale ning uuendab selle asukohta tabelis.
+	 * @param from Kirje senine asukoht.
+	 * @param to Kirje uus asukoht.
+	 * @param key Kirje (juba loetud) põhivõti.
+	 * @param tie Kirje teisene võti.
+	 */
+	private void move(int from, int to, long key, int tie) {
+		int id = id(from);
+		set(to, id, key, tie);
+		table.setHeapIndex(id, to);
+	}
+
+	/**
+	 * @param index Asukoht kuhjas.
+	 * @return Tagastab kirje numbri.
+	 */
+	private int id(int index) {
+		return (entries != null) ? entries.getInt(index, ID) : ids[index];
+	}
+
+	/**
+	 * @param index Asukoht kuhjas.
+	 * @return Tagastab põhivõtme.
+	 */
+	private long key(int index) {
+		return (entries != null) ? entries.getLong(index, KEY) : keys[index];
+	}
+
+	/**
+	 * @param index Asukoht kuhjas.
+	 * @return Tagastab teisese võtme.
+	 */
+	private int tie(int index) {
+		return (entries != null) ? entries.getInt(index, TIE) : ties[index];
+	}
+
+	/**
+	 * Kirjutab kuhja kohale kirje (asukohta tabelis ei muudeta).
+	 * @param index Asukoht kuhjas.
+	 * @param id Kirje number.
+	 * @param key Põhivõti.
+	 * @param tie Teisene võti.
+	 */
+	private void set(int index, int id, long key, int tie) {
+		if (entries != null) {
+			entries.putLong(index, KEY, key);
+			entries.putInt(index, ID, id);
+			entries.putInt(index, TIE, tie);
+			return;
+		}
+		ids[index] = id;
+		keys[index] = key;
+		ties[index] = tie;
+	}
+
+	private static boolean less(long key, int tie, long otherKey, int otherTie) {
+		return (key < otherKey) || ((key == otherKey) && (tie < otherTie));
+	}
+}
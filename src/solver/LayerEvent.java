@@ -0,0 +1,55 @@
+package solver;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR sündmus ühe f-kihi kohta: IDA* puhul üks iteratsioon, A* puhul
+ * seisud, mis laiendati enne, kui järjekorrast võetud f(n) ületas
+ * seni suurima väärtuse. Sündmuse kestus on kihi läbimise aeg.
+ *
+ * @author Kristjan Kaitsa
+ * @version 1.0
+ *
+ */
+@Name("solver.Layer")
+@Label("f-kiht")
+@Category("15-mäng")
+@Description("Otsingu üks f(n) kiht või IDA* iteratsioon")
+@StackTrace(false)
+public class LayerEvent extends Event {
+	@Label("Otsing")
+	String engine;
+
+	@Label("Piir")
+	double bound;
+
+	@Label("Laiendatud")
+	long expanded;
+
+	@Label("Avatud nimekiri")
+	long frontier;
+
+	/**
+	 * Lõpetab ja salvestab sündmuse, kui see on lubatud.
+	 * @param solver Otsing.
+	 * @param bound Kihi f(n) (IDA* iteratsiooni piir).
+	 * @param expanded Kihis laiendatud seisude arv.
+	 * @param frontier Avatud nimekirja suurus kihi lõpus (IDA* puhul
+	 * suurim sügavus).
+	 */
+	void report(Solver solver, double bound, long expanded, long frontier) {
+		end();
+		if (!shouldCommit())
+			return;
+		this.engine = solver.getClass().getSimpleName();
+		this.bound = bound;
+		this.expanded = expanded;
+		this.frontier = frontier;
+		commit();
+	}
+}
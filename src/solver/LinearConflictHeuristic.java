@@ -0,0 +1,86 @@
+package solver;
+
+/**
+ * Manhattani kaugus koos lineaarsete konfliktidega: kui kaks ruutu on
+ * oma sihtreas (või -veerus), kuid vales järjekorras, peab üks neist
+ * teisest mööda minekuks reast lahkuma ja tagasi tulema, mis lisab
+ * vähemalt kaks käiku. Igas reas ja veerus loetakse vähim ruutude arv,
+ * mis tuleb eemaldada, et ülejäänud oleksid õiges järjekorras (ehk ruutude
+ * arv miinus pikima kasvava alamjada pikkus), seega jääb heuristika lubavaks.<br>
+ * Pikim kasvav alamjada leitakse kaardipasjansi meetodil, hoides jadade
+ * lõppe ühes <code>long</code>-i bitimaskis, seega hinnang ega uuendamine
+ * ei loo ühtki objekti.
+ *
+ * @author Kristjan Kaitsa
+ * @version 1.0
+ *
+ */
+public class LinearConflictHeuristic implements Heuristic {
+	/** Manhattani kaugus, millele konfliktid lisatakse. */
+	private final ManhattanHeuristic manhattan = new ManhattanHeuristic();
+
+	@Override
+	public int estimate(Board board) {
+		int dimension = board.getDimension();
+		int conflicts = 0;
+		for (int line = 0; line < dimension; line++) {
+			conflicts += lineConflicts(board, line, true, -1, 0);
+			conflicts += lineConflicts(board, line, false, -1, 0);
+		}
+		return manhattan.estimate(board) + 2 * conflicts;
+	}
+
+	/**
+	 * Vertikaalne käik muudab vaid kahe rea konflikte (veerus ruutude
+	 * järjekord ei muutu), horisontaalne vaid kahe veeru omi. Seega
+	 * arvutatakse ümber vaid need kaks joont enne ja pärast käiku: O(n)
+	 * kogu välja O(n²) asemel.
+	 */
+	@Override
+	public int update(Board board, int estimate, int tile, int from, int to) {
+		int dimension = board.getDimension();
+		boolean row = (from / dimension) != (to / dimension);
+		int fromLine = row ? from / dimension : from % dimension;
+		int toLine = row ? to / dimension : to % dimension;
+		int before = lineConflicts(board, fromLine, row, from, tile) + lineConflicts(board, toLine, row, to, 0);
+		int after = lineConflicts(board, fromLine, row, -1, 0) + lineConflicts(board, toLine, row, -1, 0);
+		return manhattan.update(board, estimate, tile, from, to) + 2 * (after - before);
+	}
+
+	/**
+	 * Loeb ühe rea või veeru konfliktid. Joone ruutude sihtkohad on
+	 * erinevad, seega piisab kaardipasjansi jadade lõppudest bitimaskina:
+	 * iga sihtkoht asendab vähima suurema lõpu (või alustab uut jada) ning
+	 * pikima kasvava alamjada pikkus on lõppude arv.
+	 * @param board Hinnatav seis.
+	 * @param line Rea või veeru number.
+	 * @param row Kas tegemist on reaga (muidu veerg).
+	 * @param overrideIndex Ruut, mille väärtusena kasutada <code>board</code>'i
+	 * asemel <code>overrideTile</code>'i (nt. käigueelse seisu jaoks), või -1.
+	 * @param overrideTile Asendav ruudu number.
+	 * @return Tagastab ruutude arvu, mis tuleb reast eemaldada.
+	 */
+	private static int lineConflicts(Board board, int line, boolean row, int overrideIndex, int overrideTile) {
+		int dimension = board.getDimension();
+		int count = 0;
+		long tails = 0;
+		for (int i = 0; i < dimension; i++) {
+			int index = row ? line * dimension + i : i * dimension + line;
+			int tile = (index == overrideIndex) ? overrideTile : board.getTile(index);
+			if (tile == 0) continue;
+			int goalRow = (tile - 1) / dimension;
+			int goalColumn = (tile - 1) % dimension;
+			int goal;
+			if (row && (goalRow == line))
+				goal = goalColumn;
+			else if (!row && (goalColumn == line))
+				goal = goalRow;
+			else
+				continue;
+			count++;
+			tails &= ~Long.lowestOneBit(tails & (-2L << goal));
+			tails |= 1L << goal;
+		}
+		return count - Long.bitCount(tails);
+	}
+}
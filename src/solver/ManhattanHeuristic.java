@@ -0,0 +1,93 @@
+package solver;
+
+/**
+ * Iga ruudu kauguse summa oma kohast lõppseisus, arvutatuna
+ * <a href='http://en.wikipedia.org/wiki/Taxicab_geometry'>Manhattan Distance</a>
+ * põhimõttel. Tühja ruutu ei arvestata, seega on heuristika lubav.<br>
+ * Lõppseisus peavad numbrid paiknema järjest ülevalt vasakult nurgast
+ * suunaga paremasse alumisse nurka ning null kõige lõpus - või on
+ * sihiks antud seis (vt. {@link #ManhattanHeuristic(Board)}).
+ *
+ * @author Kristjan Kaitsa
+ * @version 1.0
+ *
+ */
+public class ManhattanHeuristic implements Heuristic {
+	/** Eelnevalt arvutatud kaugused dimensiooni järgi:
+	 * <code>DISTANCES[dimension][from * dimension * dimension + to]</code>. */
+	private static final byte[][] DISTANCES = new byte[Field.MAX_DIMENSION + 1][];
+
+	static {
+		for (int dimension = 1; dimension <= Field.MAX_DIMENSION; dimension++) {
+			int size = dimension * dimension;
+			DISTANCES[dimension] = new byte[size * size];
+			for (int from = 0; from < size; from++)
+				for (int to = 0; to < size; to++)
+					DISTANCES[dimension][from * size + to] = (byte) (Math.abs(from % dimension - to % dimension)
+							+ Math.abs(from / dimension - to / dimension));
+		}
+	}
+
+	/** Ruutude asukohad sihtseisus numbri järgi või <code>null</code>,
+	 * kui sihiks on lõppseis. */
+	private final int[] goal;
+
+	/**
+	 * Heuristika kaugusele lõppseisust (sobib kõigile dimensioonidele).
+	 */
+	public ManhattanHeuristic() {
+		this.goal = null;
+	}
+
+	/**
+	 * Heuristika kaugusele antud seisust (nt. kahesuunalise otsingu
+	 * tagurpidi poolel, vt. {@link BidirectionalSearch}). Sobib vaid sihtseisu
+	 * dimensiooniga väljadele.
+	 * @param goal Sihtseis.
+	 */
+	public ManhattanHeuristic(Board goal) {
+		int size = goal.getDimension() * goal.getDimension();
+		this.goal = new int[size];
+		for (int index = 0; index < size; index++)
+			this.goal[goal.getTile(index)] = index;
+	}
+
+	@Override
+	public int estimate(Board board) {
+		int dimension = board.getDimension();
+		int distance = 0;
+		for (int index = 0; index < dimension * dimension; index++) {
+			int number = board.getTile(index);
+			if (number == 0) continue;
+			distance += distance(dimension, index, target(number));
+		}
+		return distance;
+	}
+
+	/**
+	 * Käik muudab vaid liigutatud ruudu kaugust, seega O(1).
+	 */
+	@Override
+	public int update(Board board, int estimate, int tile, int from, int to) {
+		int dimension = board.getDimension();
+		return estimate + distance(dimension, to, target(tile)) - distance(dimension, from, target(tile));
+	}
+
+	/**
+	 * @param tile Ruudu number.
+	 * @return Tagastab ruudu asukoha sihtseisus.
+	 */
+	private int target(int tile) {
+		return (goal == null) ? tile - 1 : goal[tile];
+	}
+
+	/**
+	 * @param dimension Mänguvälja dimensioon.
+	 * @param from Ruudu indeks.
+	 * @param to Teise ruudu indeks.
+	 * @return Tagastab kahe ruudu vahelise Manhattani kauguse.
+	 */
+	static int distance(int dimension, int from, int to) {
+		return DISTANCES[dimension][from * dimension * dimension + to];
+	}
+}
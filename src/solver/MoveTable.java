@@ -0,0 +1,155 @@
+package solver;
+
+/**
+ * Dimensiooni käikude tabelid: iga tühja ruudu asukoha ja eelmise käigu
+ * kohta eelnevalt arvutatud legaalsed käigud (v.a. eelmise käigu
+ * tagasivõtmine) ning ruudud, kuhu tühi ruut nendega liigub. Otsingute
+ * sisemine tsükkel ei loo seega objekte, ei arvuta koordinaate ega
+ * kasuta erindeid väljalt välja jäävate käikude välistamiseks.<br>
+ * Käikude loend on üks <code>int</code>: bitid 0-2 on käikude arv,
+ * alates bitist 3 on iga käigu suuna järjekorranumber kahe bitiga.
+ * Läbimiseks:
+ * <pre>
+ * int list = table.moves(emptyIndex, lastMove);
+ * for (int i = 0; i &lt; MoveTable.count(list); i++) {
+ * 	int move = MoveTable.move(list, i);
+ * 	int destIndex = table.destination(emptyIndex, move);
+ * 	...
+ * }</pre>
+ * Tabelid on muutumatud ja neid jagatakse kõigi lõimede vahel.
+ *
+ * @author Kristjan Kaitsa
+ * @version 1.0
+ *
+ */
+public final class MoveTable {
+	/** Eelmise käigu tähis, kui käike veel pole. */
+	public static final int NO_MOVE = -1;
+	/** Suurim dimensioon, mille tabeleid hoitakse vahemälus. */
+	private static final int CACHED_DIMENSIONS = 32;
+	/** Suundade arv. */
+	private static final int DIRECTIONS = 4;
+
+	/** Jagatud tabelid dimensiooni järgi (luuakse esimesel vajadusel). */
+	private static final MoveTable[] TABLES = new MoveTable[CACHED_DIMENSIONS + 1];
+
+	/** Mänguvälja dimensioon. */
+	private final int dimension;
+	/** Sihtruudud: <code>[emptyIndex * 4 + move]</code>, -1 väljalt välja. */
+	private final int[] destinations;
+	/** Käikude loendid: <code>[emptyIndex * 5 + lastMove + 1]</code>. */
+	private final int[] lists;
+
+	/**
+	 * @param dimension Mänguvälja dimensioon.
+	 */
+	private MoveTable(int dimension) {
+		int size = dimension * dimension;
+		this.dimension = dimension;
+		this.destinations = new int[size * DIRECTIONS];
+		this.lists = new int[size * (DIRECTIONS + 1)];
+		for (int index = 0; index < size; index++) {
+			int x = index % dimension;
+			int y = index / dimension;
+			destinations[index * DIRECTIONS] = (y == 0) ? -1 : index - dimension;
+			destinations[index * DIRECTIONS + 1] = (x == dimension - 1) ? -1 : index + 1;
+			destinations[index * DIRECTIONS + 2] = (y == dimension - 1) ? -1 : index + dimension;
+			destinations[index * DIRECTIONS + 3] = (x == 0) ? -1 : index - 1;
+			for (int lastMove = NO_MOVE; lastMove < DIRECTIONS; lastMove++) {
+				int list = 0;
+				int count = 0;
+				for (int move = 0; move < DIRECTIONS; move++) {
+					if ((destinations[index * DIRECTIONS + move] < 0)
+							|| ((lastMove != NO_MOVE) && (move == (lastMove + 2) % DIRECTIONS)))
+						continue;
+					list |= move << (3 + 2 * count);
+					count++;
+				}
+				lists[index * (DIRECTIONS + 1) + lastMove + 1] = list | count;
+			}
+		}
+	}
+
+	/**
+	 * @param dimension Mänguvälja dimensioon.
+	 * @return Tagastab dimensiooni jagatud tabeli.
+	 */
+	public static MoveTable forDimension(int dimension) {
+		if (dimension > CACHED_DIMENSIONS)
+			return new MoveTable(dimension);
+		synchronized (TABLES) {
+			if (TABLES[dimension] == null)
+				TABLES[dimension] = new MoveTable(dimension);
+			return TABLES[dimension];
+		}
+	}
+
+	/**
+	 * @return Tagastab mänguvälja dimensiooni.
+	 */
+	public int getDimension() {
+		return dimension;
+	}
+
+	/**
+	 * @param emptyIndex Tühja ruudu indeks.
+	 * @param move Suuna järjekorranumber.
+	 * @return Tagastab ruudu indeksi, kuhu tühi ruut liigub, või -1, kui
+	 * käik viiks väljalt välja.
+	 */
+	public int destination(int emptyIndex, int move) {
+		return destinations[emptyIndex * DIRECTIONS + move];
+	}
+
+	/**
+	 * @param emptyIndex Tühja ruudu indeks.
+	 * @param lastMove Eelmise käigu suuna järjekorranumber või {@link #NO_MOVE}.
+	 * @return Tagastab legaalsete käikude loendi (vt. {@link #count(int)},
+	 * {@link #move(int, int)}).
+	 */
+	public int moves(int emptyIndex, int lastMove) {
+		return lists[emptyIndex * (DIRECTIONS + 1) + lastMove + 1];
+	}
+
+	/**
+	 * @param list Käikude loend.
+	 * @return Tagastab käikude arvu loendis.
+	 */
+	public static int count(int list) {
+		return list & 7;
+	}
+
+	/**
+	 * @param list Käikude loend.
+	 * @param i Käigu järjekorranumber loendis.
+	 * @return Tagastab käigu suuna järjekorranumbri.
+	 */
+	public static int move(int list, int i) {
+		return (list >>> (3 + 2 * i)) & 3;
+	}
+
+	/**
+	 * Läbib legaalsed käigud.
+	 * @param emptyIndex Tühja ruudu indeks.
+	 * @param lastMove Eelmise käigu suuna järjekorranumber või {@link #NO_MOVE}.
+	 * @param visitor Käikude vastuvõtja.
+	 */
+	public void forEach(int emptyIndex, int lastMove, Visitor visitor) {
+		int list = moves(emptyIndex, lastMove);
+		for (int i = 0; i < count(list); i++) {
+			int move = move(list, i);
+			visitor.visit(move, destination(emptyIndex, move));
+		}
+	}
+
+	/**
+	 * Käikude vastuvõtja (vt. {@link MoveTable#forEach(int, int, Visitor)}).
+	 */
+	public interface Visitor {
+		/**
+		 * @param move Suuna järjekorranumber.
+		 * @param destIndex Ruudu indeks, kuhu tühi ruut liigub.
+		 */
+		public void visit(int move, int destIndex);
+	}
+}
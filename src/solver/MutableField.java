@@ -0,0 +1,83 @@
+package solver;
+
+/**
+ * Kohapeal muudetav mänguväli sügavuti otsingute jaoks (nt.
+ * {@link IdaStarSearch}): käik tehakse ja võetakse tagasi samas
+ * massiivis, uusi objekte loomata. Lisaks ruutudele hoitakse ka iga
+ * ruudu asukohta, et {@link #getPosition(int)} oleks O(1).
+ *
+ * @author Kristjan Kaitsa
+ * @version 1.0
+ *
+ */
+public class MutableField implements Board {
+	/** Mänguvälja dimensioon. */
+	private final int dimension;
+	/** Ruutude väärtused indeksi järgi. */
+	private final int[] tiles;
+	/** Ruutude asukohad numbri järgi. */
+	private final int[] positions;
+
+	/**
+	 * Koostab muudetava koopia ette antud väljast.
+	 * @param field Väli, mille seis kopeeritakse.
+	 */
+	public MutableField(Field field) {
+		this.dimension = field.getDimension();
+		this.tiles = new int[dimension * dimension];
+		this.positions = new int[dimension * dimension];
+		for (int i = 0; i < tiles.length; i++) {
+			tiles[i] = field.getTile(i);
+			positions[tiles[i]] = i;
+		}
+	}
+
+	/**
+	 * Koostab teise muudetava välja koopia (nt. teisele lõimele).
+	 * @param other Väli, mille seis kopeeritakse.
+	 */
+	public MutableField(MutableField other) {
+		this.dimension = other.dimension;
+		this.tiles = other.tiles.clone();
+		this.positions = other.positions.clone();
+	}
+
+	@Override
+	public int getDimension() {
+		return dimension;
+	}
+
+	@Override
+	public int getTile(int index) {
+		return tiles[index];
+	}
+
+	@Override
+	public int getPosition(int tile) {
+		return positions[tile];
+	}
+
+	/**
+	 * @return Tagastab tühja ruudu indeksi.
+	 */
+	public int getEmptyIndex() {
+		return positions[0];
+	}
+
+	/**
+	 * Lükkab ruudu <code>index</code> pealt tühjale kohale. Käigu
+	 * tagasivõtmiseks tuleb ruut samamoodi tagasi lükata.<br>
+	 * Naabrust ei kontrollita.
+	 * @param index Tühjaga naabruses oleva ruudu indeks.
+	 * @return Tagastab liigutatud ruudu numbri.
+	 */
+	public int move(int index) {
+		int tile = tiles[index];
+		int emptyIndex = positions[0];
+		tiles[emptyIndex] = tile;
+		positions[tile] = emptyIndex;
+		tiles[index] = 0;
+		positions[0] = index;
+		return tile;
+	}
+}
@@ -0,0 +1,165 @@
+package solver;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Väljaspool Java kuhja hoitav fikseeritud laiusega kirjete massiiv
+ * (vt. {@link StateTable#StateTable(int, int, boolean)}).<br>
+ * Kirjed paiknevad otsepuhvrites (<i>direct</i> {@link ByteBuffer}), mis
+ * eraldatakse kuni 16 MB suuruste plaatidena vastavalt vajadusele. Kasvades
+ * lisatakse vaid uus plaat, olemasolevaid kirjeid ei kopeerita. Prügikoguja
+ * näeb vaid plaatide objekte, mitte kirjeid ega nende sisu, seega ei sõltu
+ * kogumispausid seisude arvust.<br>
+ * {@link #release()} vabastab kõik plaadid korraga. Java 17 ei võimalda
+ * otsepuhvri mälu kohe tagastada - see vabaneb koos puhvri objektiga
+ * järgmisel prügikogumisel, kuid plaate on vähe, seega on see odav.<br>
+ * Kirje number on <code>int</code>, väljad loetakse nihke järgi
+ * (platvormi baitide järjestuses, joondamata ligipääs on lubatud).
+ * Klass pole lõimekindel.
+ *
+ * @author Kristjan Kaitsa
+ * @version 1.0
+ *
+ */
+public final class NodeArena {
+	/** Plaadi suurim suurus baitides. */
+	private static final int SLAB_BYTES = 1 << 24;
+
+	/** Kirje laius baitides. */
+	private final int recordSize;
+	/** Kirjete arvu kahendlogaritm plaadis. */
+	private final int shift;
+	/** Kirje indeksi mask plaadis. */
+	private final int mask;
+	/** Plaadid (<code>null</code> pärast vabastamist). */
+	private ByteBuffer[] slabs = new ByteBuffer[0];
+
+	/**
+	 * @param recordSize Kirje laius baitides.
+	 * @param capacity Algne kirjete arv (eraldatakse kohe).
+	 */
+	public NodeArena(int recordSize, int capacity) {
+		if ((recordSize < 1) || (recordSize > SLAB_BYTES))
+			throw new IllegalArgumentException("Vigane kirje laius: " + recordSize);
+		this.recordSize = recordSize;
+		this.shift = 31 - Integer.numberOfLeadingZeros(SLAB_BYTES / recordSize);
+		this.mask = (1 << shift) - 1;
+		ensureCapacity(capacity);
+	}
+
+	/**
+	 * @return Tagastab kirjete arvu, mis mahub praegu eraldatud plaatidesse.
+	 */
+	public long capacity() {
+		return (long) slabs.length << shift;
+	}
+
+	/**
+	 * Eraldab vajadusel uusi plaate. Uued kirjed on nullitud.
+	 * @param records Kirjete arv, mis peab mahtuma.
+	 */
+	public void ensureCapacity(long records) {
+		if (records <= capacity())
+			return;
+		int count = (int) ((records + mask) >>> shift);
+		ByteBuffer[] grown = new ByteBuffer[count];
+		System.arraycopy(slabs, 0, grown, 0, slabs.length);
+		for (int i = slabs.length; i < count; i++)
+			grown[i] = ByteBuffer.allocateDirect(recordSize << shift).order(ByteOrder.nativeOrder());
+		slabs = grown;
+	}
+
+	/**
+	 * Nullib kõik kirjed (plaadid jäetakse alles).
+	 */
+	public void clear() {
+		for (ByteBuffer slab : slabs) {
+			int limit = slab.capacity();
+			int offset = 0;
+			for (; offset + 8 <= limit; offset += 8)
+				slab.putLong(offset, 0);
+			for (; offset < limit; offset++)
+				slab.put(offset, (byte) 0);
+		}
+	}
+
+	/**
+	 * Vabastab kõik plaadid. Pärast seda ei tohi kirjeid enam lugeda.
+	 */
+	public void release() {
+		slabs = new ByteBuffer[0];
+	}
+
+	/**
+	 * @param index Kirje number.
+	 * @param offset Välja nihe kirjes.
+	 * @return Tagastab 8-baidise välja.
+	 */
+	public long getLong(int index, int offset) {
+		return slabs[index >>> shift].getLong((index & mask) * recordSize + offset);
+	}
+
+	/**
+	 * @param index Kirje number.
+	 * @param offset Välja nihe kirjes.
+	 * @param value Uus väärtus.
+	 */
+	public void putLong(int index, int offset, long value) {
+		slabs[index >>> shift].putLong((index & mask) * recordSize + offset, value);
+	}
+
+	/**
+	 * @param index Kirje number.
+	 * @param offset Välja nihe kirjes.
+	 * @return Tagastab 4-baidise välja.
+	 */
+	public int getInt(int index, int offset) {
+		return slabs[index >>> shift].getInt((index & mask) * recordSize + offset);
+	}
+
+	/**
+	 * @param index Kirje number.
+	 * @param offset Välja nihe kirjes.
+	 * @param value Uus väärtus.
+	 */
+	public void putInt(int index, int offset, int value) {
+		slabs[index >>> shift].putInt((index & mask) * recordSize + offset, value);
+	}
+
+	/**
+	 * @param index Kirje number.
+	 * @param offset Välja nihe kirjes.
+	 * @return Tagastab 2-baidise välja.
+	 */
+	public short getShort(int index, int offset) {
+		return slabs[index >>> shift].getShort((index & mask) * recordSize + offset);
+	}
+
+	/**
+	 * @param index Kirje number.
+	 * @param offset Välja nihe kirjes.
+	 * @param value Uus väärtus.
+	 */
+	public void putShort(int index, int offset, short value) {
+		slabs[index >>> shift].putShort((index & mask) * recordSize + offset, value);
+	}
+
+	/**
+	 * @param index Kirje number.
+	 * @param offset Välja nihe kirjes.
+	 * @return Tagastab 1-baidise välja.
+	 */
+	public byte getByte(int index, int offset) {
+		return slabs[index >>> shift].get((index & mask) * recordSize + offset);
+	}
+
+	/**
+	 * @param index Kirje number.
+	 * @param offset Välja nihe kirjes.
+	 * @param value Uus väärtus.
+	 */
+	public void putByte(int index, int offset, byte value) {
+		slabs[index >>> shift].put((index & mask) * recordSize + offset, value);
+	}
+}
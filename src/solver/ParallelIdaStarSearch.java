@@ -0,0 +1,318 @@
+package solver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import solver.Field.Direction;
+import solver.Search.UnsolvableException;
+
+/**
+ * Mitmelõimeline IDA* otsing ühe (raske) välja lahendamiseks.<br>
+ * Iga iteratsiooni otsingupuu jagatakse juure lähedal alampuudeks
+ * (kuni sügavuseni {@link #splitDepth}), mis lahendatakse
+ * <code>ForkJoinPool</code>-i ülesannetena - vabad lõimed varastavad
+ * tööd hõivatud lõimede järjekordadest. Sügavamal otsib iga ülesanne
+ * sügavuti nagu {@link IdaStarSearch}, oma {@link MutableField}
+ * koopias.<br>
+ * Lõimed jagavad lukkudeta vaid kahte väärtust: järgmise iteratsiooni
+ * piiri (vähim piiri ületanud f(n), uuendatakse <code>AtomicInteger</code>-i
+ * CAS-iga) ning leitud lahendust. Kuna piiri sees leitud lahendus on
+ * optimaalne, lõpetavad kõik lõimed esimese lahenduse järel.<br>
+ * Heuristika peab olema lõimede vahel jagatav (kõik selle paketi
+ * heuristikad on).
+ *
+ * @author Kristjan Kaitsa
+ * @version 1.0
+ *
+ */
+public class ParallelIdaStarSearch implements Solver {
+	/** Tagastusväärtus, mis tähistab katkestatud (lahendus leiti mujal) otsingut. */
+	private static final int ABORTED = -1;
+	/** Suunad järjestuses, mille järgi käike proovitakse. */
+	private static final Direction[] DIRECTIONS = Direction.values();
+
+	/** Mänguvälja dimensioon. */
+	private final int dimension;
+	/** Algseis. */
+	private final MutableField initField;
+	/** Heuristika, millega seise hinnatakse. */
+	private final Heuristic heuristic;
+	/** Dimensiooni käikude tabel. */
+	private final MoveTable moveTable;
+	/** Lõimede arv. */
+	private final int parallelism;
+	/** Sügavus, milleni puu ülesanneteks jagatakse. */
+	private final int splitDepth;
+	/** Järgmise iteratsiooni piir: vähim piiri ületanud f(n). */
+	private final AtomicInteger nextBound = new AtomicInteger();
+	/** Leitud lahendus (<code>null</code>, kuni seda pole). */
+	private final AtomicReference<String> solution = new AtomicReference<String>();
+	/** Läbivaadatud olekute arv kõigi lõimede peale. */
+	private final LongAdder states = new LongAdder();
+	/** Genereeritud järglaste arv kõigi lõimede peale (statistika). */
+	private final LongAdder generated = new LongAdder();
+	/** Suurim otsingusügavus kõigi lõimede peale (statistika). */
+	private final LongAccumulator peakDepth = new LongAccumulator(Math::max, 0);
+	/** Käigud, mis lahenduseni jõudmiseks teha vaja.<br>
+	 *  Täidetakse pärast lõppolekusse jõudmist. */
+	private volatile String movesToSolution;
+	/** Aeg nanosekundites, mis kulus lahenduse leidmiseks. */
+	private volatile long nanos = 0;
+	/** Otsingu juhtimine (katkestamine, piirangud); jagatud kõigi lõimede vahel. */
+	private volatile SearchControl control = new SearchControl();
+
+	/**
+	 * Konstruktor uue otsingu sooritamiseks algseisu heuristikaga,
+	 * kasutades kõiki protsessoreid.
+	 * @param initField Algseis.
+	 * @throws UnsolvableException Visatakse, kui antud väli ei ole lahendatav.
+	 */
+	public ParallelIdaStarSearch(Field initField) throws UnsolvableException {
+		this(initField, initField.getHeuristic(), Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Konstruktor uue otsingu sooritamiseks valitud heuristika ja lõimede arvuga.
+	 * @param initField Algseis.
+	 * @param heuristic Lubav ja lõimede vahel jagatav heuristika.
+	 * @param parallelism Lõimede arv.
+	 * @throws UnsolvableException Visatakse, kui antud väli ei ole lahendatav.
+	 */
+	public ParallelIdaStarSearch(Field initField, Heuristic heuristic, int parallelism)
+			throws UnsolvableException {
+		if (!initField.isSolvable())
+			throw new UnsolvableException();
+		if (parallelism < 1)
+			throw new IllegalArgumentException("Lõimede arv peab olema positiivne.");
+		this.dimension = initField.getDimension();
+		this.initField = new MutableField(initField);
+		this.heuristic = heuristic;
+		this.moveTable = MoveTable.forDimension(dimension);
+		this.parallelism = parallelism;
+		// ~16 ülesannet lõime kohta, harunemistegur on umbes 2
+		this.splitDepth = 32 - Integer.numberOfLeadingZeros(parallelism * 16);
+	}
+
+	/**
+	 * Alustab mänguvälja lahendamist.<br>
+	 * Töötab kuni lahendus leitakse.
+	 * @throws SearchAbortedException Visatakse, kui otsing katkestati või
+	 * mõni piirang ületati (vt. {@link #setControl(SearchControl)}).
+	 */
+	@Override
+	public void run() {
+		long start = System.nanoTime();
+		SolveEvent event = new SolveEvent();
+		event.begin();
+		control.start();
+		ForkJoinPool pool = new ForkJoinPool(parallelism);
+		try {
+			int estimate = heuristic.estimate(initField);
+			int bound = estimate;
+			while (true) {
+				LayerEvent layer = new LayerEvent();
+				layer.begin();
+				long layerStates = states.sum();
+				nextBound.set(Integer.MAX_VALUE);
+				pool.invoke(new SubtreeTask(bound, new MutableField(initField), estimate, new char[0], MoveTable.NO_MOVE));
+				layer.report(this, bound, states.sum() - layerStates, peakDepth.get());
+				if (solution.get() != null)
+					break;
+				bound = nextBound.get();
+			}
+		} finally {
+			pool.shutdown();
+			nanos = System.nanoTime() - start;
+			SearchStatistics statistics = getStatistics();
+			event.report(this, heuristic, dimension, statistics, solution.get());
+			SearchMetrics.getInstance().record(statistics, solution.get() != null);
+		}
+		movesToSolution = solution.get();
+	}
+
+	/**
+	 * Avaldab ülesande vähima piiri ületanud f(n) väärtuse.
+	 * @param cost Ülesande vähim piiri ületanud f(n).
+	 */
+	private void publishBound(int cost) {
+		int current = nextBound.get();
+		while ((cost < current) && !nextBound.compareAndSet(current, cost))
+			current = nextBound.get();
+	}
+
+	/**
+	 * @param field Väli.
+	 * @return Tagastab tõeväärtuse, kas kõik ruudud on oma kohal.
+	 */
+	private boolean isSolved(MutableField field) {
+		for (int index = 0; index < dimension * dimension - 1; index++)
+			if (field.getTile(index) != index + 1)
+				return false;
+		return true;
+	}
+
+	/**
+	 * Alampuu otsing: kuni sügavuseni {@link ParallelIdaStarSearch#splitDepth}
+	 * jagatakse järglased uuteks ülesanneteks, sügavamal otsitakse sügavuti.
+	 */
+	private class SubtreeTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		/** Iteratsiooni piir f(n)-ile. */
+		private final int bound;
+		/** Alampuu juur (ülesande oma koopia). */
+		private final MutableField field;
+		/** Jooksev heuristiline hinnang. */
+		private int estimate;
+		/** Jooksva tee käigud; alguses juureni viiv tee. */
+		private char[] path;
+		/** Juureni viinud käigu järjekorranumber või {@link MoveTable#NO_MOVE}. */
+		private final int lastMove;
+		/** Ülesande läbivaadatud olekud (liidetakse lõpus üldisele loendurile). */
+		private long expanded = 0;
+		/** Ülesande genereeritud järglased (liidetakse lõpus üldisele loendurile). */
+		private long created = 0;
+		/** Ülesande suurim sügavus (liidetakse lõpus üldisele loendurile). */
+		private int deepest = 0;
+
+		SubtreeTask(int bound, MutableField field, int estimate, char[] path, int lastMove) {
+			this.bound = bound;
+			this.field = field;
+			this.estimate = estimate;
+			this.path = path;
+			this.lastMove = lastMove;
+		}
+
+		@Override
+		protected void compute() {
+			if (solution.get() != null)
+				return;
+			int moves = path.length;
+			int cost = moves + estimate;
+			if (cost > bound) {
+				publishBound(cost);
+				return;
+			}
+			if ((estimate == 0) && isSolved(field)) {
+				solution.compareAndSet(null, new String(path));
+				return;
+			}
+			if (moves >= splitDepth) {
+				int initLength = path.length;
+				path = Arrays.copyOf(path, Math.max(initLength * 2, 16));
+				int result;
+				try {
+					result = search(initLength, lastMove);
+				} finally {
+					states.add(expanded);
+					generated.add(created);
+					peakDepth.accumulate(deepest);
+				}
+				if (result != ABORTED)
+					publishBound(result);
+				return;
+			}
+
+			states.increment();
+			List<SubtreeTask> children = new ArrayList<SubtreeTask>(DIRECTIONS.length);
+			int emptyIndex = field.getEmptyIndex();
+			int list = moveTable.moves(emptyIndex, lastMove);
+			for (int i = 0; i < MoveTable.count(list); i++) {
+				int move = MoveTable.move(list, i);
+				int destIndex = moveTable.destination(emptyIndex, move);
+				MutableField child = new MutableField(field);
+				int tile = child.move(destIndex);
+				int childEstimate = heuristic.update(child, estimate, tile, destIndex, emptyIndex);
+				char[] childPath = Arrays.copyOf(path, moves + 1);
+				childPath[moves] = DIRECTIONS[move].getSymbol();
+				children.add(new SubtreeTask(bound, child, childEstimate, childPath, move));
+			}
+			generated.add(children.size());
+			invokeAll(children);
+		}
+
+		/**
+		 * Sügavuti otsing jooksvast seisust kuni piirini (vt.
+		 * {@link IdaStarSearch}). Leitud lahendus avaldatakse kohe.
+		 * @param moves Jooksva seisuni tehtud käikude arv ehk g(n).
+		 * @param lastMove Eelmise käigu suuna järjekorranumber.
+		 * @return Tagastab vähima piiri ületanud f(n) või {@link #ABORTED},
+		 * kui lahendus on leitud (siin või mõnes teises lõimes).
+		 */
+		private int search(int moves, int lastMove) {
+			int cost = moves + estimate;
+			if (cost > bound)
+				return cost;
+			if ((estimate == 0) && isSolved(field)) {
+				solution.compareAndSet(null, new String(path, 0, moves));
+				return ABORTED;
+			}
+			if (solution.get() != null)
+				return ABORTED;
+
+			this.expanded++;
+			if ((expanded & (SearchControl.CHECK_INTERVAL - 1)) == 0)
+				control.check(states.sum() + expanded, moves, bound);
+			if (moves > deepest)
+				deepest = moves;
+			if (moves == path.length)
+				path = Arrays.copyOf(path, path.length * 2);
+
+			int min = Integer.MAX_VALUE;
+			int emptyIndex = field.getEmptyIndex();
+			int list = moveTable.moves(emptyIndex, lastMove);
+			for (int i = 0; i < MoveTable.count(list); i++) {
+				int move = MoveTable.move(list, i);
+				int destIndex = moveTable.destination(emptyIndex, move);
+
+				this.created++;
+				int parentEstimate = estimate;
+				int tile = field.move(destIndex);
+				estimate = heuristic.update(field, estimate, tile, destIndex, emptyIndex);
+				path[moves] = DIRECTIONS[move].getSymbol();
+				int result = search(moves + 1, move);
+				field.move(emptyIndex);
+				estimate = parentEstimate;
+
+				if (result == ABORTED)
+					return ABORTED;
+				if (result < min)
+					min = result;
+			}
+			return min;
+		}
+	}
+
+	@Override
+	public String getMovesToSolution() {
+		return movesToSolution;
+	}
+
+	@Override
+	public long getTime() {
+		return TimeUnit.NANOSECONDS.toMillis(nanos);
+	}
+
+	@Override
+	public long getStates() {
+		return states.sum();
+	}
+
+	@Override
+	public SearchStatistics getStatistics() {
+		return new SearchStatistics(states.sum(), generated.sum(), 0, 0, peakDepth.get(), nanos);
+	}
+
+	@Override
+	public void setControl(SearchControl control) {
+		this.control = control;
+	}
+}
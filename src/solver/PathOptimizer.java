@@ -0,0 +1,502 @@
+package solver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import solver.Field.Direction;
+import solver.Field.IllegalMoveException;
+
+/**
+ * Mitteoptimaalse lahenduse (nt. kaalutud {@link Search}-i või
+ * {@link ReductionSolver}-i) järeltöötlus: lühendab käikude sõnet, mille
+ * algus- ja lõppseis jäävad samaks.<br>
+ * Esmalt mängitakse tee läbi ning iga seis pakitakse bittideks (nagu
+ * {@link Field}-is, kuid suvalise dimensiooni jaoks). Kui seis kordub,
+ * eemaldatakse vahepealne silmus. Seejärel jagatakse tee kuni
+ * {@link #DEFAULT_WINDOW} käigu pikkusteks akendeks ning iga akna algus- ja
+ * lõppseisu vahel otsitakse lühim tee IDA*-ga (Manhattani kaugus
+ * akna lõppseisust). Otsing on piiratud: leitud tee peab olema aknast
+ * lühem ning ühe akna otsing lõpetatakse {@link #DEFAULT_NODE_LIMIT}
+ * seisu järel. Aknad ei kattu, seega lahendatakse need soovi korral
+ * paralleelselt ({@link #setParallelism(int)}). Iga ring teeb seda kahe
+ * nihkega (aknad algavad 0-st ja poolest aknast) ning ringe korratakse,
+ * kuni tee enam ei lühene.<br>
+ * Tulemus ei ole üldjuhul optimaalne, kuid pole kunagi algsest pikem.
+ * Klassi saab kasutada ka eraldi, salvestatud lahenduste peal (vt.
+ * <code>ui.PathShortener</code>).
+ *
+ * @author Kristjan Kaitsa
+ * @version 1.0
+ *
+ */
+public class PathOptimizer {
+	/** Akna pikkus vaikimisi (käikudes). */
+	public static final int DEFAULT_WINDOW = 24;
+	/** Ühe akna otsingu seisude piir vaikimisi. */
+	public static final long DEFAULT_NODE_LIMIT = 200000;
+
+	/** Tühja ruudu rea muutus suuna järjekorranumbri järgi. */
+	private static final int[] ROW_STEP = { -1, 0, 1, 0 };
+	/** Tühja ruudu veeru muutus suuna järjekorranumbri järgi. */
+	private static final int[] COLUMN_STEP = { 0, 1, 0, -1 };
+	/** Suunad järjekorranumbri järgi. */
+	private static final Direction[] DIRECTIONS = Direction.values();
+
+	/** Mänguvälja dimensioon. */
+	private final int dimension;
+	/** Algseisu ruudud indeksi järgi. */
+	private final int[] initTiles;
+	/** Bittide arv ühe ruudu kohta pakitud seisus. */
+	private final int bits;
+	/** Ruutude arv ühes pakitud seisu sõnas. */
+	private final int perWord;
+	/** Akna pikkus käikudes. */
+	private int window = DEFAULT_WINDOW;
+	/** Ühe akna otsingu seisude piir. */
+	private long nodeLimit = DEFAULT_NODE_LIMIT;
+	/** Akende lahendamise lõimede arv. */
+	private int parallelism = 1;
+	/** Otsingu juhtimine (katkestamine, tähtaeg). */
+	private SearchControl control = new SearchControl();
+	/** Akende otsingutes läbivaadatud seisude arv. */
+	private final AtomicLong states = new AtomicLong();
+
+	/**
+	 * @param values Tee algseisu numbrid (tühja ruudu puhul 0).
+	 * @throws IllegalArgumentException Visatakse vigase välja korral.
+	 */
+	public PathOptimizer(int[][] values) {
+		int n = values.length;
+		if ((n < 2) || (n > ReductionSolver.MAX_DIMENSION))
+			throw new IllegalArgumentException("Sobimatu dimensioon: " + n);
+		this.dimension = n;
+		this.initTiles = new int[n * n];
+		boolean[] used = new boolean[n * n];
+		for (int y = 0; y < n; y++) {
+			if (values[y].length != n)
+				throw new IllegalArgumentException("Väli peab olema ruudukujuline.");
+			for (int x = 0; x < n; x++) {
+				int tile = values[y][x];
+				if ((tile < 0) || (tile >= n * n) || used[tile])
+					throw new IllegalArgumentException("Illegaalne või korduv number: " + tile);
+				used[tile] = true;
+				initTiles[y * n + x] = tile;
+			}
+		}
+		this.bits = 32 - Integer.numberOfLeadingZeros(n * n - 1);
+		this.perWord = Long.SIZE / bits;
+	}
+
+	/**
+	 * @param field Tee algseis.
+	 */
+	public PathOptimizer(Field field) {
+		this(field.getValues());
+	}
+
+	/**
+	 * Lühendab teed.
+	 * @param moves Käigud algseisust (vt. {@link Field#backtrack()}).
+	 * @return Tagastab sama lõppseisuni viivad käigud, mida pole rohkem kui
+	 * algselt. Kui juhtimine katkestab töö (nt. tähtaeg), tagastatakse
+	 * seni lühim tee.
+	 * @throws IllegalMoveException Visatakse, kui mõni käik viiks tühja
+	 * ruudu väljalt välja.
+	 * @throws IllegalArgumentException Visatakse tundmatu käigu tähise korral.
+	 */
+	public String optimize(String moves) throws IllegalMoveException {
+		byte[] path = decode(moves);
+		try {
+			int length;
+			do {
+				length = path.length;
+				path = removeLoops(path);
+				path = shortenWindows(path, 0);
+				path = shortenWindows(path, window / 2);
+			} while (path.length < length);
+		} catch (SearchAbortedException e) {
+			// tähtaeg: parim seni leitud tee
+		}
+		return encode(path);
+	}
+
+	/**
+	 * Teisendab käikude tähised suundade järjekorranumbriteks ning kontrollib,
+	 * et tee püsib väljal.
+	 * @param moves Käigud.
+	 * @return Tagastab suundade järjekorranumbrid.
+	 * @throws IllegalMoveException Visatakse, kui käik viiks väljalt välja.
+	 */
+	private byte[] decode(String moves) throws IllegalMoveException {
+		byte[] path = new byte[moves.length()];
+		int empty = emptyIndex(initTiles);
+		for (int i = 0; i < path.length; i++) {
+			int move = direction(moves.charAt(i));
+			int y = empty / dimension + ROW_STEP[move];
+			int x = empty % dimension + COLUMN_STEP[move];
+			if ((y < 0) || (y >= dimension) || (x < 0) || (x >= dimension))
+				throw new IllegalMoveException();
+			empty = y * dimension + x;
+			path[i] = (byte) move;
+		}
+		return path;
+	}
+
+	/**
+	 * @param symbol Käigu tähis (Ü asemel võib olla ka Y).
+	 * @return Tagastab suuna järjekorranumbri.
+	 * @throws IllegalArgumentException Visatakse tundmatu tähise korral.
+	 */
+	private static int direction(char symbol) {
+		if (symbol == 'Y')
+			return Direction.NORTH.ordinal();
+		for (Direction direction : DIRECTIONS)
+			if (direction.getSymbol() == symbol)
+				return direction.ordinal();
+		throw new IllegalArgumentException("Tundmatu käik: " + symbol);
+	}
+
+	/**
+	 * @param path Suundade järjekorranumbrid.
+	 * @return Tagastab käikude sõne.
+	 */
+	private static String encode(byte[] path) {
+		char[] moves = new char[path.length];
+		for (int i = 0; i < path.length; i++)
+			moves[i] = DIRECTIONS[path[i]].getSymbol();
+		return new String(moves);
+	}
+
+	/**
+	 * Eemaldab silmused: kui seis kordub, jäetakse vahepealsed käigud välja.
+	 * @param path Tee.
+	 * @return Tagastab silmusteta tee.
+	 */
+	private byte[] removeLoops(byte[] path) {
+		int[] tiles = initTiles.clone();
+		int empty = emptyIndex(tiles);
+		long[] words = new long[(tiles.length + perWord - 1) / perWord];
+		for (int index = 0; index < tiles.length; index++)
+			set(words, index, tiles[index]);
+		State[] visited = new State[path.length + 1];
+		Map<State, Integer> seen = new HashMap<State, Integer>();
+		visited[0] = new State(words.clone());
+		seen.put(visited[0], 0);
+		byte[] result = new byte[path.length];
+		int length = 0;
+		for (byte move : path) {
+			int destination = empty + ROW_STEP[move] * dimension + COLUMN_STEP[move];
+			set(words, empty, tiles[destination]);
+			set(words, destination, 0);
+			tiles[empty] = tiles[destination];
+			tiles[destination] = 0;
+			empty = destination;
+			State state = new State(words.clone());
+			Integer earlier = seen.get(state);
+			if (earlier != null) {
+				for (int i = earlier + 1; i <= length; i++)
+					seen.remove(visited[i]);
+				length = earlier;
+			} else {
+				result[length++] = move;
+				visited[length] = state;
+				seen.put(state, length);
+			}
+		}
+		return Arrays.copyOf(result, length);
+	}
+
+	/**
+	 * Kirjutab ruudu numbri pakitud seisu.
+	 * @param words Pakitud seis.
+	 * @param index Ruudu indeks.
+	 * @param tile Ruudu number.
+	 */
+	private void set(long[] words, int index, int tile) {
+		int word = index / perWord;
+		int shift = (index % perWord) * bits;
+		words[word] = (words[word] & ~(((1L << bits) - 1) << shift)) | ((long) tile << shift);
+	}
+
+	/**
+	 * Lühendab mittekattuvaid aknaid.
+	 * @param path Tee.
+	 * @param offset Esimese akna algus.
+	 * @return Tagastab tee, kus lühema leiduga aknad on asendatud.
+	 */
+	private byte[] shortenWindows(byte[] path, int offset) {
+		List<Window> windows = new ArrayList<Window>();
+		int[] tiles = initTiles.clone();
+		int empty = emptyIndex(tiles);
+		Window current = null;
+		for (int i = 0; i <= path.length; i++) {
+			if ((i >= offset) && ((i - offset) % window == 0)) {
+				if (current != null)
+					current.end(tiles, i);
+				current = (path.length - i >= 2) ? new Window(tiles, i) : null;
+				if (current != null)
+					windows.add(current);
+			}
+			if (i == path.length)
+				break;
+			int destination = empty + ROW_STEP[path[i]] * dimension + COLUMN_STEP[path[i]];
+			tiles[empty] = tiles[destination];
+			tiles[destination] = 0;
+			empty = destination;
+		}
+		if (current != null)
+			current.end(tiles, path.length);
+		solve(windows);
+
+		byte[] result = new byte[path.length];
+		int length = 0;
+		int from = 0;
+		for (Window part : windows) {
+			if (part.replacement == null)
+				continue;
+			System.arraycopy(path, from, result, length, part.start - from);
+			length += part.start - from;
+			System.arraycopy(part.replacement, 0, result, length, part.replacement.length);
+			length += part.replacement.length;
+			from = part.end;
+		}
+		System.arraycopy(path, from, result, length, path.length - from);
+		length += path.length - from;
+		return Arrays.copyOf(result, length);
+	}
+
+	/**
+	 * Lahendab aknad (paralleelselt, kui lõimi on rohkem kui üks).
+	 * @param windows Aknad.
+	 */
+	private void solve(List<Window> windows) {
+		if ((parallelism == 1) || (windows.size() < 2)) {
+			for (Window part : windows)
+				part.call();
+			return;
+		}
+		ForkJoinPool pool = new ForkJoinPool(parallelism);
+		try {
+			for (Future<Window> result : pool.invokeAll(windows))
+				result.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SearchAbortedException(SearchAbortedException.Reason.CANCELLED, states.get());
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException)
+				throw (RuntimeException) e.getCause();
+			throw new IllegalStateException(e.getCause());
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * @param tiles Ruudud indeksi järgi.
+	 * @return Tagastab tühja ruudu indeksi.
+	 */
+	private static int emptyIndex(int[] tiles) {
+		for (int index = 0; index < tiles.length; index++)
+			if (tiles[index] == 0)
+				return index;
+		throw new IllegalStateException("Tühja ruutu pole.");
+	}
+
+	/**
+	 * @param window Akna pikkus käikudes (vähemalt 2).
+	 */
+	public void setWindow(int window) {
+		if (window < 2)
+			throw new IllegalArgumentException("Akna pikkus peab olema vähemalt 2.");
+		this.window = window;
+	}
+
+	/**
+	 * @param nodeLimit Ühe akna otsingu seisude piir.
+	 */
+	public void setNodeLimit(long nodeLimit) {
+		this.nodeLimit = nodeLimit;
+	}
+
+	/**
+	 * @param parallelism Akende lahendamise lõimede arv (vaikimisi 1).
+	 */
+	public void setParallelism(int parallelism) {
+		if (parallelism < 1)
+			throw new IllegalArgumentException("Lõimede arv peab olema positiivne.");
+		this.parallelism = parallelism;
+	}
+
+	/**
+	 * Määrab juhtimise: katkestamisel või tähtaja saabumisel lõpetab
+	 * {@link #optimize(String)} seni lühima teega. Tähtaega arvestatakse
+	 * viimasest {@link SearchControl#start()}-ist, nt. lahenduse leidnud
+	 * otsingu algusest.
+	 * @param control Juhtimine.
+	 */
+	public void setControl(SearchControl control) {
+		this.control = control;
+	}
+
+	/**
+	 * @return Tagastab akende otsingutes läbivaadatud seisude arvu.
+	 */
+	public long getStates() {
+		return states.get();
+	}
+
+	/**
+	 * Pakitud seis paisktabeli võtmena.
+	 */
+	private static final class State {
+		/** Ruudud bittidena. */
+		final long[] words;
+		/** Paiskväärtus. */
+		final int hash;
+
+		State(long[] words) {
+			this.words = words;
+			this.hash = Arrays.hashCode(words);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			return (other instanceof State) && Arrays.equals(words, ((State) other).words);
+		}
+	}
+
+	/**
+	 * Tee aken: lühim tee akna algusseisust lõppseisu IDA*-ga, Manhattani
+	 * kaugusega lõppseisust. Iga aken kasutab oma massiive.
+	 */
+	private final class Window implements Callable<Window> {
+		/** Akna alguse indeks tees. */
+		final int start;
+		/** Akna lõpu indeks tees (välja arvatud). */
+		int end;
+		/** Akna algusseisu ruudud (otsingu ajal muudetakse). */
+		final int[] tiles;
+		/** Ruutude asukohad akna lõppseisus. */
+		final int[] goals;
+		/** Jooksva tee käigud. */
+		byte[] moves;
+		/** Lühem tee või <code>null</code>, kui seda ei leitud. */
+		byte[] replacement;
+		/** Läbivaadatud seisude arv. */
+		long nodes;
+		/** Järgmise iteratsiooni piir. */
+		int nextBound;
+
+		Window(int[] tiles, int start) {
+			this.start = start;
+			this.tiles = tiles.clone();
+			this.goals = new int[tiles.length];
+		}
+
+		/**
+		 * Märgib akna lõpu.
+		 * @param tiles Akna lõppseisu ruudud.
+		 * @param end Akna lõpu indeks tees.
+		 */
+		void end(int[] tiles, int end) {
+			this.end = end;
+			for (int index = 0; index < tiles.length; index++)
+				goals[tiles[index]] = index;
+		}
+
+		@Override
+		public Window call() {
+			control.check(states.get(), 0, end - start);
+			int empty = emptyIndex(tiles);
+			int estimate = 0;
+			for (int index = 0; index < tiles.length; index++)
+				if (tiles[index] != 0)
+					estimate += distance(index, goals[tiles[index]]);
+			moves = new byte[end - start];
+			int bound = estimate;
+			try {
+				while (bound < end - start) {
+					nextBound = Integer.MAX_VALUE;
+					int length = search(empty, estimate, 0, bound, MoveTable.NO_MOVE);
+					if (length >= 0) {
+						replacement = Arrays.copyOf(moves, length);
+						break;
+					}
+					if (nodes > nodeLimit)
+						break;
+					bound = nextBound;
+				}
+			} finally {
+				states.addAndGet(nodes);
+			}
+			return this;
+		}
+
+		/**
+		 * Sügavuti otsing piiriga.
+		 * @param empty Tühja ruudu indeks.
+		 * @param estimate Manhattani kaugus lõppseisust.
+		 * @param cost Tehtud käikude arv.
+		 * @param bound Piir f(n)-ile.
+		 * @param last Viimane käik.
+		 * @return Tagastab leitud tee pikkuse või -1.
+		 */
+		private int search(int empty, int estimate, int cost, int bound, int last) {
+			if (cost + estimate > bound) {
+				nextBound = Math.min(nextBound, cost + estimate);
+				return -1;
+			}
+			if ((estimate == 0) && (empty == goals[0]))
+				return cost;
+			if (++nodes > nodeLimit)
+				return -1;
+			int y = empty / dimension;
+			int x = empty % dimension;
+			for (int move = 0; move < DIRECTIONS.length; move++) {
+				if ((last >= 0) && (move == (last + 2) % 4))
+					continue;
+				int nextY = y + ROW_STEP[move];
+				int nextX = x + COLUMN_STEP[move];
+				if ((nextY < 0) || (nextY >= dimension) || (nextX < 0) || (nextX >= dimension))
+					continue;
+				int destination = nextY * dimension + nextX;
+				int tile = tiles[destination];
+				int goal = goals[tile];
+				int change = distance(empty, goal) - distance(destination, goal);
+				tiles[empty] = tile;
+				tiles[destination] = 0;
+				moves[cost] = (byte) move;
+				int length = search(destination, estimate + change, cost + 1, bound, move);
+				tiles[destination] = tile;
+				tiles[empty] = 0;
+				if (length >= 0)
+					return length;
+				if (nodes > nodeLimit)
+					return -1;
+			}
+			return -1;
+		}
+
+		/**
+		 * @param from Ruudu indeks.
+		 * @param to Teise ruudu indeks.
+		 * @return Tagastab ruutude Manhattani kauguse.
+		 */
+		private int distance(int from, int to) {
+			return Math.abs(from / dimension - to / dimension) + Math.abs(from % dimension - to % dimension);
+		}
+	}
+}
@@ -0,0 +1,388 @@
+package solver;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Arrays;
+
+/**
+ * Ühe mustri (ruutude alamhulga) andmebaas: iga mustri ruutude paigutuse
+ * kohta vähim käikude arv, mis on vaja <b>mustri ruutudega</b> teha, et
+ * need oma kohale saada. Teiste ruutude liigutused on tasuta, seega
+ * saab ühe partitsiooni erinevate mustrite väärtused kokku liita
+ * (vt. {@link AdditivePatternDatabase}).<br>
+ * Koostatakse tagurpidi laiuti otsinguga lõppseisust. Paigutus
+ * indekseeritakse kompaktselt ehk mustri ruutude asukohtade
+ * osapermutatsiooni järjekorranumbriga, seega tabelis ei ole auke:
+ * <code>n! / (n - k)!</code> baiti <code>k</code> ruuduga mustri kohta.
+ *
+ * <p>Failivorming: 4 baiti {@link #MAGIC}, 1 bait dimensioon, 1 bait
+ * mustri suurus, mustri ruutude numbrid (1 bait igaüks) ning seejärel
+ * kaugused (1 bait igaüks). Fail loetakse mällu kaardistatuna
+ * ({@link FileChannel#map}), seega käivitus on kiire ning mitu samas
+ * masinas töötavat JVM-i jagavad sama lehekülgede puhvrit.</p>
+ *
+ * @author Kristjan Kaitsa
+ * @version 1.0
+ *
+ */
+public class PatternDatabase {
+	/** Faili algust tähistav "maagiline" arv ("PDB1"). */
+	public static final int MAGIC = 0x50444231;
+	/** Märgend tabelis kauguse jaoks, mida (veel) ei tea. */
+	private static final int UNKNOWN = 0xFF;
+
+	/** Mänguvälja dimensioon. */
+	private final int dimension;
+	/** Mustrisse kuuluvate ruutude numbrid. */
+	private final int[] tiles;
+	/** Kaugused paigutuse järjekorranumbri järgi. */
+	private final ByteBuffer table;
+
+	/**
+	 * @param dimension Mänguvälja dimensioon.
+	 * @param tiles Mustrisse kuuluvate ruutude numbrid.
+	 * @param table Kaugused paigutuse järjekorranumbri järgi.
+	 */
+	private PatternDatabase(int dimension, int[] tiles, ByteBuffer table) {
+		this.dimension = dimension;
+		this.tiles = tiles;
+		this.table = table;
+	}
+
+	/**
+	 * @return Tagastab mänguvälja dimensiooni.
+	 */
+	public int getDimension() {
+		return dimension;
+	}
+
+	/**
+	 * @return Tagastab mustrisse kuuluvate ruutude numbrid.
+	 */
+	public int[] getTiles() {
+		return tiles.clone();
+	}
+
+	/**
+	 * Leiab mustri ruutude paigutusele vastava kauguse.
+	 * @param board Seis, mille mustri ruutude paigutust vaadatakse.
+	 * @return Tagastab vähima mustri ruutudega tehtavate käikude arvu.
+	 */
+	public int getDistance(Board board) {
+		return getDistance(board, 0, 0);
+	}
+
+	/**
+	 * Leiab kauguse seisule, kus üks ruut asub mujal kui <code>board</code>'is
+	 * (nt. käigueelne seis).
+	 * @param board Seis, mille mustri ruutude paigutust vaadatakse.
+	 * @param tile Ruudu number, mille asukoht asendada.
+	 * @param position Ruudu asukoht, mida <code>board</code>'i asemel kasutada.
+	 * @return Tagastab vähima mustri ruutudega tehtavate käikude arvu.
+	 */
+	public int getDistance(Board board, int tile, int position) {
+		int size = dimension * dimension;
+		int rank = 0;
+		long used = 0;
+		for (int i = 0; i < tiles.length; i++) {
+			int current = (tiles[i] == tile) ? position : board.getPosition(tiles[i]);
+			int digit = current - Long.bitCount(used & ((1L << current) - 1));
+			used |= 1L << current;
+			rank = rank * (size - i) + digit;
+		}
+		return table.get(rank) & 0xFF;
+	}
+
+	/**
+	 * Kirjutab andmebaasi faili. Kirjutatakse samas kataloogis unikaalse
+	 * nimega ajutisse faili ning see nimetatakse ümber, et teised protsessid
+	 * poolikut faili ei näeks ega kaks sama andmebaasi koostavat protsessi
+	 * teineteise ajutist faili üle ei kirjutaks.
+	 * @param file Fail, kuhu kirjutada.
+	 * @throws IOException Visatakse, kui kirjutamine ebaõnnestub.
+	 */
+	public void save(File file) throws IOException {
+		Path temp = Files.createTempFile(file.getAbsoluteFile().getParentFile().toPath(), file.getName(), ".tmp");
+		boolean moved = false;
+		try {
+			write(temp);
+			// ajutine fail luuakse vaid omanikule loetavana
+			PosixFileAttributeView view = Files.getFileAttributeView(temp, PosixFileAttributeView.class);
+			if (view != null)
+				view.setPermissions(PosixFilePermissions.fromString("rw-r--r--"));
+			Files.move(temp, file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			moved = true;
+		} finally {
+			if (!moved)
+				Files.deleteIfExists(temp);
+		}
+	}
+
+	/**
+	 * Kirjutab päise ja kaugused faili.
+	 * @param path Fail, kuhu kirjutada.
+	 * @throws IOException Visatakse, kui kirjutamine ebaõnnestub.
+	 */
+	private void write(Path path) throws IOException {
+		FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+		try {
+			ByteBuffer header = ByteBuffer.allocate(6 + tiles.length);
+			header.putInt(MAGIC).put((byte) dimension).put((byte) tiles.length);
+			for (int tile : tiles)
+				header.put((byte) tile);
+			header.flip();
+			while (header.hasRemaining())
+				channel.write(header);
+			ByteBuffer data = table.duplicate();
+			data.clear();
+			while (data.hasRemaining())
+				channel.write(data);
+			channel.force(false);
+		} finally {
+			channel.close();
+		}
+	}
+
+	/**
+	 * Loeb andmebaasi failist, kaardistades selle mällu.
+	 * @param file Fail, kust lugeda.
+	 * @return Tagastab loetud andmebaasi.
+	 * @throws IOException Visatakse, kui faili ei saa lugeda või see on vigane.
+	 */
+	public static PatternDatabase load(File file) throws IOException {
+		FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+		try {
+			ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+					Math.min(channel.size(), 6 + 64));
+			if ((header.remaining() < 6) || (header.getInt() != MAGIC))
+				throw new IOException("Vigane mustriandmebaasi fail: " + file);
+			int dimension = header.get();
+			int[] tiles = new int[header.get()];
+			for (int i = 0; i < tiles.length; i++)
+				tiles[i] = header.get();
+			long offset = 6 + tiles.length;
+			long size = tableSize(dimension, tiles.length);
+			if (channel.size() != offset + size)
+				throw new IOException("Vigane mustriandmebaasi faili pikkus: " + file);
+			ByteBuffer table = channel.map(FileChannel.MapMode.READ_ONLY, offset, size);
+			return new PatternDatabase(dimension, tiles, table);
+		} finally {
+			channel.close();
+		}
+	}
+
+	/**
+	 * Koostab andmebaasi tagurpidi laiuti otsinguga lõppseisust.<br>
+	 * Kuna teiste ruutude liigutused on tasuta, on otsingu olekuks mustri
+	 * ruutude paigutus koos tühja ruudu <b>piirkonnaga</b> (mustri
+	 * ruutudest vabade ruutude sidus komponent, mida tähistab selle vähim
+	 * indeks): piirkonna sees saab tühi ruut tasuta liikuda. Iga kaar
+	 * vastab seega ühele mustri ruudu käigule ning otsing on tavaline
+	 * laiuti otsing.
+	 * @param dimension Mänguvälja dimensioon.
+	 * @param tiles Mustrisse kuuluvate ruutude numbrid.
+	 * @return Tagastab koostatud andmebaasi.
+	 */
+	public static PatternDatabase build(int dimension, int[] tiles) {
+		int size = dimension * dimension;
+		long tableSize = tableSize(dimension, tiles.length);
+		if (tableSize > Integer.MAX_VALUE)
+			throw new IllegalArgumentException("Muster on liiga suur.");
+		byte[] distances = new byte[(int) tableSize];
+		Arrays.fill(distances, (byte) UNKNOWN);
+		long[] visited = new long[(int) ((tableSize * size + 63) / 64)];
+
+		int[] positions = new int[tiles.length];
+		for (int i = 0; i < tiles.length; i++)
+			positions[i] = tiles[i] - 1;
+		long goalOccupied = occupiedMask(positions);
+		long goal = rank(positions, size) * size
+				+ Long.numberOfTrailingZeros(region(dimension, goalOccupied, size - 1));
+
+		LongList current = new LongList();
+		LongList next = new LongList();
+		current.add(goal);
+		setBit(visited, goal);
+		int[] moved = new int[tiles.length];
+		for (int distance = 0; current.size() > 0; distance++) {
+			for (int s = 0; s < current.size(); s++) {
+				long state = current.get(s);
+				int rank = (int) (state / size);
+				int representative = (int) (state % size);
+				if ((distances[rank] & 0xFF) == UNKNOWN)
+					distances[rank] = (byte) distance;
+
+				unrank(rank, size, positions);
+				long occupied = occupiedMask(positions);
+				long blank = region(dimension, occupied, representative);
+				for (int i = 0; i < positions.length; i++) {
+					int from = positions[i];
+					long targets = neighbours(dimension, 1L << from) & blank;
+					while (targets != 0) {
+						int to = Long.numberOfTrailingZeros(targets);
+						targets &= targets - 1;
+						System.arraycopy(positions, 0, moved, 0, positions.length);
+						moved[i] = to;
+						long movedOccupied = occupied & ~(1L << from) | (1L << to);
+						long child = rank(moved, size) * size
+								+ Long.numberOfTrailingZeros(region(dimension, movedOccupied, from));
+						if (!getBit(visited, child)) {
+							setBit(visited, child);
+							next.add(child);
+						}
+					}
+				}
+			}
+			LongList swap = current;
+			current = next;
+			next = swap;
+			next.clear();
+		}
+		return new PatternDatabase(dimension, tiles.clone(), ByteBuffer.wrap(distances));
+	}
+
+	/**
+	 * @param dimension Mänguvälja dimensioon.
+	 * @param patternSize Mustri ruutude arv.
+	 * @return Tagastab tabeli suuruse ehk <code>n! / (n - k)!</code>.
+	 */
+	private static long tableSize(int dimension, int patternSize) {
+		int size = dimension * dimension;
+		long result = 1;
+		for (int i = 0; i < patternSize; i++)
+			result *= size - i;
+		return result;
+	}
+
+	/**
+	 * Leiab mustri ruutude asukohtade osapermutatsiooni järjekorranumbri.
+	 * @param positions Mustri ruutude asukohad mustri järjekorras.
+	 * @param size Ruutude arv mänguväljal.
+	 * @return Tagastab järjekorranumbri.
+	 */
+	private static long rank(int[] positions, int size) {
+		long rank = 0;
+		for (int i = 0; i < positions.length; i++) {
+			int digit = positions[i];
+			for (int j = 0; j < i; j++)
+				if (positions[j] < positions[i]) digit--;
+			rank = rank * (size - i) + digit;
+		}
+		return rank;
+	}
+
+	/**
+	 * Pöördoperatsioon {@link #rank(int[], int)}-ile.
+	 * @param rank Järjekorranumber.
+	 * @param size Ruutude arv mänguväljal.
+	 * @param positions Massiiv, kuhu asukohad kirjutatakse.
+	 */
+	private static void unrank(long rank, int size, int[] positions) {
+		for (int i = positions.length - 1; i >= 0; i--) {
+			positions[i] = (int) (rank % (size - i));
+			rank /= size - i;
+		}
+		long used = 0;
+		for (int i = 0; i < positions.length; i++) {
+			int digit = positions[i];
+			int position = 0;
+			while (true) {
+				if ((used & (1L << position)) == 0) {
+					if (digit == 0) break;
+					digit--;
+				}
+				position++;
+			}
+			positions[i] = position;
+			used |= 1L << position;
+		}
+	}
+
+	/**
+	 * @param positions Mustri ruutude asukohad.
+	 * @return Tagastab bitimaski ruutudest, kus asuvad mustri ruudud.
+	 */
+	private static long occupiedMask(int[] positions) {
+		long mask = 0;
+		for (int position : positions)
+			mask |= 1L << position;
+		return mask;
+	}
+
+	/**
+	 * Leiab ruutude bitimaski kõigi ruutude naabritest.
+	 * @param dimension Mänguvälja dimensioon.
+	 * @param mask Ruutude bitimask.
+	 * @return Tagastab naabrite bitimaski.
+	 */
+	private static long neighbours(int dimension, long mask) {
+		long board = (dimension * dimension == 64) ? -1L : (1L << (dimension * dimension)) - 1;
+		long firstColumn = 0;
+		for (int y = 0; y < dimension; y++)
+			firstColumn |= 1L << (y * dimension);
+		long lastColumn = firstColumn << (dimension - 1);
+		return (((mask & ~lastColumn) << 1) | ((mask & ~firstColumn) >>> 1)
+				| (mask << dimension) | (mask >>> dimension)) & board;
+	}
+
+	/**
+	 * Leiab sidusa piirkonna mustri ruutudest vabadest ruutudest, kuhu
+	 * tühi ruut saab ruudult <code>start</code> tasuta liikuda.
+	 * @param dimension Mänguvälja dimensioon.
+	 * @param occupied Mustri ruutude bitimask.
+	 * @param start Tühja ruudu asukoht.
+	 * @return Tagastab piirkonna bitimaski.
+	 */
+	private static long region(int dimension, long occupied, int start) {
+		long region = 1L << start;
+		while (true) {
+			long grown = (region | neighbours(dimension, region)) & ~occupied;
+			if (grown == region)
+				return region;
+			region = grown;
+		}
+	}
+
+	private static boolean getBit(long[] bits, long index) {
+		return (bits[(int) (index >>> 6)] & (1L << index)) != 0;
+	}
+
+	private static void setBit(long[] bits, long index) {
+		bits[(int) (index >>> 6)] |= 1L << index;
+	}
+
+	/**
+	 * Lihtne kasvav <code>long</code>-ide massiiv laiuti otsingu
+	 * kihtide hoidmiseks, et vältida <code>Long</code> objekte.
+	 */
+	private static class LongList {
+		private long[] values = new long[1024];
+		private int size = 0;
+
+		void add(long value) {
+			if (size == values.length)
+				values = Arrays.copyOf(values, values.length * 2);
+			values[size++] = value;
+		}
+
+		long get(int index) {
+			return values[index];
+		}
+
+		int size() {
+			return size;
+		}
+
+		void clear() {
+			size = 0;
+		}
+	}
+}
@@ -0,0 +1,67 @@
+package solver;
+
+/**
+ * Otsingu edenemise hetkeseis, mille {@link SearchControl} edastab
+ * kuulajale (vt. {@link SearchControl#setProgressListener}).
+ *
+ * @author Kristjan Kaitsa
+ * @version 1.0
+ *
+ */
+public class Progress {
+	/** Seni läbivaadatud olekute arv. */
+	private final long states;
+	/** Avatud nimekirja suurus (IDA* puhul jooksva tee pikkus). */
+	private final long frontier;
+	/** Suurim seni laiendatud f(n) (IDA* puhul jooksva iteratsiooni piir). */
+	private final double bound;
+	/** Otsingu algusest möödunud aeg millisekundites. */
+	private final long time;
+
+	/**
+	 * @param states Seni läbivaadatud olekute arv.
+	 * @param frontier Avatud nimekirja suurus.
+	 * @param bound Suurim seni laiendatud f(n).
+	 * @param time Otsingu algusest möödunud aeg millisekundites.
+	 */
+	public Progress(long states, long frontier, double bound, long time) {
+		this.states = states;
+		this.frontier = frontier;
+		this.bound = bound;
+		this.time = time;
+	}
+
+	/**
+	 * @return Tagastab seni läbivaadatud olekute arvu.
+	 */
+	public long getStates() {
+		return states;
+	}
+
+	/**
+	 * @return Tagastab avatud nimekirja suuruse (IDA* puhul jooksva tee pikkuse).
+	 */
+	public long getFrontier() {
+		return frontier;
+	}
+
+	/**
+	 * @return Tagastab suurima seni laiendatud f(n)-i (IDA* puhul
+	 * jooksva iteratsiooni piiri).
+	 */
+	public double getBound() {
+		return bound;
+	}
+
+	/**
+	 * @return Tagastab otsingu algusest möödunud aja millisekundites.
+	 */
+	public long getTime() {
+		return time;
+	}
+
+	@Override
+	public String toString() {
+		return "olekuid " + states + ", avatud " + frontier + ", f " + bound + ", " + time + " ms";
+	}
+}
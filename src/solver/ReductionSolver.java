@@ -0,0 +1,540 @@
+package solver;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import solver.Field.Direction;
+import solver.Search.UnsolvableException;
+
+/**
+ * Lõime klass suurte (nt. 6x6 kuni 10x10 ja suuremate) väljade kiireks
+ * lahendamiseks ridade ja veergude kaupa (<i>row and column reduction</i>):
+ * paigutatakse ülemine rida, seejärel vasak veerg ning jätkatakse ühe
+ * võrra väiksema alamväljaga, kuni alles jääb {@link #getHandoff()}
+ * suurune väli. See antakse edasi olemasolevale otsingule: 3x3 lahendatakse
+ * tabelist ({@link TableSearch}), suurem kaalutud A*-ga ({@link Search}).<br>
+ * Iga ruut viiakse kohale väikese laiuti otsinguga üle paaride (ruudu
+ * asukoht, tühja ruudu asukoht), kus juba paigutatud ruudud on lukus.
+ * Otsing piiratakse ruudu, sihtkoha ja tühja ruudu ümbritseva
+ * ristkülikuga (ühe ruudu varuga), mida ebaõnnestumisel kahekordistatakse.
+ * Rea kaks viimast ruutu paigutatakse koos: eelviimane viiakse rea lõppu,
+ * viimane selle alla ning tühja ruudu kahe käiguga libistatakse mõlemad
+ * kohale (veerus samamoodi).<br>
+ * Lahendus <b>ei ole optimaalne</b>, kuid aeg ja käikude arv kasvavad
+ * dimensiooniga polünoomiliselt: 10x10 väli lahendub millisekunditega.
+ *
+ * @author Kristjan Kaitsa
+ * @version 1.0
+ *
+ */
+public class ReductionSolver implements Solver {
+	/** Vaikimisi alamvälja dimensioon, mis antakse edasi otsingule. */
+	public static final int DEFAULT_HANDOFF = 4;
+	/** Suurim lubatud dimensioon. */
+	public static final int MAX_DIMENSION = 64;
+
+	/** Tühja ruudu rea muutus suuna järjekorranumbri järgi. */
+	private static final int[] ROW_STEP = { -1, 0, 1, 0 };
+	/** Tühja ruudu veeru muutus suuna järjekorranumbri järgi. */
+	private static final int[] COLUMN_STEP = { 0, 1, 0, -1 };
+	/** Suunad järjekorranumbri järgi. */
+	private static final Direction[] DIRECTIONS = Direction.values();
+
+	/** Mänguvälja dimensioon. */
+	private final int dimension;
+	/** Algseisu ruudud indeksi järgi. */
+	private final int[] initTiles;
+	/** Alamvälja dimensioon, mis antakse edasi otsingule. */
+	private final int handoff;
+	/** Alamvälja otsingu heuristika (3x3 puhul kasutamata). */
+	private final Heuristic heuristic;
+	/** Jooksva seisu ruudud indeksi järgi. */
+	private int[] tiles;
+	/** Ruutude asukohad numbri järgi. */
+	private int[] positions;
+	/** Paigutatud (lukus) ruudud indeksi järgi. */
+	private boolean[] locked;
+	/** Seni tehtud käigud. */
+	private StringBuilder path;
+	/** Laiuti otsingu seisu külastuse märk (otsingu järjekorranumber). */
+	private int[] visited = new int[0];
+	/** Laiuti otsingu seisu eelmine seis. */
+	private int[] previous = new int[0];
+	/** Laiuti otsingu käik, millega seisu jõuti. */
+	private byte[] via = new byte[0];
+	/** Laiuti otsingu järjekord. */
+	private int[] open = new int[0];
+	/** Jooksva laiuti otsingu järjekorranumber. */
+	private int generation = 0;
+	/** Käigud, mis lahenduseni jõudmiseks teha vaja.<br>
+	 *  Täidetakse pärast lahendamist. */
+	private volatile String movesToSolution;
+	/** Otsingu juhtimine (katkestamine, piirangud, tähtaeg). */
+	private SearchControl control = new SearchControl();
+	/** Läbivaadatud olekute arv (laiuti otsingud ja alamvälja otsing). */
+	private long states = 0;
+	/** Genereeritud järglaste arv (statistika). */
+	private long generated = 0;
+	/** Korduvate järglaste arv (statistika). */
+	private long duplicates = 0;
+	/** Alamvälja otsingus lühema tee saanud järglaste arv (statistika). */
+	private long reopened = 0;
+	/** Suurim järjekorra suurus (statistika). */
+	private long peakFrontier = 0;
+	/** Aeg nanosekundites, mis kulus lahenduse leidmiseks. */
+	private long nanos = 0;
+
+	/**
+	 * Konstruktor vaikimisi alamvälja suuruse ja lineaarsete konfliktidega.
+	 * @param values Mänguvälja numbrid (tühja ruudu puhul 0).
+	 * @throws UnsolvableException Visatakse, kui antud väli ei ole lahendatav.
+	 */
+	public ReductionSolver(int[][] values) throws UnsolvableException {
+		this(values, DEFAULT_HANDOFF, new LinearConflictHeuristic());
+	}
+
+	/**
+	 * @param values Mänguvälja numbrid (tühja ruudu puhul 0).
+	 * @param handoff Alamvälja dimensioon, mis antakse edasi otsingule
+	 * (3 kuni {@link Field#MAX_DIMENSION}).
+	 * @param heuristic Alamvälja otsingu heuristika.
+	 * @throws UnsolvableException Visatakse, kui antud väli ei ole lahendatav.
+	 * @throws IllegalArgumentException Visatakse vigase välja või alamvälja
+	 * suuruse korral.
+	 */
+	public ReductionSolver(int[][] values, int handoff, Heuristic heuristic) throws UnsolvableException {
+		int n = values.length;
+		if ((n < 3) || (n > MAX_DIMENSION))
+			throw new IllegalArgumentException("Sobimatu dimensioon: " + n);
+		if ((handoff < 3) || (handoff > Field.MAX_DIMENSION))
+			throw new IllegalArgumentException("Sobimatu alamvälja dimensioon: " + handoff);
+		this.dimension = n;
+		this.handoff = handoff;
+		this.heuristic = heuristic;
+		this.initTiles = new int[n * n];
+		boolean[] used = new boolean[n * n];
+		for (int y = 0; y < n; y++) {
+			if (values[y].length != n)
+				throw new IllegalArgumentException("Väli peab olema ruudukujuline.");
+			for (int x = 0; x < n; x++) {
+				int tile = values[y][x];
+				if ((tile < 0) || (tile >= n * n) || used[tile])
+					throw new IllegalArgumentException("Illegaalne või korduv number: " + tile);
+				used[tile] = true;
+				initTiles[y * n + x] = tile;
+			}
+		}
+		if (!isSolvable())
+			throw new UnsolvableException();
+	}
+
+	/**
+	 * Kontrollib lahendatavust nagu {@link Field#isSolvable()}.
+	 * @return Tagastab tõeväärtuse, kas välja on võimalik lahendada.
+	 */
+	private boolean isSolvable() {
+		int inversions = 0;
+		int emptyIndex = 0;
+		for (int i = 0; i < initTiles.length; i++) {
+			if (initTiles[i] == 0) {
+				emptyIndex = i;
+				continue;
+			}
+			for (int j = i + 1; j < initTiles.length; j++)
+				if ((initTiles[j] != 0) && (initTiles[j] < initTiles[i]))
+					inversions++;
+		}
+		if (dimension % 2 != 0)
+			return inversions % 2 == 0;
+		return (dimension - emptyIndex / dimension) % 2 != inversions % 2;
+	}
+
+	/**
+	 * Alustab mänguvälja lahendamist.
+	 * @throws SearchAbortedException Visatakse, kui otsing katkestati või
+	 * mõni piirang ületati (vt. {@link #setControl(SearchControl)}).
+	 */
+	@Override
+	public void run() {
+		long start = System.nanoTime();
+		SolveEvent event = new SolveEvent();
+		event.begin();
+		control.start();
+		String moves = null;
+		try {
+			moves = solve();
+		} finally {
+			nanos = System.nanoTime() - start;
+			SearchStatistics statistics = getStatistics();
+			event.report(this, heuristic, dimension, statistics, moves);
+			SearchMetrics.getInstance().record(statistics, moves != null);
+		}
+		movesToSolution = moves;
+	}
+
+	/**
+	 * Paigutab ridu ja veerge, kuni alles jääb alamväli, ning lahendab selle.
+	 * @return Tagastab lahenduse käigud.
+	 */
+	private String solve() {
+		tiles = initTiles.clone();
+		positions = new int[tiles.length];
+		for (int index = 0; index < tiles.length; index++)
+			positions[tiles[index]] = index;
+		locked = new boolean[tiles.length];
+		path = new StringBuilder();
+		int top = 0;
+		for (; dimension - top > handoff; top++) {
+			solveRow(top);
+			solveColumn(top);
+			control.check(states, 0, path.length());
+		}
+		return path.append(solveRest(top)).toString();
+	}
+
+	/**
+	 * Paigutab alamvälja ülemise rea.
+	 * @param top Alamvälja ülemine rida ja vasak veerg.
+	 */
+	private void solveRow(int top) {
+		int last = dimension - 1;
+		for (int x = top; x < last - 1; x++)
+			place(goal(top, x), index(top, x), top);
+		int first = goal(top, last - 1);
+		int second = goal(top, last);
+		if ((tiles[index(top, last - 1)] == first) && (tiles[index(top, last)] == second)) {
+			locked[index(top, last - 1)] = true;
+			locked[index(top, last)] = true;
+			return;
+		}
+		place(first, index(top, last), top);
+		if (trapped(second, index(top, last - 1), index(top + 1, last - 1))) {
+			locked[index(top, last)] = false;
+			place(second, index(top + 2, last - 1), top);
+			place(first, index(top, last), top);
+			locked[index(top + 2, last - 1)] = false;
+		}
+		place(second, index(top + 1, last), top);
+		route(-1, index(top, last - 1), top);
+		step(Direction.EAST.ordinal());
+		step(Direction.SOUTH.ordinal());
+		locked[index(top + 1, last)] = false;
+		locked[index(top, last - 1)] = true;
+	}
+
+	/**
+	 * Paigutab alamvälja vasaku veeru (ülemine rida on juba paigas).
+	 * @param left Alamvälja ülemine rida ja vasak veerg.
+	 */
+	private void solveColumn(int left) {
+		int last = dimension - 1;
+		for (int y = left + 1; y < last - 1; y++)
+			place(goal(y, left), index(y, left), left);
+		int first = goal(last - 1, left);
+		int second = goal(last, left);
+		if ((tiles[index(last - 1, left)] == first) && (tiles[index(last, left)] == second)) {
+			locked[index(last - 1, left)] = true;
+			locked[index(last, left)] = true;
+			return;
+		}
+		place(first, index(last, left), left);
+		if (trapped(second, index(last - 1, left), index(last - 1, left + 1))) {
+			locked[index(last, left)] = false;
+			place(second, index(last - 1, left + 2), left);
+			place(first, index(last, left), left);
+			locked[index(last - 1, left + 2)] = false;
+		}
+		place(second, index(last, left + 1), left);
+		route(-1, index(last - 1, left), left);
+		step(Direction.SOUTH.ordinal());
+		step(Direction.EAST.ordinal());
+		locked[index(last, left + 1)] = false;
+		locked[index(last - 1, left)] = true;
+	}
+
+	/**
+	 * Kontrollib, kas teine ruut on lõksus: kui see on rea (veeru) lõpu
+	 * tupikus või selle ees ning tühi ruut tupikus, ei saa seda tupikust
+	 * välja viia (tühi ruut jääb selle taha). Siis viiakse ruut enne
+	 * esimese ruudu paigutamist eemale.
+	 * @param tile Teise ruudu number.
+	 * @param corner Tupiku indeks (esimese ruudu lõplik koht).
+	 * @param exit Tupiku ainsa vaba naabri indeks.
+	 * @return Tagastab tõeväärtuse, kas ruut on lõksus.
+	 */
+	private boolean trapped(int tile, int corner, int exit) {
+		return (positions[tile] == corner) || ((positions[tile] == exit) && (positions[0] == corner));
+	}
+
+	/**
+	 * Viib ruudu sihtkohta ning lukustab selle.
+	 * @param tile Ruudu number.
+	 * @param target Sihtkoha indeks.
+	 * @param top Alamvälja ülemine rida ja vasak veerg.
+	 */
+	private void place(int tile, int target, int top) {
+		if (positions[tile] != target)
+			route(positions[tile], target, top);
+		locked[target] = true;
+	}
+
+	/**
+	 * Viib ruudu (või tühja ruudu) sihtkohta lukustatud ruute liigutamata.
+	 * Otsingut alustatakse väikeses aknas, mida vajadusel suurendatakse
+	 * kuni terve alamväljani.
+	 * @param from Viidava ruudu asukoht või -1, kui viiakse tühja ruutu.
+	 * @param target Sihtkoha indeks.
+	 * @param top Alamvälja ülemine rida ja vasak veerg.
+	 * @throws IllegalStateException Visatakse, kui sihtkohta ei saa jõuda.
+	 */
+	private void route(int from, int target, int top) {
+		int empty = positions[0];
+		int minY = Math.min(target / dimension, empty / dimension);
+		int maxY = Math.max(target / dimension, empty / dimension);
+		int minX = Math.min(target % dimension, empty % dimension);
+		int maxX = Math.max(target % dimension, empty % dimension);
+		if (from >= 0) {
+			minY = Math.min(minY, from / dimension);
+			maxY = Math.max(maxY, from / dimension);
+			minX = Math.min(minX, from % dimension);
+			maxX = Math.max(maxX, from % dimension);
+		}
+		int last = dimension - 1;
+		for (int margin = 1; ; margin *= 2) {
+			int y0 = Math.max(top, minY - margin);
+			int y1 = Math.min(last, maxY + margin);
+			int x0 = Math.max(top, minX - margin);
+			int x1 = Math.min(last, maxX + margin);
+			if (search(from, target, y0, y1, x0, x1))
+				return;
+			if ((y0 == top) && (x0 == top) && (y1 == last) && (x1 == last))
+				throw new IllegalStateException("Ruutu " + target + " ei saa jõuda.");
+		}
+	}
+
+	/**
+	 * Laiuti otsing aknas. Seis on (ruudu asukoht, tühja ruudu asukoht)
+	 * akna ruutude järjekorranumbritena; tühja ruudu viimisel vaid tühja
+	 * ruudu asukoht. Leitud käigud tehakse kohe.
+	 * @param from Viidava ruudu asukoht või -1, kui viiakse tühja ruutu.
+	 * @param target Sihtkoha indeks.
+	 * @param y0 Akna ülemine rida.
+	 * @param y1 Akna alumine rida.
+	 * @param x0 Akna vasak veerg.
+	 * @param x1 Akna parem veerg.
+	 * @return Tagastab tõeväärtuse, kas sihtkohta jõuti.
+	 */
+	private boolean search(int from, int target, int y0, int y1, int x0, int x1) {
+		int width = x1 - x0 + 1;
+		int cells = width * (y1 - y0 + 1);
+		int goal = (target / dimension - y0) * width + target % dimension - x0;
+		int empty = positions[0];
+		int blank = (empty / dimension - y0) * width + empty % dimension - x0;
+		int root = blank;
+		if (from >= 0)
+			root += ((from / dimension - y0) * width + from % dimension - x0) * cells;
+		ensureCapacity((from >= 0) ? cells * cells : cells);
+		if (++generation == 0) {
+			Arrays.fill(visited, 0);
+			generation = 1;
+		}
+		visited[root] = generation;
+		open[0] = root;
+		int head = 0;
+		int tail = 1;
+		while (head < tail) {
+			int state = open[head++];
+			this.states++;
+			int tile = (from >= 0) ? state / cells : -1;
+			blank = state % cells;
+			if (((from >= 0) ? tile : blank) == goal) {
+				replay(root, state);
+				return true;
+			}
+			int y = blank / width + y0;
+			int x = blank % width + x0;
+			for (int move = 0; move < DIRECTIONS.length; move++) {
+				int nextY = y + ROW_STEP[move];
+				int nextX = x + COLUMN_STEP[move];
+				if ((nextY < y0) || (nextY > y1) || (nextX < x0) || (nextX > x1)
+						|| locked[nextY * dimension + nextX])
+					continue;
+				int nextBlank = (nextY - y0) * width + nextX - x0;
+				int next = nextBlank;
+				if (from >= 0)
+					next += ((nextBlank == tile) ? blank : tile) * cells;
+				this.generated++;
+				if (visited[next] == generation) {
+					this.duplicates++;
+					continue;
+				}
+				visited[next] = generation;
+				previous[next] = state;
+				via[next] = (byte) move;
+				open[tail++] = next;
+			}
+			if (tail - head > peakFrontier)
+				peakFrontier = tail - head;
+		}
+		return false;
+	}
+
+	/**
+	 * Teeb laiuti otsingu leitud käigud.
+	 * @param root Otsingu algseis.
+	 * @param state Otsingu lõppseis.
+	 */
+	private void replay(int root, int state) {
+		int length = 0;
+		for (int s = state; s != root; s = previous[s])
+			length++;
+		byte[] moves = new byte[length];
+		for (int s = state; s != root; s = previous[s])
+			moves[--length] = via[s];
+		for (byte move : moves)
+			step(move);
+	}
+
+	/**
+	 * Suurendab laiuti otsingu massiive.
+	 * @param size Vajalik seisude arv.
+	 */
+	private void ensureCapacity(int size) {
+		if (visited.length >= size)
+			return;
+		visited = new int[size];
+		previous = new int[size];
+		via = new byte[size];
+		open = new int[size];
+		generation = 0;
+	}
+
+	/**
+	 * Liigutab tühja ruutu.
+	 * @param move Suuna järjekorranumber.
+	 */
+	private void step(int move) {
+		int empty = positions[0];
+		int destination = empty + ROW_STEP[move] * dimension + COLUMN_STEP[move];
+		int tile = tiles[destination];
+		tiles[empty] = tile;
+		positions[tile] = empty;
+		tiles[destination] = 0;
+		positions[0] = destination;
+		path.append(DIRECTIONS[move].getSymbol());
+	}
+
+	/**
+	 * Lahendab paigutamata alamvälja olemasoleva otsinguga. Alamvälja ruudud
+	 * nummerdatakse ümber nende sihtkoha järgi alamväljas.
+	 * @param top Alamvälja ülemine rida ja vasak veerg.
+	 * @return Tagastab alamvälja lahenduse käigud.
+	 */
+	private String solveRest(int top) {
+		int size = dimension - top;
+		int[][] values = new int[size][size];
+		for (int y = 0; y < size; y++)
+			for (int x = 0; x < size; x++) {
+				int tile = tiles[index(top + y, top + x)];
+				if (tile != 0)
+					values[y][x] = ((tile - 1) / dimension - top) * size + (tile - 1) % dimension - top + 1;
+			}
+		Solver solver;
+		try {
+			if (size == EightPuzzleTable.DIMENSION)
+				solver = new TableSearch(new Field(values));
+			else
+				solver = new Search(new Field(values, heuristic), heuristic, Search.DEFAULT_WEIGHT);
+		} catch (UnsolvableException e) {
+			// paigutamine säilitab lahendatavuse
+			throw new IllegalStateException(e);
+		}
+		solver.setControl(new HandoffControl());
+		solver.run();
+		SearchStatistics statistics = solver.getStatistics();
+		this.states += statistics.getExpanded();
+		this.generated += statistics.getGenerated();
+		this.duplicates += statistics.getDuplicates();
+		this.reopened += statistics.getReopened();
+		this.peakFrontier = Math.max(peakFrontier, statistics.getPeakFrontier());
+		return solver.getMovesToSolution();
+	}
+
+	/**
+	 * Alamvälja otsingu juhtimine: suunab kontrollid lahendaja enda
+	 * juhtimisele, kuid ei alusta aega uuesti (ajapiirang kehtib kogu
+	 * lahendamise algusest ning ridade ja veergude paigutamise aeg läheb
+	 * samuti arvesse). Olekute arvule liidetakse paigutamisel läbivaadatud
+	 * olekud.
+	 */
+	private final class HandoffControl extends SearchControl {
+		@Override
+		public void start() {
+		}
+
+		@Override
+		public void cancel() {
+			control.cancel();
+		}
+
+		@Override
+		public boolean isCancelled() {
+			return control.isCancelled();
+		}
+
+		@Override
+		public void check(long states, long frontier, double bound) {
+			control.check(ReductionSolver.this.states + states, frontier, bound);
+		}
+	}
+
+	/**
+	 * @param y Rida.
+	 * @param x Veerg.
+	 * @return Tagastab ruudu indeksi.
+	 */
+	private int index(int y, int x) {
+		return y * dimension + x;
+	}
+
+	/**
+	 * @param y Rida.
+	 * @param x Veerg.
+	 * @return Tagastab ruudu numbri, mis lõppseisus on antud kohal.
+	 */
+	private int goal(int y, int x) {
+		return y * dimension + x + 1;
+	}
+
+	/**
+	 * @return Tagastab alamvälja dimensiooni, mis antakse edasi otsingule.
+	 */
+	public int getHandoff() {
+		return handoff;
+	}
+
+	@Override
+	public String getMovesToSolution() {
+		return movesToSolution;
+	}
+
+	@Override
+	public long getTime() {
+		return TimeUnit.NANOSECONDS.toMillis(nanos);
+	}
+
+	@Override
+	public long getStates() {
+		return states;
+	}
+
+	@Override
+	public SearchStatistics getStatistics() {
+		return new SearchStatistics(states, generated, duplicates, reopened, peakFrontier, nanos);
+	}
+
+	@Override
+	public void setControl(SearchControl control) {
+		this.control = control;
+	}
+}
@@ -1,96 +1,252 @@
 package solver;
 
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Map;
-import java.util.PriorityQueue;
-import java.util.Queue;
-import java.util.Set;
-
-import solver.Field.IllegalMoveException;
+import java.util.concurrent.TimeUnit;
 
 /**
- * Lime klass sooritamaks A* otsingut (antud heuristiku puhul <b>kaalutud</b>
- * - st. ei ole enam lubav) olekute ruumis leidmaks kike lahenduseni.
+ * Lõime klass sooritamaks A* otsingut (antud heuristiku puhul <b>kaalutud</b>
+ * - st. ei ole enam lubav) olekute ruumis leidmaks käike lahenduseni.<br>
+ * Hinnangufunktsioon: f(n)= <b>g(n)</b> + w * <b>h*(n)</b>.<br>
+ * <ul>
+ * <li><b>g(n)</b> - siia olekusse jõudmiseks läbitud tippude arv.</li>
+ * <li><b>h*(n)</b> - välja heuristiline hinnang ({@link Field#getEstimate()}).</li>
+ * <li><b>w</b> - kaal (vaikimisi {@link #DEFAULT_WEIGHT}).</li>
+ * </ul>
+ * Kiiremini lahenduse leidmiseks ohverdatakse (kui w &gt; 1) algoritmi
+ * optimaalsus. Kaaluga 1 on tulemus optimaalne vaid lubava <b>ja
+ * järjekindla</b> heuristikaga (naaberseisude hinnangud erinevad ülimalt 1
+ * võrra, nt. Manhattani kaugus): suletud seise uuesti ei avata. Pelgalt
+ * lubav heuristika, nt. mustriandmebaas (mis ei arvesta tühja ruudu
+ * asukohta) või duaaliga {@link SymmetricHeuristic}, optimaalsust ei
+ * taga.<br>
+ * Avatud ja suletud seisud hoitakse {@link StateTable}-is koos g(n), h(n)
+ * ja viimase käiguga, järjekorras ({@link IndexedHeap}) vaid kirjete
+ * numbrid - välju endid mällu ei jäeta. Parema tee leidmisel vähendatakse
+ * järjekorras oleva kirje võtit. Võrdse f(n) korral eelistatakse väiksemat
+ * h(n)-i ehk lahendusele lähemat seisu.<br>
+ * Mälukasutus on piiratud (vt. {@link #setMemoryLimit(long)}): kui tabel
+ * saab täis, jätkatakse seni vähima h(n)-ga seisust uue tabeliga ning
+ * lahendus koosneb lõikudest. Nii lahendub ka 5x5 väli mälu lõppemata,
+ * kuid lõikude kaupa leitud lahendus on pikem.<br>
+ * Väga suure avatud nimekirja korral võib tabeli ja järjekorra hoida
+ * väljaspool Java kuhja (vt. {@link #setOffHeap(boolean)}), siis ei
+ * mõjuta seisude arv prügikoguja pause ka teistes samas protsessis
+ * töötavates lõimedes.
  * 
  * @author Kristjan Kaitsa
  * @version 1.0
  * 
  */
-public class Search implements Runnable {
-	/** Prioritiseeritud jrjekord. */ 
-	private Queue<Field> queue = new PriorityQueue<Field>(50000);
-	/** Avatud nimekiri. */
-	private Map<Field, Field> open = new HashMap<Field, Field>(50000);
-	/** Suletud nimekiri. */
-	private Set<Field> closed = new HashSet<Field>(50000);
-	/** Kigud, mis lahenduseni judmiseks teha vaja.<br> 
-	 *  Tidetakse prast lppolekusse judmist. */
-	private String movesToSolution;
-	/** Olekute arv, mis on lbivaadatud.<br>
+public class Search implements Solver {
+	/** Kaal, millega heuristilist hinnangut vaikimisi korrutatakse. */
+	public static final double DEFAULT_WEIGHT = 3;
+	/** Baitide arv, mida üks seis tabelis ja järjekorras ülimalt võtab
+	 * (koos massiivide kasvuvaruga). */
+	public static final int BYTES_PER_STATE = 96;
+	
+	/** Kaal, millega heuristilist hinnangut korrutatakse. */
+	private final double weight;
+	/** Mänguvälja dimensioon. */
+	private final int dimension;
+	/** Heuristika, millega välju hinnatakse. */
+	private final Heuristic heuristic;
+	/** Dimensiooni käikude tabel. */
+	private final MoveTable moveTable;
+	/** Avatud ja suletud nimekiri. */
+	private StateTable table;
+	/** Prioritiseeritud järjekord (avatud nimekirja kirjete numbrid). */
+	private IndexedHeap queue;
+	/** Käigud, mis lahenduseni jõudmiseks teha vaja.<br> 
+	 *  Täidetakse pärast lõppolekusse jõudmist. */
+	private volatile String movesToSolution;
+	/** Otsingu juhtimine (katkestamine, piirangud). */
+	private SearchControl control = new SearchControl();
+	/** Tabeli ja järjekorra mälupiirang baitides. */
+	private long memoryLimit = Runtime.getRuntime().maxMemory() / 2;
+	/** Lahenduse lõikude arv (1, kui mälupiirang ei rakendunud). */
+	private int segments = 1;
+	/** Olekute arv, mis on läbivaadatud.<br>
 	 * Vajalik puhtalt statistikaks. */
 	private long states = 0;
-	/** Aeg millisekundites, mis kulus lahenduse leidmiseks.<br>
+	/** Genereeritud järglaste arv (statistika). */
+	private long generated = 0;
+	/** Suletud nimekirjas juba olnud järglaste arv (statistika). */
+	private long duplicates = 0;
+	/** Avatud nimekirjas lühema tee saanud järglaste arv (statistika). */
+	private long reopened = 0;
+	/** Järjekorra suurim suurus (statistika). */
+	private int peakFrontier = 0;
+	/** Aeg nanosekundites, mis kulus lahenduse leidmiseks.<br>
 	 * Vajalik puhtalt statistikaks. */
-	private long time = 0;
+	private long nanos = 0;
 	
 	/**
 	 * Konstruktor uue otsingu sooritamiseks.
 	 * @param initField Algseis.
-	 * @throws UnsolvableException Visatakse, kui antud vli ei ole lahendatav.
+	 * @throws UnsolvableException Visatakse, kui antud väli ei ole lahendatav.
 	 * Kontrollitakse matemaatiliselt (vt. {@link Field#isSolvable()}).
 	 */
 	public Search(Field initField) throws UnsolvableException {
+		this(initField, DEFAULT_WEIGHT);
+	}
+	
+	/**
+	 * Konstruktor uue otsingu sooritamiseks algseisu heuristikaga.
+	 * @param initField Algseis.
+	 * @param weight Kaal, millega heuristilist hinnangut korrutatakse.
+	 * @throws UnsolvableException Visatakse, kui antud väli ei ole lahendatav.
+	 */
+	public Search(Field initField, double weight) throws UnsolvableException {
 		if (!initField.isSolvable())
 			throw new UnsolvableException();
-		open.put(initField, initField);
-		queue.add(initField);
+		this.weight = weight;
+		this.dimension = initField.getDimension();
+		this.heuristic = initField.getHeuristic();
+		this.moveTable = MoveTable.forDimension(dimension);
+		this.table = new StateTable(dimension, 50000);
+		this.queue = new IndexedHeap(table, 50000);
+		int id = table.add(initField, StateTable.NO_MOVE);
+		queue.add(id, priority(initField.getMoves(), initField.getEstimate()), initField.getEstimate());
+	}
+	
+	/**
+	 * Konstruktor uue otsingu sooritamiseks valitud heuristikaga.
+	 * @param initField Algseis.
+	 * @param heuristic Heuristika, millega välju hinnatakse.
+	 * @param weight Kaal, millega heuristilist hinnangut korrutatakse.
+	 * @throws UnsolvableException Visatakse, kui antud väli ei ole lahendatav.
+	 */
+	public Search(Field initField, Heuristic heuristic, double weight) throws UnsolvableException {
+		this(new Field(initField.getValues(), heuristic), weight);
 	}
 	
 	/**
-	 * Alustab mnguvlja lahendamist.<br>
-	 * Ttab kuni lahendus leitakse.
+	 * @param cost Käikude arv algseisust ehk g(n).
+	 * @param estimate Heuristiline hinnang h*(n).
+	 * @return Tagastab järjekorra võtme: hinnangu f(n) = g(n) + w * h*(n)
+	 * bitid, mis mittenegatiivsete arvude korral säilitavad järjestuse.
+	 */
+	private long priority(int cost, int estimate) {
+		return Double.doubleToLongBits(cost + weight * estimate);
+	}
+	
+	/**
+	 * Alustab mänguvälja lahendamist.<br>
+	 * Töötab kuni lahendus leitakse.
+	 * @throws SearchAbortedException Visatakse, kui otsing katkestati või
+	 * mõni piirang ületati (vt. {@link #setControl(SearchControl)}).
 	 */
 	@Override
 	public void run() {
-		long start = System.currentTimeMillis();
+		long start = System.nanoTime();
+		SolveEvent event = new SolveEvent();
+		event.begin();
+		control.start();
+		String moves = null;
+		try {
+			moves = solve();
+		} finally {
+			table.release();
+			queue.release();
+			nanos = System.nanoTime() - start;
+			SearchStatistics statistics = getStatistics();
+			event.report(this, heuristic, dimension, statistics, moves);
+			SearchMetrics.getInstance().record(statistics, moves != null);
+		}
+		movesToSolution = moves;
+	}
+	
+	/**
+	 * A* otsingu põhitsükkel. Iga kord, kui järjekorrast võetud seisu f(n)
+	 * ületab seni suurima, lõpetatakse f-kiht (vt. {@link LayerEvent}).
+	 * @return Tagastab lahenduse käigud või <code>null</code>-i, kui
+	 * järjekord sai tühjaks.
+	 */
+	private String solve() {
+		// järglasi lisatakse kuni 4 enne piirangu kontrolli
+		int maxStates = (int) Math.min(memoryLimit / BYTES_PER_STATE, StateTable.MAX_STATES - 4);
+		StringBuilder prefix = new StringBuilder();
+		int bestId = 0;
+		double layerBound = -1;
+		long layerStates = 0;
+		LayerEvent layer = new LayerEvent();
+		layer.begin();
 		while (!queue.isEmpty()) {
+			int id = queue.poll();
+			Field curField = new Field(dimension, table.getLow(id), table.getHigh(id),
+					table.getCost(id), heuristic, table.getEstimate(id));
 			this.states++;
-			Field curField = queue.poll();
+			double cost = curField.getMoves() + weight * curField.getEstimate();
+			if (cost > layerBound) {
+				if (layerBound >= 0) {
+					layer.report(this, layerBound, states - layerStates, queue.size());
+					layer = new LayerEvent();
+					layer.begin();
+				}
+				layerBound = cost;
+				layerStates = states;
+			}
+			if ((states & (SearchControl.CHECK_INTERVAL - 1)) == 0)
+				control.check(states, queue.size(), layerBound);
 			
 			if (curField.isSolved()) {
-				try {
-					movesToSolution = curField.backtrack();
-					time = System.currentTimeMillis() - start;
-				} catch (IllegalMoveException e) {
-					System.err.println("Oh, backtrackimine ebannestus!");
-					System.exit(-1);
-				}
-				return;
+				layer.report(this, layerBound, states - layerStates + 1, queue.size());
+				return prefix.append(table.path(id)).toString();
 			}
 			
-			open.remove(curField);
-			closed.add(curField);
-			for (Field child : curField.getChildren()) {
-				if (closed.contains(child)) continue;
-				if (open.containsKey(child)) {
-					Field oldField = open.get(child);
-					if (child.compareTo(oldField) < 0) {
-						queue.remove(oldField);
-						oldField.setParent(child.getParent());
-						queue.add(oldField);
-					}
-					continue;
+			table.close(id);
+			int emptyIndex = curField.getEmptyIndex();
+			int list = moveTable.moves(emptyIndex, table.getMove(id));
+			for (int i = 0; i < MoveTable.count(list); i++) {
+				int move = MoveTable.move(list, i);
+				Field child = new Field(curField, move, moveTable.destination(emptyIndex, move));
+				this.generated++;
+				int childId = table.find(child);
+				long priority = priority(child.getMoves(), child.getEstimate());
+				if (childId < 0) {
+					childId = table.add(child, move);
+					queue.add(childId, priority, child.getEstimate());
+					if (child.getEstimate() < table.getEstimate(bestId))
+						bestId = childId;
+				} else if (table.isClosed(childId)) {
+					this.duplicates++;
+				} else if (child.getMoves() < table.getCost(childId)) {
+					this.reopened++;
+					table.setPath(childId, child.getMoves(), move);
+					queue.decrease(childId, priority, child.getEstimate());
 				}
-				open.put(child, child);
-				queue.add(child);
+			}
+			if (queue.size() > peakFrontier)
+				peakFrontier = queue.size();
+			if (table.size() >= maxStates) {
+				if (bestId == 0)
+					throw new SearchAbortedException(SearchAbortedException.Reason.MEMORY_LIMIT, states);
+				restart(bestId, prefix);
+				bestId = 0;
 			}
 		}
+		return null;
+	}
+	
+	/**
+	 * Alustab uut lõiku: lisab lahendusele tee seisuni <code>id</code>
+	 * ning jätkab otsingut sellest seisust tühja tabeliga.
+	 * @param id Uue lõigu algseisu kirje number.
+	 * @param prefix Seni leitud lõikude käigud.
+	 */
+	private void restart(int id, StringBuilder prefix) {
+		Field start = new Field(dimension, table.getLow(id), table.getHigh(id),
+				0, heuristic, table.getEstimate(id));
+		prefix.append(table.path(id));
+		table.clear();
+		queue.clear();
+		int rootId = table.add(start, StateTable.NO_MOVE);
+		queue.add(rootId, priority(0, start.getEstimate()), start.getEstimate());
+		segments++;
 	}
 	
 	/**
 	 * Vt. {@link Field#backtrack()}.<br>
-	 * @return Tagastab snena lahenduseni judmiseks vajalikud kigud.
+	 * @return Tagastab sõnena lahenduseni jõudmiseks vajalikud käigud.
 	 */
 	public String getMovesToSolution() {
 		return movesToSolution;
@@ -100,16 +256,65 @@ public class Search implements Runnable {
 	 * @return Tagastab lahenduse leidmiseks kulunud aja millisekundites.
 	 */
 	public long getTime() {
-		return time;
+		return TimeUnit.NANOSECONDS.toMillis(nanos);
 	}
 	
 	/**
-	 * @return Tagastab lahenduse leidmiseks lbivaadatud seisundite (vljade) arvu.
+	 * @return Tagastab lahenduse leidmiseks läbivaadatud seisundite (väljade) arvu.
 	 */
 	public long getStates() {
 		return states;
 	}
 	
+	/**
+	 * Määrab tabeli ja järjekorra mälupiirangu (vaikimisi pool
+	 * <code>Runtime.maxMemory()</code>-ist). Kui piirang saab täis, jätkab
+	 * otsing seni vähima h(n)-ga seisust; kui ükski seis pole algseisust
+	 * parem, lõpetab otsing {@link SearchAbortedException}-iga
+	 * ({@link SearchAbortedException.Reason#MEMORY_LIMIT}).
+	 * @param bytes Mälupiirang baitides.
+	 */
+	public void setMemoryLimit(long bytes) {
+		this.memoryLimit = bytes;
+	}
+	
+	/**
+	 * Määrab, kas tabel ja järjekord hoitakse väljaspool Java kuhja
+	 * ({@link NodeArena}). Kuhjaväline mälu vabastatakse otsingu lõppedes
+	 * korraga; selle suurust piirab lisaks mälupiirangule ka JVM-i
+	 * <code>-XX:MaxDirectMemorySize</code> (vaikimisi kuhja suurus).
+	 * Tuleb määrata enne {@link #run()}-i.
+	 * @param offHeap Kas hoida seisud väljaspool Java kuhja.
+	 */
+	public void setOffHeap(boolean offHeap) {
+		if (offHeap == table.isOffHeap())
+			return;
+		StateTable root = table;
+		table = new StateTable(dimension, 50000, offHeap);
+		queue = new IndexedHeap(table, 50000);
+		int id = table.add(root.getLow(0), root.getHigh(0), root.getCost(0), root.getEstimate(0),
+				StateTable.NO_MOVE);
+		queue.add(id, priority(table.getCost(id), table.getEstimate(id)), table.getEstimate(id));
+		root.release();
+	}
+	
+	/**
+	 * @return Tagastab lahenduse lõikude arvu (1, kui mälupiirang ei rakendunud).
+	 */
+	public int getSegments() {
+		return segments;
+	}
+	
+	@Override
+	public SearchStatistics getStatistics() {
+		return new SearchStatistics(states, generated, duplicates, reopened, peakFrontier, nanos);
+	}
+	
+	@Override
+	public void setControl(SearchControl control) {
+		this.control = control;
+	}
+	
 	public static class UnsolvableException extends Exception {
 		private static final long serialVersionUID = 1L;
 	}
@@ -0,0 +1,58 @@
+package solver;
+
+/**
+ * Erind, millega otsing lõpetab enne lahenduse leidmist, kui see on
+ * katkestatud või mõni {@link SearchControl} piirang on ületatud.<br>
+ * Kontrollimata, et see jõuaks ka sügavast rekursioonist (nt.
+ * {@link IdaStarSearch}) otse <code>run()</code>-i kutsujani.
+ *
+ * @author Kristjan Kaitsa
+ * @version 1.0
+ *
+ */
+public class SearchAbortedException extends RuntimeException {
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Otsingu lõpetamise põhjus.
+	 */
+	public static enum Reason {
+		/** Otsing katkestati ({@link SearchControl#cancel()}). */
+		CANCELLED,
+		/** Ajapiirang ületati. */
+		TIMEOUT,
+		/** Läbivaadatud olekute piirang ületati. */
+		STATE_LIMIT,
+		/** Mälupiirangu sees ei leitud edasiminekut (vt. {@link Search#setMemoryLimit(long)}). */
+		MEMORY_LIMIT
+	}
+
+	/** Lõpetamise põhjus. */
+	private final Reason reason;
+	/** Läbivaadatud olekute arv lõpetamise hetkel. */
+	private final long states;
+
+	/**
+	 * @param reason Lõpetamise põhjus.
+	 * @param states Läbivaadatud olekute arv lõpetamise hetkel.
+	 */
+	public SearchAbortedException(Reason reason, long states) {
+		super("Otsing lõpetati (" + reason + ") pärast " + states + " olekut.");
+		this.reason = reason;
+		this.states = states;
+	}
+
+	/**
+	 * @return Tagastab lõpetamise põhjuse.
+	 */
+	public Reason getReason() {
+		return reason;
+	}
+
+	/**
+	 * @return Tagastab läbivaadatud olekute arvu lõpetamise hetkel.
+	 */
+	public long getStates() {
+		return states;
+	}
+}
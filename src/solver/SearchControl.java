@@ -0,0 +1,122 @@
+package solver;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Otsingu juhtimine väljastpoolt: katkestamine, ajaline ja olekute arvu
+ * piirang ning perioodiline edenemise teade.<br>
+ * Otsingud kutsuvad iga {@link #CHECK_INTERVAL} läbivaadatud oleku järel
+ * {@link #check(long, long, double)}-i, mis piiri ületamisel või
+ * katkestamisel viskab {@link SearchAbortedException}-i - otsing seega
+ * lõpetab koostöös, lõime katkestamata. Kõik väljad on
+ * <code>volatile</code>, seega võib katkestada suvalisest lõimest.<br>
+ * Piirangud tuleb määrata enne otsingu alustamist; ajapiirang hakkab
+ * kehtima otsingu algusest ({@link #start()}).
+ *
+ * @author Kristjan Kaitsa
+ * @version 1.0
+ *
+ */
+public class SearchControl {
+	/** Mitme oleku järel otsing piiranguid kontrollib (kahe aste). */
+	public static final int CHECK_INTERVAL = 1 << 12;
+
+	/** Kas otsing on katkestatud. */
+	private volatile boolean cancelled = false;
+	/** Lõpetamise põhjus või <code>null</code>, kui otsing veel käib. */
+	private volatile SearchAbortedException.Reason stopped = null;
+	/** Ajapiirang nanosekundites (0, kui piirangut pole). */
+	private volatile long timeout = 0;
+	/** Suurim lubatud läbivaadatud olekute arv (0, kui piirangut pole). */
+	private volatile long maxStates = 0;
+	/** Edenemise kuulaja või <code>null</code>. */
+	private volatile Consumer<Progress> listener = null;
+	/** Edenemise teadete vahe nanosekundites. */
+	private volatile long progressInterval = 0;
+	/** Otsingu algus (<code>System.nanoTime()</code>). */
+	private volatile long start = System.nanoTime();
+	/** Järgmise edenemise teate aeg (<code>System.nanoTime()</code>). */
+	private final AtomicLong nextProgress = new AtomicLong();
+
+	/**
+	 * @param timeout Suurim lubatud otsingu kestus (0, kui piirangut pole).
+	 * @param unit Kestuse ühik.
+	 */
+	public void setTimeout(long timeout, TimeUnit unit) {
+		this.timeout = unit.toNanos(timeout);
+	}
+
+	/**
+	 * @param maxStates Suurim lubatud läbivaadatud olekute arv (0, kui piirangut pole).
+	 */
+	public void setMaxStates(long maxStates) {
+		this.maxStates = maxStates;
+	}
+
+	/**
+	 * Määrab edenemise kuulaja. Kuulajat kutsutakse otsingu lõimest (või
+	 * paralleelse otsingu korral ühest selle lõimedest), seega peab see
+	 * olema kiire.
+	 * @param listener Kuulaja.
+	 * @param interval Teadete vahe millisekundites.
+	 */
+	public void setProgressListener(Consumer<Progress> listener, long interval) {
+		this.progressInterval = TimeUnit.MILLISECONDS.toNanos(interval);
+		this.listener = listener;
+	}
+
+	/**
+	 * Katkestab otsingu: see lõpetab järgmisel kontrollil.
+	 */
+	public void cancel() {
+		this.cancelled = true;
+	}
+
+	/**
+	 * @return Tagastab tõeväärtuse, kas otsing on katkestatud.
+	 */
+	public boolean isCancelled() {
+		return cancelled;
+	}
+
+	/**
+	 * Märgib otsingu alguse (ajapiirangu ja edenemise teadete jaoks).
+	 * Otsingud kutsuvad seda <code>run()</code>-i alguses.
+	 */
+	public void start() {
+		this.start = System.nanoTime();
+		this.nextProgress.set(start + progressInterval);
+	}
+
+	/**
+	 * Kontrollib piiranguid ning vajadusel teatab edenemisest.
+	 * @param states Seni läbivaadatud olekute arv.
+	 * @param frontier Avatud nimekirja suurus.
+	 * @param bound Suurim seni laiendatud f(n).
+	 * @throws SearchAbortedException Visatakse, kui otsing on katkestatud
+	 * või mõni piirang ületatud.
+	 */
+	public void check(long states, long frontier, double bound) {
+		if (stopped == null) {
+			if (cancelled)
+				stopped = SearchAbortedException.Reason.CANCELLED;
+			else if ((maxStates > 0) && (states > maxStates))
+				stopped = SearchAbortedException.Reason.STATE_LIMIT;
+			else if ((timeout > 0) && (System.nanoTime() - start > timeout))
+				stopped = SearchAbortedException.Reason.TIMEOUT;
+		}
+		if (stopped != null)
+			throw new SearchAbortedException(stopped, states);
+
+		Consumer<Progress> listener = this.listener;
+		if (listener != null) {
+			long now = System.nanoTime();
+			long next = nextProgress.get();
+			if ((now >= next) && nextProgress.compareAndSet(next, now + progressInterval))
+				listener.accept(new Progress(states, frontier, bound,
+						TimeUnit.NANOSECONDS.toMillis(now - start)));
+		}
+	}
+}
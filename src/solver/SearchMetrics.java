@@ -0,0 +1,134 @@
+package solver;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Protsessi kõigi otsingute koondnäitajad. Iga otsing lisab oma
+ * {@link SearchStatistics} lõpus siia (ka katkestatud otsing), seega
+ * otsingu ajal kulub sellele vaid üks kirjutus.<br>
+ * Registreeritakse platvormi MBean serverisse nimega
+ * {@value #OBJECT_NAME}, kust seda saab lugeda nt. JConsole või
+ * JMX-põhise monitooringuga. {@link #snapshot()} tagastab kõik
+ * loendurid ühe objektina.
+ *
+ * @author Kristjan Kaitsa
+ * @version 1.0
+ *
+ */
+public class SearchMetrics implements SearchMetricsMXBean {
+	/** JMX objekti nimi. */
+	public static final String OBJECT_NAME = "solver:type=SearchMetrics";
+	/** Ainus isend. */
+	private static final SearchMetrics INSTANCE = register(new SearchMetrics());
+
+	private final LongAdder solves = new LongAdder();
+	private final LongAdder aborted = new LongAdder();
+	private final LongAdder expanded = new LongAdder();
+	private final LongAdder generated = new LongAdder();
+	private final LongAdder duplicates = new LongAdder();
+	private final LongAdder reopened = new LongAdder();
+	private final LongAccumulator peakFrontier = new LongAccumulator(Math::max, 0);
+	private final LongAdder nanos = new LongAdder();
+
+	private SearchMetrics() {
+	}
+
+	/**
+	 * Registreerib näitajad MBean serverisse. Kui see ei õnnestu (nt.
+	 * turvapiirangute tõttu), on näitajad siiski loetavad.
+	 * @param metrics Näitajad.
+	 * @return Tagastab samad näitajad.
+	 */
+	private static SearchMetrics register(SearchMetrics metrics) {
+		try {
+			ManagementFactory.getPlatformMBeanServer().registerMBean(metrics, new ObjectName(OBJECT_NAME));
+		} catch (JMException | SecurityException e) {
+			System.err.println("Otsingu näitajaid ei õnnestunud registreerida: " + e);
+		}
+		return metrics;
+	}
+
+	/**
+	 * @return Tagastab protsessi otsingute koondnäitajad.
+	 */
+	public static SearchMetrics getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Lisab ühe otsingu loendurid.
+	 * @param statistics Otsingu loendurid.
+	 * @param solved Kas otsing leidis lahenduse.
+	 */
+	void record(SearchStatistics statistics, boolean solved) {
+		solves.increment();
+		if (!solved)
+			aborted.increment();
+		expanded.add(statistics.getExpanded());
+		generated.add(statistics.getGenerated());
+		duplicates.add(statistics.getDuplicates());
+		reopened.add(statistics.getReopened());
+		peakFrontier.accumulate(statistics.getPeakFrontier());
+		nanos.add(statistics.getNanos());
+	}
+
+	/**
+	 * @return Tagastab kõigi otsingute loendurid kokku (tipp on suurim
+	 * üksiku otsingu tipp, kestus otsingute kestuste summa).
+	 */
+	public SearchStatistics snapshot() {
+		return new SearchStatistics(expanded.sum(), generated.sum(), duplicates.sum(),
+				reopened.sum(), peakFrontier.get(), nanos.sum());
+	}
+
+	@Override
+	public long getSolves() {
+		return solves.sum();
+	}
+
+	@Override
+	public long getAborted() {
+		return aborted.sum();
+	}
+
+	@Override
+	public long getExpanded() {
+		return expanded.sum();
+	}
+
+	@Override
+	public long getGenerated() {
+		return generated.sum();
+	}
+
+	@Override
+	public long getDuplicates() {
+		return duplicates.sum();
+	}
+
+	@Override
+	public long getReopened() {
+		return reopened.sum();
+	}
+
+	@Override
+	public long getPeakFrontier() {
+		return peakFrontier.get();
+	}
+
+	@Override
+	public long getTime() {
+		return TimeUnit.NANOSECONDS.toMillis(nanos.sum());
+	}
+
+	@Override
+	public long getNodesPerSecond() {
+		return snapshot().getNodesPerSecond();
+	}
+}
@@ -0,0 +1,56 @@
+package solver;
+
+/**
+ * JMX liides otsingute koondnäitajatele (vt. {@link SearchMetrics}),
+ * nimega {@value SearchMetrics#OBJECT_NAME}.
+ *
+ * @author Kristjan Kaitsa
+ * @version 1.0
+ *
+ */
+public interface SearchMetricsMXBean {
+	/**
+	 * @return Tagastab lõpetatud otsingute arvu (koos katkestatutega).
+	 */
+	public long getSolves();
+
+	/**
+	 * @return Tagastab katkestatud otsingute arvu.
+	 */
+	public long getAborted();
+
+	/**
+	 * @return Tagastab kõigi otsingute laiendatud seisude arvu.
+	 */
+	public long getExpanded();
+
+	/**
+	 * @return Tagastab kõigi otsingute genereeritud järglaste arvu.
+	 */
+	public long getGenerated();
+
+	/**
+	 * @return Tagastab kõigi otsingute suletud nimekirjas juba olnud järglaste arvu.
+	 */
+	public long getDuplicates();
+
+	/**
+	 * @return Tagastab kõigi otsingute avatud nimekirjas lühema tee saanud järglaste arvu.
+	 */
+	public long getReopened();
+
+	/**
+	 * @return Tagastab suurima avatud nimekirja üle kõigi otsingute.
+	 */
+	public long getPeakFrontier();
+
+	/**
+	 * @return Tagastab kõigi otsingute kestuse kokku millisekundites.
+	 */
+	public long getTime();
+
+	/**
+	 * @return Tagastab keskmise laiendatud seisude arvu sekundis.
+	 */
+	public long getNodesPerSecond();
+}
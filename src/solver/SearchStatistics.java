@@ -0,0 +1,119 @@
+package solver;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Otsingu loendurite hetkeseis (vt. {@link Solver#getStatistics()}):
+ * <ul>
+ * <li><b>laiendatud</b> - seisud, mille järglased genereeriti
+ * (sama mis {@link Solver#getStates()});</li>
+ * <li><b>genereeritud</b> - loodud järglased;</li>
+ * <li><b>korduvad</b> - järglased, mis olid juba suletud nimekirjas;</li>
+ * <li><b>uuendatud</b> - järglased, millele leiti avatud nimekirjas
+ * lühem tee (võtme vähendamine);</li>
+ * <li><b>tipp</b> - avatud nimekirja suurim suurus (IDA* puhul suurim
+ * otsingusügavus).</li>
+ * </ul>
+ * IDA* ei hoia olekuid meeles, seega korduvaid ja uuendatuid seal pole.
+ *
+ * @author Kristjan Kaitsa
+ * @version 1.0
+ *
+ */
+public class SearchStatistics {
+	/** Laiendatud seisude arv. */
+	private final long expanded;
+	/** Genereeritud järglaste arv. */
+	private final long generated;
+	/** Suletud nimekirjas juba olnud järglaste arv. */
+	private final long duplicates;
+	/** Avatud nimekirjas lühema tee saanud järglaste arv. */
+	private final long reopened;
+	/** Avatud nimekirja suurim suurus (IDA* puhul suurim sügavus). */
+	private final long peakFrontier;
+	/** Otsingu kestus nanosekundites. */
+	private final long nanos;
+
+	/**
+	 * @param expanded Laiendatud seisude arv.
+	 * @param generated Genereeritud järglaste arv.
+	 * @param duplicates Suletud nimekirjas juba olnud järglaste arv.
+	 * @param reopened Avatud nimekirjas lühema tee saanud järglaste arv.
+	 * @param peakFrontier Avatud nimekirja suurim suurus.
+	 * @param nanos Otsingu kestus nanosekundites.
+	 */
+	public SearchStatistics(long expanded, long generated, long duplicates,
+			long reopened, long peakFrontier, long nanos) {
+		this.expanded = expanded;
+		this.generated = generated;
+		this.duplicates = duplicates;
+		this.reopened = reopened;
+		this.peakFrontier = peakFrontier;
+		this.nanos = nanos;
+	}
+
+	/**
+	 * @return Tagastab laiendatud seisude arvu.
+	 */
+	public long getExpanded() {
+		return expanded;
+	}
+
+	/**
+	 * @return Tagastab genereeritud järglaste arvu.
+	 */
+	public long getGenerated() {
+		return generated;
+	}
+
+	/**
+	 * @return Tagastab suletud nimekirjas juba olnud järglaste arvu.
+	 */
+	public long getDuplicates() {
+		return duplicates;
+	}
+
+	/**
+	 * @return Tagastab avatud nimekirjas lühema tee saanud järglaste arvu.
+	 */
+	public long getReopened() {
+		return reopened;
+	}
+
+	/**
+	 * @return Tagastab avatud nimekirja suurima suuruse (IDA* puhul
+	 * suurima otsingusügavuse).
+	 */
+	public long getPeakFrontier() {
+		return peakFrontier;
+	}
+
+	/**
+	 * @return Tagastab otsingu kestuse millisekundites.
+	 */
+	public long getTime() {
+		return TimeUnit.NANOSECONDS.toMillis(nanos);
+	}
+
+	/**
+	 * @return Tagastab otsingu kestuse nanosekundites.
+	 */
+	public long getNanos() {
+		return nanos;
+	}
+
+	/**
+	 * @return Tagastab laiendatud seisude arvu sekundis.
+	 */
+	public long getNodesPerSecond() {
+		return (nanos == 0) ? 0 : (long) (expanded * 1e9 / nanos);
+	}
+
+	@Override
+	public String toString() {
+		return "laiendatud " + expanded + ", genereeritud " + generated
+				+ ", korduvad " + duplicates + ", uuendatud " + reopened
+				+ ", tipp " + peakFrontier + ", " + getTime() + " ms, "
+				+ getNodesPerSecond() + " seisu/s";
+	}
+}
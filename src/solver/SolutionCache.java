@@ -0,0 +1,269 @@
+package solver;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lahenduste vahemälu päringute vahel (nt. partiitöötluses).<br>
+ * Võtmeks on välja kanoonilise kuju (vt. {@link Symmetry#canonical(Field)})
+ * pakitud kuju, väärtuseks selle lahendus koos märkega, kas see on
+ * optimaalne - väli ja tema peegeldus jagavad seega kirjet ning
+ * peegeldatud välja lahendus teisendatakse tagasi. Mälu on piiratud: kirjeid hoitakse viimase kasutuse
+ * järjekorras ning täis vahemälust visatakse välja kõige kauem
+ * kasutamata kirje (LRU). Ligipääs on sünkroniseeritud, seega võib
+ * vahemälu jagada lõimede vahel.<br>
+ * Optimaalsete lahenduste kõik seisud lisatakse ka {@link DistanceStore}-i,
+ * seega leitakse kohe ka väljad, mis jäid mõne varem lahendatud välja
+ * lahendusteele.<br>
+ * Vahemälu saab salvestada faili ({@link #save(File)}) ning järgmisel
+ * käivitamisel sealt lugeda ({@link #load(File)}).
+ *
+ * <p>Failivorming: 4 baiti {@link #MAGIC}, 4 baiti kirjete arv, iga kirje
+ * kohta 1 bait dimensioon, 8 + 8 baiti pakitud kuju, 1 bait optimaalsus
+ * ning lahendus (<code>DataOutput.writeUTF</code>). Kirjed on vanimast
+ * uusimani.</p>
+ *
+ * @author Kristjan Kaitsa
+ * @version 1.0
+ *
+ */
+public class SolutionCache {
+	/** Failivormingu tunnus ("SOL1"). */
+	public static final int MAGIC = 0x534F4C31;
+	/** Kirjete arv vaikimisi. */
+	public static final int DEFAULT_CAPACITY = 10000;
+
+	/** Suurim kirjete arv. */
+	private final int capacity;
+	/** Kirjed viimase kasutuse järjekorras (vanim ees). */
+	private final Map<Key, Entry> entries;
+	/** Tõestatud kauguste hoidla. */
+	private final DistanceStore store;
+	/** Tabamuste arv. */
+	private final LongAdder hits = new LongAdder();
+	/** Möödaminekute arv. */
+	private final LongAdder misses = new LongAdder();
+
+	/**
+	 * Loob vaikimisi suurusega vahemälu ja kauguste hoidla.
+	 */
+	public SolutionCache() {
+		this(DEFAULT_CAPACITY, new DistanceStore());
+	}
+
+	/**
+	 * @param capacity Suurim kirjete arv.
+	 * @param store Tõestatud kauguste hoidla (võib olla jagatud otsingutega).
+	 */
+	public SolutionCache(final int capacity, DistanceStore store) {
+		if (capacity < 1)
+			throw new IllegalArgumentException("Vahemälu suurus peab olema positiivne.");
+		this.capacity = capacity;
+		this.store = store;
+		this.entries = new LinkedHashMap<Key, Entry>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+				return size() > capacity;
+			}
+		};
+	}
+
+	/**
+	 * Otsib välja lahendust vahemälust ning seejärel kauguste hoidlast.
+	 * @param field Väli.
+	 * @param optimal Kas nõutakse optimaalset lahendust.
+	 * @return Tagastab lahenduse või <code>null</code>-i, kui seda pole.
+	 */
+	public String get(Field field, boolean optimal) {
+		Field canonical = Symmetry.canonical(field);
+		Entry entry;
+		synchronized (entries) {
+			entry = entries.get(new Key(canonical));
+		}
+		String moves = null;
+		if ((entry != null) && (entry.optimal || !optimal))
+			moves = (canonical == field) ? entry.moves : Symmetry.reflect(entry.moves);
+		else
+			moves = store.solution(field);
+		if (moves != null)
+			hits.increment();
+		else
+			misses.increment();
+		return moves;
+	}
+
+	/**
+	 * Lisab lahenduse. Optimaalse lahenduse seisud lisatakse ka kauguste
+	 * hoidlasse. Juba olevat optimaalset lahendust mitteoptimaalsega ei
+	 * asendata.
+	 * @param field Väli.
+	 * @param moves Lahendus (vt. {@link Field#backtrack()}).
+	 * @param optimal Kas lahendus on optimaalne.
+	 */
+	public void put(Field field, String moves, boolean optimal) {
+		Field canonical = Symmetry.canonical(field);
+		Key key = new Key(canonical);
+		String stored = (canonical == field) ? moves : Symmetry.reflect(moves);
+		synchronized (entries) {
+			Entry old = entries.get(key);
+			if ((old == null) || optimal || !old.optimal)
+				entries.put(key, new Entry(stored, optimal));
+		}
+		if (optimal)
+			store.addSolution(field, moves);
+	}
+
+	/**
+	 * @return Tagastab tõestatud kauguste hoidla.
+	 */
+	public DistanceStore getDistanceStore() {
+		return store;
+	}
+
+	/**
+	 * @return Tagastab kirjete arvu.
+	 */
+	public int size() {
+		synchronized (entries) {
+			return entries.size();
+		}
+	}
+
+	/**
+	 * @return Tagastab suurima kirjete arvu.
+	 */
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * @return Tagastab tabamuste arvu.
+	 */
+	public long getHits() {
+		return hits.sum();
+	}
+
+	/**
+	 * @return Tagastab möödaminekute arvu.
+	 */
+	public long getMisses() {
+		return misses.sum();
+	}
+
+	/**
+	 * Kirjutab vahemälu faili. Kirjutatakse ajutisse faili ning see
+	 * nimetatakse ümber, et poolikut faili ei jääks.
+	 * @param file Fail, kuhu kirjutada.
+	 * @throws IOException Visatakse, kui kirjutamine ebaõnnestub.
+	 */
+	public void save(File file) throws IOException {
+		List<Map.Entry<Key, Entry>> snapshot;
+		synchronized (entries) {
+			snapshot = new ArrayList<Map.Entry<Key, Entry>>(entries.entrySet());
+		}
+		File temp = new File(file.getPath() + ".tmp");
+		DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+		try {
+			output.writeInt(MAGIC);
+			output.writeInt(snapshot.size());
+			for (Map.Entry<Key, Entry> item : snapshot) {
+				output.writeByte(item.getKey().dimension);
+				output.writeLong(item.getKey().low);
+				output.writeLong(item.getKey().high);
+				output.writeBoolean(item.getValue().optimal);
+				output.writeUTF(item.getValue().moves);
+			}
+		} finally {
+			output.close();
+		}
+		Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+				StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * Loeb failist kirjed juurde (optimaalsed lisatakse ka kauguste hoidlasse).
+	 * @param file Fail, kust lugeda.
+	 * @throws IOException Visatakse, kui faili ei saa lugeda või see on vigane.
+	 */
+	public void load(File file) throws IOException {
+		DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+		try {
+			if (input.readInt() != MAGIC)
+				throw new IOException("Vigane vahemälu fail: " + file);
+			int count = input.readInt();
+			for (int i = 0; i < count; i++) {
+				int dimension = input.readByte();
+				long low = input.readLong();
+				long high = input.readLong();
+				boolean optimal = input.readBoolean();
+				String moves = input.readUTF();
+				if ((dimension < 1) || (dimension > Field.MAX_DIMENSION))
+					throw new IOException("Vigane vahemälu fail: " + file);
+				Field field = new Field(dimension, low, high, 0, new ManhattanHeuristic(), 0);
+				try {
+					put(field, moves, optimal);
+				} catch (IllegalArgumentException e) {
+					throw new IOException("Vigane lahendus vahemälu failis: " + file);
+				}
+			}
+		} finally {
+			input.close();
+		}
+	}
+
+	/**
+	 * Kirje võti: kanoonilise välja pakitud kuju.
+	 */
+	private static class Key {
+		private final int dimension;
+		private final long low;
+		private final long high;
+
+		Key(Field field) {
+			this.dimension = field.getDimension();
+			this.low = field.getLow();
+			this.high = field.getHigh();
+		}
+
+		@Override
+		public int hashCode() {
+			return Field.hash(low, high);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key))
+				return false;
+			Key other = (Key) obj;
+			return (dimension == other.dimension) && (low == other.low) && (high == other.high);
+		}
+	}
+
+	/**
+	 * Kirje väärtus: lahendus ja selle optimaalsus.
+	 */
+	private static class Entry {
+		private final String moves;
+		private final boolean optimal;
+
+		Entry(String moves, boolean optimal) {
+			this.moves = moves;
+			this.optimal = optimal;
+		}
+	}
+}
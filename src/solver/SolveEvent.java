@@ -0,0 +1,81 @@
+package solver;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR sündmus ühe otsingu kohta: kestus ning {@link SearchStatistics}
+ * loendurid. Salvestatakse ka katkestatud otsingu korral (siis on
+ * lahenduse pikkus -1).<br>
+ * Näide: <code>java -XX:StartFlightRecording=filename=otsing.jfr ...</code>
+ * ning <code>jfr print --events solver.Solve otsing.jfr</code>.
+ *
+ * @author Kristjan Kaitsa
+ * @version 1.0
+ *
+ */
+@Name("solver.Solve")
+@Label("Lahendamine")
+@Category("15-mäng")
+@Description("Ühe välja lahendamine")
+@StackTrace(false)
+public class SolveEvent extends Event {
+	@Label("Otsing")
+	String engine;
+
+	@Label("Heuristika")
+	String heuristic;
+
+	@Label("Dimensioon")
+	int dimension;
+
+	@Label("Lahenduse pikkus")
+	int length;
+
+	@Label("Laiendatud")
+	long expanded;
+
+	@Label("Genereeritud")
+	long generated;
+
+	@Label("Korduvad")
+	long duplicates;
+
+	@Label("Uuendatud")
+	long reopened;
+
+	@Label("Avatud nimekirja tipp")
+	long peakFrontier;
+
+	@Label("Seisu sekundis")
+	long nodesPerSecond;
+
+	/**
+	 * Lõpetab ja salvestab sündmuse, kui see on lubatud.
+	 * @param solver Otsing.
+	 * @param heuristic Otsingu heuristika.
+	 * @param dimension Välja dimensioon.
+	 * @param statistics Otsingu loendurid.
+	 * @param moves Leitud lahendus või <code>null</code>.
+	 */
+	void report(Solver solver, Heuristic heuristic, int dimension, SearchStatistics statistics, String moves) {
+		end();
+		if (!shouldCommit())
+			return;
+		this.engine = solver.getClass().getSimpleName();
+		this.heuristic = heuristic.getClass().getSimpleName();
+		this.dimension = dimension;
+		this.length = (moves == null) ? -1 : moves.length();
+		this.expanded = statistics.getExpanded();
+		this.generated = statistics.getGenerated();
+		this.duplicates = statistics.getDuplicates();
+		this.reopened = statistics.getReopened();
+		this.peakFrontier = statistics.getPeakFrontier();
+		this.nodesPerSecond = statistics.getNodesPerSecond();
+		commit();
+	}
+}
@@ -0,0 +1,48 @@
+package solver;
+
+/**
+ * Ühine liides kõigile otsingumootoritele, et kasutajaliides saaks
+ * nende vahel valida.<br>
+ * Otsing käivitatakse {@link #run()} kaudu (nt. eraldi lõimes) ning
+ * tulemused on loetavad pärast seda, kui {@link #getMovesToSolution()}
+ * ei tagasta enam <code>null</code>-i.<br>
+ * Otsingut saab katkestada ja piirata {@link SearchControl}-i kaudu
+ * (vt. {@link #setControl(SearchControl)}); asünkroonseks käivitamiseks
+ * vt. {@link AsyncSolver}.
+ *
+ * @author Kristjan Kaitsa
+ * @version 1.0
+ *
+ */
+public interface Solver extends Runnable {
+	/**
+	 * Vt. {@link Field#backtrack()}.<br>
+	 * @return Tagastab sõnena lahenduseni jõudmiseks vajalikud käigud
+	 * või <code>null</code>-i, kui otsing pole veel lõppenud.
+	 */
+	public String getMovesToSolution();
+
+	/**
+	 * @return Tagastab lahenduse leidmiseks kulunud aja millisekundites.
+	 */
+	public long getTime();
+
+	/**
+	 * @return Tagastab lahenduse leidmiseks läbivaadatud seisundite (väljade) arvu.
+	 */
+	public long getStates();
+
+	/**
+	 * @return Tagastab otsingu loendurite hetkeseisu (loetav ka otsingu
+	 * ajal, kuid siis ei pruugi loendurid olla omavahel kooskõlas).
+	 */
+	public SearchStatistics getStatistics();
+
+	/**
+	 * Määrab otsingu juhtimise (katkestamine, piirangud, edenemise teated).
+	 * Tuleb määrata enne {@link #run()}-i; kui piirang ületatakse, viskab
+	 * {@link #run()} {@link SearchAbortedException}-i.
+	 * @param control Otsingu juhtimine.
+	 */
+	public void setControl(SearchControl control);
+}
@@ -0,0 +1,430 @@
+package solver;
+
+import java.util.Arrays;
+
+import solver.Field.Direction;
+
+/**
+ * Avatud adresseerimisega paisktabel otsingu avatud ja suletud seisude
+ * jaoks, võtmeks välja pakitud kuju (vt. {@link Field}).<br>
+ * Iga seisu kohta hoitakse kirjet paralleelsetes primitiivmassiivides:
+ * pakitud kuju, g(n), heuristiline hinnang, käik, millega seisu jõuti,
+ * ning indeks prioriteetjärjekorras (vt. {@link IndexedHeap}). Kirjed lisatakse massiivide lõppu ning nende
+ * järjekorranumbrid (<i>id</i>) ei muutu, paisktabel ise hoiab vaid
+ * numbreid. Tabeli kasvades arvutatakse seega ümber vaid
+ * <code>int</code>-massiiv, kirjeid ega objekte ei liigutata.<br>
+ * Kirje võtab 3x3 ja 4x4 väljal 17 baiti ning paisktabel 8-16 baiti
+ * seisu kohta, seega mahub 50 miljonit seisu alla 2 GB. Eelast ei hoita:
+ * tee taastatakse käikude tagasivõtmise ja otsimisega (vt. {@link #path(int)}).<br>
+ * Soovi korral hoitakse kirjed ja paisktabel väljaspool Java kuhja
+ * ({@link NodeArena}, vt. {@link #StateTable(int, int, boolean)}): kirje on
+ * siis fikseeritud laiusega (20 või 28 baiti) ning prügikoguja ei näe
+ * seisudest midagi. Mälu vabastatakse korraga {@link #release()}-ga.
+ *
+ * @author Kristjan Kaitsa
+ * @version 1.0
+ *
+ */
+public class StateTable {
+	/** Järjekorra indeks, mis tähistab juba laiendatud (suletud) seisu. */
+	public static final int CLOSED = -1;
+	/** Käik, mis tähistab algseisu (eelast pole). */
+	public static final int NO_MOVE = -1;
+	/** Suunad järjekorranumbri järgi. */
+	private static final Direction[] DIRECTIONS = Direction.values();
+	/** Paisktabeli suurim täituvus. */
+	private static final double LOAD_FACTOR = 0.5;
+	/** Paisktabeli suurim pikkus (suurim <code>int</code>-i kahe aste). */
+	private static final int MAX_SLOTS = 1 << 30;
+	/** Suurim seisude arv tabelis. */
+	public static final int MAX_STATES = (int) (MAX_SLOTS * LOAD_FACTOR);
+	/** Pakitud kuju alumiste bittide nihe kuhjavälises kirjes. */
+	private static final int LOW = 0;
+	/** Pakitud kuju ülemiste bittide nihe (vaid 5x5 puhul). */
+	private static final int HIGH = 8;
+	/** g(n) nihe pakitud kuju järel. */
+	private static final int COST = 0;
+	/** h(n) nihe pakitud kuju järel. */
+	private static final int ESTIMATE = 2;
+	/** Järjekorra indeksi nihe pakitud kuju järel. */
+	private static final int HEAP_INDEX = 4;
+	/** Käigu nihe pakitud kuju järel. */
+	private static final int MOVE = 8;
+	/** Kirje laius pakitud kuju järel (joondatud 4 baidile). */
+	private static final int TAIL_SIZE = 12;
+
+	/** Mänguvälja dimensioon. */
+	private final int dimension;
+	/** Dimensiooni käikude tabel (tee taastamiseks). */
+	private final MoveTable moveTable;
+	/** Kas seisu kodeerimiseks on vaja ka ülemist <code>long</code>-i (5x5). */
+	private final boolean wide;
+	/** Kuhjavälised kirjed või <code>null</code>, kui kirjed on massiivides. */
+	private final NodeArena records;
+	/** Pakitud kuju laius kuhjavälises kirjes (8 või 16 baiti). */
+	private final int tail;
+	/** Paisktabel: kirje number + 1 või 0, kui pesa on tühi. */
+	private int[] slots;
+	/** Kuhjaväline paisktabel (4-baidised kirjed) või <code>null</code>. */
+	private NodeArena slotArena;
+	/** Paisktabeli pikkus (kahe aste). */
+	private int slotCount;
+	/** Pakitud kujude alumised 64 bitti kirjete kaupa (ei ole kunagi 0). */
+	private long[] lows;
+	/** Pakitud kujude ülemised bitid (vaid 5x5 puhul, muidu <code>null</code>). */
+	private long[] highs;
+	/** Käikude arv algseisust ehk g(n). */
+	private short[] costs;
+	/** Heuristiline hinnang h(n). */
+	private short[] estimates;
+	/** Suuna ({@link Field.Direction}) järjekorranumber, millega seisu jõuti. */
+	private byte[] moves;
+	/** Seisu indeks prioriteetjärjekorras või {@link #CLOSED}. */
+	private int[] heapIndices;
+	/** Kirjete arv. */
+	private int size = 0;
+
+	/**
+	 * @param dimension Mänguvälja dimensioon.
+	 * @param expectedSize Oodatav seisude arv (tabel kasvab vajadusel).
+	 */
+	public StateTable(int dimension, int expectedSize) {
+		this(dimension, expectedSize, false);
+	}
+
+	/**
+	 * @param dimension Mänguvälja dimensioon.
+	 * @param expectedSize Oodatav seisude arv (tabel kasvab vajadusel).
+	 * @param offHeap Kas kirjed ja paisktabel hoida väljaspool Java kuhja
+	 * (vt. {@link NodeArena}). Sellise tabeli mälu tuleb pärast otsingut
+	 * vabastada ({@link #release()}).
+	 */
+	public StateTable(int dimension, int expectedSize, boolean offHeap) {
+		this.dimension = dimension;
+		this.moveTable = MoveTable.forDimension(dimension);
+		this.wide = dimension == Field.MAX_DIMENSION;
+		this.tail = wide ? 16 : 8;
+		int capacity = Math.min(Math.max(expectedSize, 16), MAX_STATES);
+		this.slotCount = Integer.highestOneBit((int) Math.min(capacity / LOAD_FACTOR, MAX_SLOTS / 2)) * 2;
+		if (offHeap) {
+			this.records = new NodeArena(tail + TAIL_SIZE, capacity);
+			this.slotArena = new NodeArena(4, slotCount);
+			return;
+		}
+		this.records = null;
+		this.slots = new int[slotCount];
+		this.lows = new long[capacity];
+		this.highs = wide ? new long[capacity] : null;
+		this.costs = new short[capacity];
+		this.estimates = new short[capacity];
+		this.moves = new byte[capacity];
+		this.heapIndices = new int[capacity];
+	}
+
+	/**
+	 * @return Tagastab tõeväärtuse, kas kirjed on väljaspool Java kuhja.
+	 */
+	public boolean isOffHeap() {
+		return records != null;
+	}
+
+	/**
+	 * Otsib seisu tabelist.
+	 * @param low Pakitud kuju alumised bitid.
+	 * @param high Pakitud kuju ülemised bitid.
+	 * @return Tagastab kirje numbri või -1, kui seisu tabelis pole.
+	 */
+	public int find(long low, long high) {
+		int mask = slotCount - 1;
+		if (records != null) {
+			for (int slot = Field.hash(low, high) & mask;; slot = (slot + 1) & mask) {
+				int id = slotArena.getInt(slot, 0) - 1;
+				if (id < 0)
+					return -1;
+				if ((records.getLong(id, LOW) == low) && (!wide || (records.getLong(id, HIGH) == high)))
+					return id;
+			}
+		}
+		for (int slot = Field.hash(low, high) & mask; slots[slot] != 0; slot = (slot + 1) & mask) {
+			int id = slots[slot] - 1;
+			if ((lows[id] == low) && (!wide || (highs[id] == high)))
+				return id;
+		}
+		return -1;
+	}
+
+	/**
+	 * @param field Väli.
+	 * @return Tagastab välja kirje numbri või -1, kui seda tabelis pole.
+	 */
+	public int find(Field field) {
+		return find(field.getLow(), field.getHigh());
+	}
+
+	/**
+	 * Lisab uue seisu. Eeldab, et seisu tabelis veel pole
+	 * (vt. {@link #find(long, long)}).
+	 * @param low Pakitud kuju alumised bitid.
+	 * @param high Pakitud kuju ülemised bitid.
+	 * @param cost Käikude arv algseisust.
+	 * @param estimate Seisu heuristiline hinnang.
+	 * @param move Suuna järjekorranumber, millega seisu jõuti, või {@link #NO_MOVE}.
+	 * @return Tagastab uue kirje numbri.
+	 * @throws SearchAbortedException Visatakse
+	 * ({@link SearchAbortedException.Reason#MEMORY_LIMIT}), kui tabelis on
+	 * juba {@link #MAX_STATES} seisu ning paisktabel ei saa enam kasvada.
+	 */
+	public int add(long low, long high, int cost, int estimate, int move) {
+		if (size + 1 > slotCount * LOAD_FACTOR) {
+			if (slotCount >= MAX_SLOTS)
+				throw new SearchAbortedException(SearchAbortedException.Reason.MEMORY_LIMIT, size);
+			rehash(slotCount * 2);
+		}
+		if (records != null) {
+			records.ensureCapacity(size + 1L);
+			int id = size++;
+			records.putLong(id, LOW, low);
+			if (wide)
+				records.putLong(id, HIGH, high);
+			records.putShort(id, tail + COST, (short) cost);
+			records.putShort(id, tail + ESTIMATE, (short) estimate);
+			records.putInt(id, tail + HEAP_INDEX, 0);
+			records.putByte(id, tail + MOVE, (byte) move);
+			insert(id);
+			return id;
+		}
+		if (size == lows.length)
+			grow();
+		int id = size++;
+		lows[id] = low;
+		if (wide)
+			highs[id] = high;
+		costs[id] = (short) cost;
+		estimates[id] = (short) estimate;
+		moves[id] = (byte) move;
+		heapIndices[id] = 0;
+		insert(id);
+		return id;
+	}
+
+	/**
+	 * @param field Väli, mille g(n) on {@link Field#getMoves()}.
+	 * @param move Suuna järjekorranumber, millega seisu jõuti, või {@link #NO_MOVE}.
+	 * @return Tagastab uue kirje numbri.
+	 */
+	public int add(Field field, int move) {
+		return add(field.getLow(), field.getHigh(), field.getMoves(), field.getEstimate(), move);
+	}
+
+	/**
+	 * Paigutab kirje numbri paisktabelisse.
+	 * @param id Kirje number.
+	 */
+	private void insert(int id) {
+		int mask = slotCount - 1;
+		int slot = Field.hash(getLow(id), getHigh(id)) & mask;
+		if (records != null) {
+			while (slotArena.getInt(slot, 0) != 0)
+				slot = (slot + 1) & mask;
+			slotArena.putInt(slot, 0, id + 1);
+			return;
+		}
+		while (slots[slot] != 0)
+			slot = (slot + 1) & mask;
+		slots[slot] = id + 1;
+	}
+
+	/**
+	 * Suurendab kirjete massiive poolteist korda.
+	 */
+	private void grow() {
+		int capacity = (int) Math.min(lows.length + (long) (lows.length >> 1), Integer.MAX_VALUE - 8);
+		if (capacity <= lows.length)
+			throw new IllegalStateException("Seisude tabel on täis.");
+		lows = Arrays.copyOf(lows, capacity);
+		if (wide)
+			highs = Arrays.copyOf(highs, capacity);
+		costs = Arrays.copyOf(costs, capacity);
+		estimates = Arrays.copyOf(estimates, capacity);
+		moves = Arrays.copyOf(moves, capacity);
+		heapIndices = Arrays.copyOf(heapIndices, capacity);
+	}
+
+	/**
+	 * Koostab uue paisktabeli. Kirjed jäävad paigale, seega nende
+	 * numbrid kehtivad edasi.
+	 * @param length Paisktabeli uus pikkus (kahe aste).
+	 */
+	private void rehash(int length) {
+		slotCount = length;
+		if (records != null) {
+			slotArena.release();
+			slotArena = new NodeArena(4, length);
+		} else
+			slots = new int[length];
+		for (int id = 0; id < size; id++)
+			insert(id);
+	}
+
+	/**
+	 * @return Tagastab seisude arvu tabelis.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Eemaldab kõik seisud. Massiivid jäetakse alles (nt. otsingu
+	 * taaskäivitamiseks sama mälu piires, vt. {@link Search#setMemoryLimit(long)}).
+	 */
+	public void clear() {
+		if (records != null)
+			slotArena.clear();
+		else
+			Arrays.fill(slots, 0);
+		size = 0;
+	}
+
+	/**
+	 * Vabastab kuhjavälise mälu (massiividel põhineva tabeli puhul ei tee
+	 * midagi). Pärast seda ei tohi tabelit enam kasutada.
+	 */
+	public void release() {
+		if (records == null)
+			return;
+		records.release();
+		slotArena.release();
+		size = 0;
+	}
+
+	/**
+	 * Taastab tee algseisust kirjeni, võttes salvestatud käike tagasi ja
+	 * otsides eelase tabelist. Käikude sõne eraldatakse ette ning kõik
+	 * sammud tehakse ühel abiväljal, seega on aeg lineaarne tee pikkuse
+	 * suhtes ja objekte ei looda.<br>
+	 * Kui mõne eelase g(n) on pärast kirje salvestamist vähenenud (nt.
+	 * {@link AnytimeSearch}), on tee g(n)-st lühem.
+	 * @param id Kirje number.
+	 * @return Tagastab käigud sõnena (vt. {@link Field#backtrack()}).
+	 * @throws IllegalStateException Visatakse, kui eelast tabelis pole
+	 * (nt. pärast {@link #clear()}-i).
+	 */
+	public String path(int id) {
+		char[] path = new char[getCost(id)];
+		int start = path.length;
+		Field field = new Field(dimension, getLow(id), getHigh(id), path.length, null, 0);
+		for (int move = getMove(id); move != NO_MOVE; move = getMove(id)) {
+			if (start == 0)
+				throw new IllegalStateException("Tee on pikem kui g(n).");
+			path[--start] = DIRECTIONS[move].getSymbol();
+			field.moveEmpty(moveTable.destination(field.getEmptyIndex(), (move + 2) % DIRECTIONS.length));
+			id = find(field.getLow(), field.getHigh());
+			if (id < 0)
+				throw new IllegalStateException("Seisu eelane puudub.");
+		}
+		return new String(path, start, path.length - start);
+	}
+
+	/**
+	 * @param id Kirje number.
+	 * @return Tagastab seisu pakitud kuju alumised bitid.
+	 */
+	public long getLow(int id) {
+		if (records != null)
+			return records.getLong(id, LOW);
+		return lows[id];
+	}
+
+	/**
+	 * @param id Kirje number.
+	 * @return Tagastab seisu pakitud kuju ülemised bitid (3x3 ja 4x4 puhul 0).
+	 */
+	public long getHigh(int id) {
+		if (records != null)
+			return wide ? records.getLong(id, HIGH) : 0;
+		return wide ? highs[id] : 0;
+	}
+
+	/**
+	 * @param id Kirje number.
+	 * @return Tagastab käikude arvu algseisust ehk g(n).
+	 */
+	public int getCost(int id) {
+		if (records != null)
+			return records.getShort(id, tail + COST);
+		return costs[id];
+	}
+
+	/**
+	 * @param id Kirje number.
+	 * @return Tagastab seisu heuristilise hinnangu h(n).
+	 */
+	public int getEstimate(int id) {
+		if (records != null)
+			return records.getShort(id, tail + ESTIMATE);
+		return estimates[id];
+	}
+
+	/**
+	 * @param id Kirje number.
+	 * @return Tagastab suuna järjekorranumbri, millega seisu jõuti, või {@link #NO_MOVE}.
+	 */
+	public int getMove(int id) {
+		if (records != null)
+			return records.getByte(id, tail + MOVE);
+		return moves[id];
+	}
+
+	/**
+	 * Salvestab seisuni viiva lühema tee.
+	 * @param id Kirje number.
+	 * @param cost Uus käikude arv algseisust.
+	 * @param move Suuna järjekorranumber, millega seisu jõuti.
+	 */
+	public void setPath(int id, int cost, int move) {
+		if (records != null) {
+			records.putShort(id, tail + COST, (short) cost);
+			records.putByte(id, tail + MOVE, (byte) move);
+			return;
+		}
+		costs[id] = (short) cost;
+		moves[id] = (byte) move;
+	}
+
+	/**
+	 * @param id Kirje number.
+	 * @return Tagastab seisu indeksi prioriteetjärjekorras või {@link #CLOSED}.
+	 */
+	public int getHeapIndex(int id) {
+		if (records != null)
+			return records.getInt(id, tail + HEAP_INDEX);
+		return heapIndices[id];
+	}
+
+	/**
+	 * @param id Kirje number.
+	 * @param index Seisu indeks prioriteetjärjekorras või {@link #CLOSED}.
+	 */
+	public void setHeapIndex(int id, int index) {
+		if (records != null)
+			records.putInt(id, tail + HEAP_INDEX, index);
+		else
+			heapIndices[id] = index;
+	}
+
+	/**
+	 * @param id Kirje number.
+	 * @return Tagastab tõeväärtuse, kas seis on juba laiendatud.
+	 */
+	public boolean isClosed(int id) {
+		return getHeapIndex(id) == CLOSED;
+	}
+
+	/**
+	 * Märgib seisu laiendatuks.
+	 * @param id Kirje number.
+	 */
+	public void close(int id) {
+		setHeapIndex(id, CLOSED);
+	}
+}
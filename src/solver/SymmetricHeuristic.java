@@ -0,0 +1,69 @@
+package solver;
+
+/**
+ * Heuristika, mis hindab lisaks seisule ka selle peegeldust ning soovi
+ * korral duaali (vt. {@link Symmetry}) ja võtab hinnangutest suurima.<br>
+ * Peegeldus viib naaberseisud naaberseisudeks, seega on peegelduse
+ * hinnang lubav ja järjekindel (naaberseisude hinnangud erinevad ülimalt
+ * 1 võrra), kui alusheuristika seda on - ka maksimum on siis järjekindel.
+ * Duaali hinnatakse vaid siis, kui tühi ruut on oma kohal: hinnang jääb
+ * lubavaks, kuid pole enam järjekindel, sest tühja ruudu kohalt lahkudes
+ * duaal kaob. Duaali sobib seega vaid {@link IdaStarSearch}-ile, mitte
+ * {@link Search}-ile ega {@link AnytimeSearch}-ile, mis suletud seise
+ * uuesti ei ava ja eeldavad järjekindlust. Sümmeetrilise heuristika (Manhattani kaugus, lineaarsed
+ * konfliktid, jalutuskaugus) peegeldus annab sama väärtuse, kuid
+ * mustriandmebaas, mille ruutude jaotus pole diagonaali suhtes
+ * sümmeetriline (nt. 6-6-3), annab teise väärtuse ning maksimum on
+ * tihedam alumine tõke. Samuti erineb tavaliselt duaali hinnang.<br>
+ * Iga hinnang on kuni kolm alusheuristika hinnangut, järkjärgulist
+ * uuendamist ei kasutata.
+ *
+ * @author Kristjan Kaitsa
+ * @version 1.0
+ *
+ */
+public class SymmetricHeuristic implements Heuristic {
+	/** Alusheuristika. */
+	private final Heuristic base;
+	/** Kas hinnata ka duaali. */
+	private final boolean dual;
+
+	/**
+	 * Hindab seisu ja selle peegeldust.
+	 * @param base Alusheuristika (lubav, kui tulemus peab olema lubav).
+	 */
+	public SymmetricHeuristic(Heuristic base) {
+		this(base, false);
+	}
+
+	/**
+	 * @param base Alusheuristika (lubav, kui tulemus peab olema lubav).
+	 * @param dual Kas hinnata ka duaali (tulemus pole järjekindel).
+	 */
+	public SymmetricHeuristic(Heuristic base, boolean dual) {
+		this.base = base;
+		this.dual = dual;
+	}
+
+	@Override
+	public int estimate(Board board) {
+		int result = Math.max(base.estimate(board), base.estimate(Symmetry.reflect(board)));
+		if (dual && Symmetry.isBlankHome(board))
+			result = Math.max(result, base.estimate(Symmetry.dual(board)));
+		return result;
+	}
+
+	/**
+	 * @return Tagastab alusheuristika.
+	 */
+	public Heuristic getBase() {
+		return base;
+	}
+
+	/**
+	 * @return Tagastab tõeväärtuse, kas hinnatakse ka duaali.
+	 */
+	public boolean isDual() {
+		return dual;
+	}
+}
@@ -0,0 +1,237 @@
+package solver;
+
+/**
+ * Mänguvälja sümmeetriad, mis säilitavad kauguse lõppseisust.<br>
+ * <b>Peegeldus</b> peadiagonaali suhtes: iga ruut viiakse transponeeritud
+ * kohale ning nummerdatakse ümber oma transponeeritud sihtkoha järgi.
+ * Lõppseis ({@link Field#generateSolved()}) on seega iseenda peegeldus
+ * ning iga käik Ü, P, A, V vastab peegeldatud väljal käigule V, A, P, Ü -
+ * kaugus lõppseisust on täpselt sama.<br>
+ * <b>Duaal</b> on seisu pöördpermutatsioon: kohtade ja ruutude rollid
+ * vahetatakse (ruut, mille sihtkoht on i, asub kohal p &hArr; duaalis asub
+ * kohale p kuuluv ruut kohal i). Kui tühi ruut on oma kohal, on duaali
+ * kaugus lõppseisust sama (lahenduse käigud tagurpidi järjekorras), muul
+ * juhul mitte.<br>
+ * Peegeldus ja duaal on vaated ({@link Board}): nad loevad algset välja
+ * igal pöördumisel ega kopeeri midagi, seega saab neid anda mistahes
+ * heuristikale (vt. {@link SymmetricHeuristic}).
+ *
+ * @author Kristjan Kaitsa
+ * @version 1.0
+ *
+ */
+public final class Symmetry {
+	/**
+	 * Transponeeritud indeksite tabelid dimensiooni järgi. Koostatakse
+	 * klassi laadimisel, seega on nad kõigile lõimedele nähtavad.
+	 */
+	private static final int[][] TRANSPOSED = new int[ReductionSolver.MAX_DIMENSION + 1][];
+
+	static {
+		for (int dimension = 1; dimension < TRANSPOSED.length; dimension++) {
+			int[] table = new int[dimension * dimension];
+			for (int index = 0; index < table.length; index++)
+				table[index] = (index % dimension) * dimension + index / dimension;
+			TRANSPOSED[dimension] = table;
+		}
+	}
+
+	private Symmetry() {
+	}
+
+	/**
+	 * @param dimension Mänguvälja dimensioon.
+	 * @return Tagastab tabeli, mis annab iga indeksi transponeeritud indeksi.
+	 */
+	private static int[] transposed(int dimension) {
+		return TRANSPOSED[dimension];
+	}
+
+	/**
+	 * @param board Seis.
+	 * @return Tagastab seisu peegelduse vaate.
+	 */
+	public static Board reflect(Board board) {
+		return new Reflected(board);
+	}
+
+	/**
+	 * @param board Seis.
+	 * @return Tagastab seisu duaali vaate.
+	 */
+	public static Board dual(Board board) {
+		return new Dual(board);
+	}
+
+	/**
+	 * @param board Seis.
+	 * @return Tagastab tõeväärtuse, kas tühi ruut on oma kohal (siis on
+	 * duaali kaugus lõppseisust sama).
+	 */
+	public static boolean isBlankHome(Board board) {
+		int dimension = board.getDimension();
+		return board.getPosition(0) == dimension * dimension - 1;
+	}
+
+	/**
+	 * @param field Väli.
+	 * @return Tagastab välja peegelduse sama heuristikaga.
+	 */
+	public static Field reflect(Field field) {
+		return reflect(field, true);
+	}
+
+	/**
+	 * Kanooniline kuju: väljast ja selle peegeldusest see, mille pakitud kuju
+	 * on väiksem. Väli ja tema peegeldus saavad seega sama võtme (nt.
+	 * {@link SolutionCache}-is), mis poolitab vahemälu vajaduse.<br>
+	 * Peegeldus pakitakse otse, heuristikat arvutamata: see on vaid võti
+	 * ning selle hinnang on 0.
+	 * @param field Väli.
+	 * @return Tagastab sama välja, kui see on kanooniline, muul juhul selle
+	 * peegelduse (mille lahendus tuleb {@link #reflect(String)}-iga
+	 * tagasi teisendada).
+	 */
+	public static Field canonical(Field field) {
+		Field reflected = reflect(field, false);
+		if (field.getHigh() != reflected.getHigh())
+			return (Long.compareUnsigned(field.getHigh(), reflected.getHigh()) < 0) ? field : reflected;
+		return (Long.compareUnsigned(field.getLow(), reflected.getLow()) <= 0) ? field : reflected;
+	}
+
+	/**
+	 * Pakib välja peegelduse otse pakitud kujule (vt. {@link Field#getTile(int)}).
+	 * @param field Väli.
+	 * @param estimate Kas hinnata peegeldust välja heuristikaga (muidu on
+	 * hinnang 0).
+	 * @return Tagastab välja peegelduse.
+	 */
+	private static Field reflect(Field field, boolean estimate) {
+		int dimension = field.getDimension();
+		int[] transposed = transposed(dimension);
+		int bits = Field.bitsPerTile(dimension);
+		long low = 0;
+		long high = 0;
+		for (int index = 0; index < transposed.length; index++) {
+			int tile = field.getTile(transposed[index]);
+			long value = (tile == 0) ? 0 : transposed[tile - 1] + 1;
+			int shift = index * bits;
+			if (shift < 64)
+				low |= value << shift;
+			if (shift + bits > 64)
+				high |= (shift >= 64) ? value << (shift - 64) : value >>> (64 - shift);
+		}
+		Heuristic heuristic = field.getHeuristic();
+		return new Field(dimension, low, high, 0, heuristic,
+				estimate ? heuristic.estimate(new Reflected(field)) : 0);
+	}
+
+	/**
+	 * @param moves Käigud (vt. {@link Field#backtrack()}).
+	 * @return Tagastab samad käigud peegeldatud väljal (Ü ja V ning P ja A
+	 * vahetatakse).
+	 */
+	public static String reflect(String moves) {
+		char[] reflected = moves.toCharArray();
+		for (int i = 0; i < reflected.length; i++) {
+			switch (reflected[i]) {
+			case 'Ü':
+				reflected[i] = 'V';
+				break;
+			case 'V':
+				reflected[i] = 'Ü';
+				break;
+			case 'P':
+				reflected[i] = 'A';
+				break;
+			case 'A':
+				reflected[i] = 'P';
+				break;
+			default:
+				throw new IllegalArgumentException("Tundmatu käik: " + reflected[i]);
+			}
+		}
+		return new String(reflected);
+	}
+
+	/**
+	 * Peegelduse vaade.
+	 */
+	private static final class Reflected implements Board {
+		/** Algne seis. */
+		private final Board board;
+		/** Transponeeritud indeksid. */
+		private final int[] transposed;
+
+		Reflected(Board board) {
+			this.board = board;
+			this.transposed = transposed(board.getDimension());
+		}
+
+		@Override
+		public int getDimension() {
+			return board.getDimension();
+		}
+
+		@Override
+		public int getTile(int index) {
+			int tile = board.getTile(transposed[index]);
+			return (tile == 0) ? 0 : transposed[tile - 1] + 1;
+		}
+
+		@Override
+		public int getPosition(int tile) {
+			return transposed[board.getPosition((tile == 0) ? 0 : transposed[tile - 1] + 1)];
+		}
+	}
+
+	/**
+	 * Duaali vaade. Koht p ja ruut p + 1 (viimane koht ja tühi ruut)
+	 * vastavad teineteisele.
+	 */
+	private static final class Dual implements Board {
+		/** Algne seis. */
+		private final Board board;
+		/** Mänguvälja dimensioon. */
+		private final int dimension;
+		/** Viimase koha indeks (tühja ruudu sihtkoht). */
+		private final int last;
+
+		Dual(Board board) {
+			this.board = board;
+			this.dimension = board.getDimension();
+			this.last = dimension * dimension - 1;
+		}
+
+		@Override
+		public int getDimension() {
+			return dimension;
+		}
+
+		@Override
+		public int getTile(int index) {
+			return label(board.getPosition(label(index)));
+		}
+
+		@Override
+		public int getPosition(int tile) {
+			return home(board.getTile(home(tile)));
+		}
+
+		/**
+		 * @param index Koht.
+		 * @return Tagastab ruudu, mille sihtkoht see on.
+		 */
+		private int label(int index) {
+			return (index == last) ? 0 : index + 1;
+		}
+
+		/**
+		 * @param tile Ruut.
+		 * @return Tagastab ruudu sihtkoha.
+		 */
+		private int home(int tile) {
+			return (tile == 0) ? last : tile - 1;
+		}
+	}
+}
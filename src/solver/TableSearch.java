@@ -0,0 +1,89 @@
+package solver;
+
+import java.util.concurrent.TimeUnit;
+
+import solver.Search.UnsolvableException;
+
+/**
+ * 3x3 välja lahendamine täielikust tabelist ({@link EightPuzzleTable}):
+ * otsingut ei toimu, lahendus on alati optimaalne ning leitakse
+ * mikrosekunditega (esimesel kasutamisel koostatakse tabel).<br>
+ * Läbivaadatud olekute arv on lahenduse seisude arv.
+ *
+ * @author Kristjan Kaitsa
+ * @version 1.0
+ *
+ */
+public class TableSearch implements Solver {
+	/** Algseis. */
+	private final Field initField;
+	/** Käigud, mis lahenduseni jõudmiseks teha vaja.<br>
+	 *  Täidetakse pärast lahendamist. */
+	private volatile String movesToSolution;
+	/** Otsingu juhtimine (siin vaid alguse märkimiseks). */
+	private SearchControl control = new SearchControl();
+	/** Lahenduse seisude arv (statistika). */
+	private long states = 0;
+	/** Aeg nanosekundites, mis kulus lahenduse leidmiseks. */
+	private long nanos = 0;
+
+	/**
+	 * @param initField Algseis (3x3).
+	 * @throws UnsolvableException Visatakse, kui antud väli ei ole lahendatav.
+	 * @throws IllegalArgumentException Visatakse, kui väli ei ole 3x3.
+	 */
+	public TableSearch(Field initField) throws UnsolvableException {
+		if (initField.getDimension() != EightPuzzleTable.DIMENSION)
+			throw new IllegalArgumentException("Tabel on vaid 3x3 väljadele.");
+		if (!initField.isSolvable())
+			throw new UnsolvableException();
+		this.initField = initField;
+	}
+
+	/**
+	 * Loeb lahenduse tabelist.
+	 */
+	@Override
+	public void run() {
+		long start = System.nanoTime();
+		SolveEvent event = new SolveEvent();
+		event.begin();
+		control.start();
+		String moves = null;
+		try {
+			moves = EightPuzzleTable.getInstance().solve(initField);
+			states = moves.length() + 1;
+		} finally {
+			nanos = System.nanoTime() - start;
+			SearchStatistics statistics = getStatistics();
+			event.report(this, EightPuzzleTable.getInstance(), EightPuzzleTable.DIMENSION, statistics, moves);
+			SearchMetrics.getInstance().record(statistics, moves != null);
+		}
+		movesToSolution = moves;
+	}
+
+	@Override
+	public String getMovesToSolution() {
+		return movesToSolution;
+	}
+
+	@Override
+	public long getTime() {
+		return TimeUnit.NANOSECONDS.toMillis(nanos);
+	}
+
+	@Override
+	public long getStates() {
+		return states;
+	}
+
+	@Override
+	public SearchStatistics getStatistics() {
+		return new SearchStatistics(states, states, 0, 0, 0, nanos);
+	}
+
+	@Override
+	public void setControl(SearchControl control) {
+		this.control = control;
+	}
+}
@@ -0,0 +1,250 @@
+package solver;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Jalutuskaugus (<i>walking distance</i>, Ken'ichiro Takahashi): ridade
+ * kaupa vaadatakse vaid seda, mitu igasse sihtritta kuuluvat ruutu igas
+ * reas on, ning eelnevalt arvutatud tabelist loetakse vähim vertikaalsete
+ * käikude arv, et kõik ruudud oma sihtritta jõuaksid. Sama tehakse
+ * veergudega ning tulemused liidetakse. Iga käik muudab vaid üht neist
+ * kahest seisust ühe sammu võrra, seega on heuristika lubav, kuid
+ * arvestab erinevalt Manhattani kaugusest ruutude omavahelist segamist.<br>
+ * Ridade ja veergude seisudel on sama ehitus, seega piisab ühest tabelist
+ * dimensiooni kohta. Tabel koostatakse esmakordsel vajadusel laiuti
+ * otsinguga lõppseisust ning jagatakse kõigi eksemplaride vahel. Valmis
+ * tabeli lugemine on lukuta, seega ei sega paralleelse otsingu lõimed
+ * ({@link ParallelIdaStarSearch}) üksteist.
+ *
+ * @author Kristjan Kaitsa
+ * @version 1.0
+ *
+ */
+public class WalkingDistanceHeuristic implements Heuristic {
+	/** Koostatud tabelid dimensiooni järgi. */
+	private static final AtomicReferenceArray<DistanceTable> TABLES =
+			new AtomicReferenceArray<DistanceTable>(Field.MAX_DIMENSION + 1);
+
+	@Override
+	public int estimate(Board board) {
+		DistanceTable table = getTable(board.getDimension());
+		return table.get(encode(board, true)) + table.get(encode(board, false));
+	}
+
+	/**
+	 * Vertikaalne käik muudab vaid ridade seisu, horisontaalne vaid
+	 * veergude oma. Muutunud seisu kood arvutatakse uuest seisust ning
+	 * käigueelne kood tuletatakse sellest liigutatud ruudu ja tühja ruudu
+	 * rea (veeru) vahetamisega.
+	 */
+	@Override
+	public int update(Board board, int estimate, int tile, int from, int to) {
+		int dimension = board.getDimension();
+		DistanceTable table = getTable(dimension);
+		boolean rows = (from / dimension) != (to / dimension);
+		int fromLine = rows ? from / dimension : from % dimension;
+		int toLine = rows ? to / dimension : to % dimension;
+		int goal = rows ? (tile - 1) / dimension : (tile - 1) % dimension;
+		long after = encode(board, rows);
+		long before = after - countIncrement(dimension, toLine, goal) + countIncrement(dimension, fromLine, goal)
+				- ((long) fromLine << blankShift(dimension)) + ((long) toLine << blankShift(dimension));
+		return estimate - table.get(before) + table.get(after);
+	}
+
+	/**
+	 * Kodeerib seisu ridade või veergude kaupa (vt. {@link #countIncrement}).
+	 * @param board Seis.
+	 * @param rows Kas ridade (muidu veergude) kaupa.
+	 * @return Tagastab seisu koodi.
+	 */
+	private static long encode(Board board, boolean rows) {
+		int dimension = board.getDimension();
+		long code = 0;
+		for (int index = 0; index < dimension * dimension; index++) {
+			int tile = board.getTile(index);
+			int line = rows ? index / dimension : index % dimension;
+			if (tile == 0)
+				code |= (long) line << blankShift(dimension);
+			else
+				code += countIncrement(dimension, line, rows ? (tile - 1) / dimension : (tile - 1) % dimension);
+		}
+		return code;
+	}
+
+	/**
+	 * Seis kodeeritakse ühte <code>long</code>-i: iga rea <code>i</code> ja
+	 * sihtrea <code>j &lt; n - 1</code> kohta 3-bitine loendur (viimane
+	 * sihtrida on rea summast tuletatav) ning lõpus tühja ruudu rida.
+	 * @param dimension Mänguvälja dimensioon.
+	 * @param line Rida, kus ruut asub.
+	 * @param goal Ruudu sihtrida.
+	 * @return Tagastab väärtuse, mis tuleb koodile loenduri suurendamiseks liita.
+	 */
+	private static long countIncrement(int dimension, int line, int goal) {
+		if (goal == dimension - 1)
+			return 0;
+		return 1L << (3 * (line * (dimension - 1) + goal));
+	}
+
+	/**
+	 * @param dimension Mänguvälja dimensioon.
+	 * @return Tagastab tühja ruudu rea nihke koodis.
+	 */
+	private static int blankShift(int dimension) {
+		return 3 * dimension * (dimension - 1);
+	}
+
+	/**
+	 * @param dimension Mänguvälja dimensioon.
+	 * @return Tagastab (vajadusel koostab) dimensiooni tabeli.
+	 */
+	private static DistanceTable getTable(int dimension) {
+		DistanceTable table = TABLES.get(dimension);
+		return (table != null) ? table : buildTable(dimension);
+	}
+
+	/**
+	 * Koostab dimensiooni tabeli, kui seda veel pole. Lukk hoiab ära sama
+	 * tabeli mitmekordse koostamise.
+	 * @param dimension Mänguvälja dimensioon.
+	 * @return Tagastab dimensiooni tabeli.
+	 */
+	private static synchronized DistanceTable buildTable(int dimension) {
+		DistanceTable table = TABLES.get(dimension);
+		if (table == null) {
+			table = build(dimension);
+			TABLES.set(dimension, table);
+		}
+		return table;
+	}
+
+	/**
+	 * Koostab tabeli laiuti otsinguga lõppseisust: tühi ruut liigub
+	 * naaberritta ning sealt tuleb tühja ruudu ritta üks mingisse
+	 * sihtritta kuuluv ruut.
+	 * @param dimension Mänguvälja dimensioon.
+	 * @return Tagastab koostatud tabeli.
+	 */
+	private static DistanceTable build(int dimension) {
+		DistanceTable table = new DistanceTable();
+		int[][] counts = new int[dimension][dimension];
+		for (int i = 0; i < dimension; i++)
+			counts[i][i] = (i == dimension - 1) ? dimension - 1 : dimension;
+		long goal = encode(counts, dimension - 1);
+
+		long[] current = { goal };
+		int currentSize = 1;
+		table.put(goal, 0);
+		for (int distance = 1; currentSize > 0; distance++) {
+			long[] next = new long[16];
+			int nextSize = 0;
+			for (int s = 0; s < currentSize; s++) {
+				int blank = decode(current[s], dimension, counts);
+				for (int other = blank - 1; other <= blank + 1; other += 2) {
+					if ((other < 0) || (other >= dimension)) continue;
+					for (int goalLine = 0; goalLine < dimension; goalLine++) {
+						if (counts[other][goalLine] == 0) continue;
+						counts[other][goalLine]--;
+						counts[blank][goalLine]++;
+						long child = encode(counts, other);
+						counts[blank][goalLine]--;
+						counts[other][goalLine]++;
+						if (table.get(child) >= 0) continue;
+						table.put(child, distance);
+						if (nextSize == next.length)
+							next = Arrays.copyOf(next, nextSize * 2);
+						next[nextSize++] = child;
+					}
+				}
+			}
+			current = next;
+			currentSize = nextSize;
+		}
+		return table;
+	}
+
+	/**
+	 * @param counts Loendurid: mitu sihtritta <code>j</code> kuuluvat ruutu on reas <code>i</code>.
+	 * @param blank Tühja ruudu rida.
+	 * @return Tagastab seisu koodi.
+	 */
+	private static long encode(int[][] counts, int blank) {
+		int dimension = counts.length;
+		long code = (long) blank << blankShift(dimension);
+		for (int i = 0; i < dimension; i++)
+			for (int j = 0; j < dimension - 1; j++)
+				code += counts[i][j] * countIncrement(dimension, i, j);
+		return code;
+	}
+
+	/**
+	 * @param code Seisu kood.
+	 * @param dimension Mänguvälja dimensioon.
+	 * @param counts Massiiv, kuhu loendurid kirjutatakse.
+	 * @return Tagastab tühja ruudu rea.
+	 */
+	private static int decode(long code, int dimension, int[][] counts) {
+		int blank = (int) (code >>> blankShift(dimension));
+		for (int i = 0; i < dimension; i++) {
+			int rest = (i == blank) ? dimension - 1 : dimension;
+			for (int j = 0; j < dimension - 1; j++) {
+				counts[i][j] = (int) ((code >>> (3 * (i * (dimension - 1) + j))) & 7);
+				rest -= counts[i][j];
+			}
+			counts[i][dimension - 1] = rest;
+		}
+		return blank;
+	}
+
+	/**
+	 * Avatud adresseerimisega paisktabel seisu koodist kauguseni, et
+	 * vältida <code>Long</code> ja <code>Integer</code> objekte.
+	 */
+	private static class DistanceTable {
+		private long[] keys = new long[1024];
+		private byte[] values = new byte[1024];
+		private int size = 0;
+
+		/**
+		 * @param key Seisu kood (ei ole kunagi 0).
+		 * @return Tagastab kauguse või -1, kui seisu tabelis pole.
+		 */
+		int get(long key) {
+			int mask = keys.length - 1;
+			for (int slot = hash(key) & mask; keys[slot] != 0; slot = (slot + 1) & mask)
+				if (keys[slot] == key)
+					return values[slot];
+			return -1;
+		}
+
+		void put(long key, int value) {
+			if (2 * (size + 1) > keys.length)
+				resize();
+			int mask = keys.length - 1;
+			int slot = hash(key) & mask;
+			while ((keys[slot] != 0) && (keys[slot] != key))
+				slot = (slot + 1) & mask;
+			if (keys[slot] == 0)
+				size++;
+			keys[slot] = key;
+			values[slot] = (byte) value;
+		}
+
+		private void resize() {
+			long[] oldKeys = keys;
+			byte[] oldValues = values;
+			keys = new long[oldKeys.length * 2];
+			values = new byte[oldKeys.length * 2];
+			size = 0;
+			for (int i = 0; i < oldKeys.length; i++)
+				if (oldKeys[i] != 0)
+					put(oldKeys[i], oldValues[i]);
+		}
+
+		private static int hash(long key) {
+			key *= 0x9E3779B97F4A7C15L;
+			return (int) (key ^ (key >>> 32));
+		}
+	}
+}
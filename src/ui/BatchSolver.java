@@ -0,0 +1,455 @@
+package ui;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import solver.*;
+import solver.Field.IllegalMoveException;
+import solver.Search.UnsolvableException;
+
+/**
+ * Partiitöötlus suure hulga väljade lahendamiseks.<br>
+ * Väljad loetakse failist või standardsisendist, üks väli rea kohta:
+ * kõik numbrid ridade kaupa tühikutega eraldatult (dimensioon tuletatakse
+ * numbrite arvust, nt. 16 numbrit on 4x4 väli). <code>#</code>-st rea
+ * lõpuni on kommentaar, tühjad read jäetakse vahele.<br>
+ * Väljad lahendatakse paralleelselt fikseeritud suurusega lõimekogumis.
+ * Korraga on pooleli kuni {@link #QUEUED_PER_THREAD} välja lõime kohta -
+ * kui kõik kohad on täis, jääb lugemine ootama, seega mälukasutus ei sõltu
+ * sisendi pikkusest. Iga tulemus kirjutatakse väljundisse kohe, kui see
+ * valmib (st. valmimise järjekorras), tabulaatoritega eraldatud kujul:
+ * <pre>rea nr	käigud	käikude arv	olekuid	aeg (ms)</pre>
+ * Käigud on nagu {@link Field#backtrack()}-is, kuid Ü asemel on Y (nagu
+ * {@link Mäng15}-s), et väljund oleks ASCII.
+ * Vigase või lahendamatu välja korral on teisel väljal <code>VIGA</code>
+ * ning kolmandal põhjus.<br>
+ * A* mälupiirang jagatakse lõimede vahel võrdselt (kokku pool JVM-i
+ * mälust), seega 5x5 väljad lahendatakse vajadusel lõikude kaupa.
+ * Võtmega <code>-o</code> hoiab A* seisud väljaspool Java kuhja (vt.
+ * {@link Search#setOffHeap(boolean)}).<br>
+ * Meetod <code>anytime</code> ({@link AnytimeSearch}) alustab kaaluga
+ * <code>-w</code> ja parandab lahendust kuni optimaalseni; tähtaja
+ * saabumisel (vt. {@link SolverServer}) tagastatakse parim seni leitud.<br>
+ * 3x3 väljad lahendatakse alati optimaalselt tabelist ({@link TableSearch}),
+ * meetodist ja heuristikast sõltumata. 5x5-st suuremad väljad (kuni
+ * {@link ReductionSolver#MAX_DIMENSION}) lahendatakse meetodist sõltumata
+ * ridade ja veergude kaupa ({@link ReductionSolver}, mitteoptimaalne) ning
+ * neid ei jäeta meelde; meetod <code>reduce</code> kasutab seda ka 4x4 ja
+ * 5x5 väljadel.<br>
+ * Võtmega <code>-s</code> hinnatakse ka seisu peegeldust ({@link SymmetricHeuristic}):
+ * vähem seise, tihti ka kiirem A*. Meetod <code>ida</code> hindab lisaks
+ * duaali - see hinnang pole järjekindel, seega A* seda ei kasuta.<br>
+ * Võtmega <code>-p</code> lühendatakse mitteoptimaalseid lahendusi
+ * ({@link PathOptimizer}) enne väljastamist ja meelde jätmist; tähtaja
+ * saabumisel jääb lühendamine pooleli.<br>
+ * Lahendused jäetakse meelde ({@link SolutionCache}): korduv väli (või
+ * väli mõne varasema IDA* lahenduse teelt) lahendatakse otsinguta ning
+ * tulemuse olekute arv on 0. Optimaalseks loetakse (ja kauguste hoidlasse
+ * lähevad) vaid IDA* lahendused, sest A* ja ARA* optimaalsus eeldab
+ * järjekindlat heuristikat. IDA* kasutab vahemälu kauguste hoidlat ka
+ * otsingu ajal. Võtmega <code>-c</code> loetakse vahemälu failist ning
+ * kirjutatakse lõpus tagasi.<br>
+ * Kasutamine: <code>BatchSolver [-m astar|ida|anytime|reduce] [-h manhattan|lc|wd|max|pdb]
+ * [-w kaal] [-t lõimi] [-c vahemälu fail] [-o] [-p] [-s] [fail]</code>.
+ *
+ * @author Kristjan Kaitsa
+ * @version 1.0
+ *
+ */
+public class BatchSolver {
+	/** Pooleliolevate väljade arv lõime kohta. */
+	public static final int QUEUED_PER_THREAD = 4;
+	/** Toetatud heuristikate nimed. */
+	private static final String[] HEURISTICS = { "manhattan", "lc", "wd", "max", "pdb" };
+
+	/** Otsingumeetod: <code>astar</code>, <code>ida</code>, <code>anytime</code> või <code>reduce</code>. */
+	private final String method;
+	/** Heuristika nimi. */
+	private final String heuristicName;
+	/** Kaal kaalutud A* jaoks. */
+	private final double weight;
+	/** Heuristikad dimensiooni järgi (luuakse esmakordsel vajadusel). */
+	private final Heuristic[] heuristics = new Heuristic[Field.MAX_DIMENSION + 1];
+	/** Lahenduste vahemälu. */
+	private final SolutionCache cache;
+	/** Väljund, kuhu tulemused kirjutatakse. */
+	private final PrintStream output;
+	/** A* mälupiirang ühe otsingu kohta (vt. {@link Search#setMemoryLimit(long)}). */
+	private volatile long memoryLimit = Runtime.getRuntime().maxMemory() / 2;
+	/** Kas A* seisud hoitakse väljaspool Java kuhja. */
+	private volatile boolean offHeap = false;
+	/** Kas mitteoptimaalseid lahendusi lühendatakse. */
+	private volatile boolean postOptimize = false;
+	/** Kas heuristikad hindavad ka peegeldust ja duaali. */
+	private boolean symmetric = false;
+
+	/**
+	 * @param method Otsingumeetod: <code>astar</code>, <code>ida</code>,
+	 * <code>anytime</code> või <code>reduce</code>.
+	 * @param heuristicName Heuristika nimi: <code>manhattan</code>,
+	 * <code>lc</code>, <code>wd</code>, <code>max</code> või <code>pdb</code>.
+	 * @param weight Kaal kaalutud A* jaoks.
+	 * @param cache Lahenduste vahemälu.
+	 * @param output Väljund, kuhu tulemused kirjutatakse.
+	 */
+	public BatchSolver(String method, String heuristicName, double weight, SolutionCache cache,
+			PrintStream output) {
+		if (!method.equals("astar") && !method.equals("ida") && !method.equals("anytime")
+				&& !method.equals("reduce"))
+			throw new IllegalArgumentException("Tundmatu otsingumeetod: " + method);
+		if (!Arrays.asList(HEURISTICS).contains(heuristicName))
+			throw new IllegalArgumentException("Tundmatu heuristika: " + heuristicName);
+		this.method = method;
+		this.heuristicName = heuristicName;
+		this.weight = weight;
+		this.cache = cache;
+		this.output = output;
+	}
+
+	/**
+	 * @param bytes A* mälupiirang ühe otsingu kohta (vt.
+	 * {@link Search#setMemoryLimit(long)}). {@link #solveAll(BufferedReader, int)}
+	 * määrab selle lõimede arvu järgi ise.
+	 */
+	public void setMemoryLimit(long bytes) {
+		this.memoryLimit = bytes;
+	}
+
+	/**
+	 * @param offHeap Kas A* seisud hoida väljaspool Java kuhja (vt.
+	 * {@link Search#setOffHeap(boolean)}).
+	 */
+	public void setOffHeap(boolean offHeap) {
+		this.offHeap = offHeap;
+	}
+
+	/**
+	 * @param postOptimize Kas mitteoptimaalseid lahendusi lühendada (vt.
+	 * {@link PathOptimizer}).
+	 */
+	public void setPostOptimize(boolean postOptimize) {
+		this.postOptimize = postOptimize;
+	}
+
+	/**
+	 * Määrab, kas heuristikad hindavad ka seisu peegeldust ning IDA* korral
+	 * duaali (vt. {@link SymmetricHeuristic}). Mõjub vaid enne esimest
+	 * lahendamist.
+	 * @param symmetric Kas kasutada sümmeetriaid.
+	 */
+	public synchronized void setSymmetric(boolean symmetric) {
+		this.symmetric = symmetric;
+	}
+
+	/**
+	 * Loeb ja lahendab kõik väljad ning ootab, kuni viimane tulemus on
+	 * väljastatud.
+	 * @param reader Sisend, üks väli rea kohta.
+	 * @param threads Lõimede arv.
+	 * @throws IOException Visatakse, kui sisendit ei saa lugeda.
+	 * @throws InterruptedException Visatakse, kui lõime ootamine katkestatakse.
+	 */
+	public void solveAll(BufferedReader reader, int threads) throws IOException, InterruptedException {
+		memoryLimit = Runtime.getRuntime().maxMemory() / (2 * threads);
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		final Semaphore slots = new Semaphore(threads * QUEUED_PER_THREAD);
+		try {
+			String line;
+			int lineNumber = 0;
+			while ((line = reader.readLine()) != null) {
+				lineNumber++;
+				int comment = line.indexOf('#');
+				if (comment >= 0)
+					line = line.substring(0, comment);
+				line = line.trim();
+				if (line.isEmpty())
+					continue;
+				slots.acquire();
+				final String board = line;
+				final int number = lineNumber;
+				executor.execute(new Runnable() {
+					@Override
+					public void run() {
+						try {
+							output.println(solve(Integer.toString(number), board, new SearchControl()));
+						} finally {
+							slots.release();
+						}
+					}
+				});
+			}
+		} finally {
+			executor.shutdown();
+			executor.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+		}
+	}
+
+	/**
+	 * Lahendab ühe välja. Võib kutsuda mitmest lõimest korraga (vt. ka
+	 * {@link SolverServer}).
+	 * @param number Sisendi rea number või päringu tunnus.
+	 * @param line Välja numbrid tühikutega eraldatult.
+	 * @param control Otsingu juhtimine (nt. ajapiirang).
+	 * @return Tagastab tulemuse rea.
+	 */
+	String solve(String number, String line, SearchControl control) {
+		try {
+			int[][] values = parse(line);
+			if (values.length == EightPuzzleTable.DIMENSION) {
+				Solver solver = new TableSearch(new Field(values));
+				solver.setControl(control);
+				solver.run();
+				return format(number, solver.getMovesToSolution(), solver.getStates(), solver.getTime());
+			}
+			if ((values.length > Field.MAX_DIMENSION) || method.equals("reduce")) {
+				Solver solver = new ReductionSolver(values, ReductionSolver.DEFAULT_HANDOFF,
+						createHeuristic(ReductionSolver.DEFAULT_HANDOFF));
+				solver.setControl(control);
+				solver.run();
+				String moves = shorten(values, solver.getMovesToSolution(), control);
+				return format(number, moves, solver.getStates(), solver.getTime());
+			}
+			Heuristic heuristic = createHeuristic(values.length);
+			Field field = new Field(values, heuristic);
+			boolean optimal = method.equals("ida");
+			long start = System.nanoTime();
+			String moves = cache.get(field, optimal);
+			if (moves != null)
+				return format(number, moves, 0, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+			Solver solver;
+			if (optimal) {
+				IdaStarSearch search = new IdaStarSearch(field);
+				search.setDistanceStore(cache.getDistanceStore());
+				solver = search;
+			} else if (method.equals("anytime")) {
+				AnytimeSearch anytime = new AnytimeSearch(field, Math.max(weight, 1), AnytimeSearch.DEFAULT_STEP);
+				anytime.setMemoryLimit(memoryLimit);
+				solver = anytime;
+			} else {
+				Search search = new Search(field, heuristic, weight);
+				search.setMemoryLimit(memoryLimit);
+				search.setOffHeap(offHeap);
+				solver = search;
+			}
+			solver.setControl(control);
+			solver.run();
+			moves = solver.getMovesToSolution();
+			// ARA* tõke 1 eeldab järjekindlat heuristikat, seega on tõestatult
+			// optimaalsed (ja kauguste hoidlasse sobivad) vaid IDA* lahendused
+			if (!optimal)
+				moves = shorten(values, moves, control);
+			cache.put(field, moves, optimal);
+			return format(number, moves, solver.getStates(), solver.getTime());
+		} catch (UnsolvableException e) {
+			return number + "\tVIGA\tlahendamatu";
+		} catch (IllegalArgumentException e) {
+			return number + "\tVIGA\t" + e.getMessage();
+		} catch (SearchAbortedException e) {
+			if (e.getReason() == SearchAbortedException.Reason.TIMEOUT)
+				return number + "\tVIGA\tt2htaeg";
+			if (e.getReason() == SearchAbortedException.Reason.CANCELLED)
+				return number + "\tVIGA\tkatkestatud";
+			return number + "\tVIGA\tm2lupiirang";
+		} catch (OutOfMemoryError e) {
+			return number + "\tVIGA\tm2lu sai otsa";
+		}
+	}
+
+	/**
+	 * Lühendab lahenduse, kui see on sisse lülitatud.
+	 * @param values Algseis.
+	 * @param moves Lahenduse käigud.
+	 * @param control Otsingu juhtimine (tähtaeg).
+	 * @return Tagastab lühendatud (või samad) käigud.
+	 */
+	private String shorten(int[][] values, String moves, SearchControl control) {
+		if (!postOptimize)
+			return moves;
+		PathOptimizer optimizer = new PathOptimizer(values);
+		optimizer.setControl(control);
+		try {
+			return optimizer.optimize(moves);
+		} catch (IllegalMoveException e) {
+			// otsingu lahendus püsib alati väljal
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * @param number Sisendi rea number või päringu tunnus.
+	 * @param moves Lahenduse käigud.
+	 * @param states Läbivaadatud olekute arv.
+	 * @param time Lahendamise aeg millisekundites.
+	 * @return Tagastab tulemuse rea.
+	 */
+	private static String format(String number, String moves, long states, long time) {
+		return number + "\t" + moves.replace('Ü', 'Y') + "\t" + moves.length() + "\t" + states + "\t" + time;
+	}
+
+	/**
+	 * Teisendab rea mänguväljaks ning kontrollib, et iga number 0 kuni
+	 * n*n-1 esineb täpselt korra.
+	 * @param line Välja numbrid tühikutega eraldatult.
+	 * @return Tagastab mänguvälja.
+	 * @throws IllegalArgumentException Visatakse vigase rea korral.
+	 */
+	static int[][] parse(String line) {
+		String[] numbers = line.trim().split("[\\s,]+");
+		int n = (int) Math.round(Math.sqrt(numbers.length));
+		if ((n * n != numbers.length) || (n < 3) || (n > ReductionSolver.MAX_DIMENSION))
+			throw new IllegalArgumentException("vale arv numbreid (" + numbers.length + ")");
+		int[][] values = new int[n][n];
+		boolean[] used = new boolean[n * n];
+		for (int i = 0; i < numbers.length; i++) {
+			int number;
+			try {
+				number = Integer.parseInt(numbers[i]);
+			} catch (NumberFormatException e) {
+				throw new IllegalArgumentException("vigane number " + numbers[i]);
+			}
+			if ((number < 0) || (number >= n * n) || used[number])
+				throw new IllegalArgumentException("illegaalne v6i korduv number " + number);
+			used[number] = true;
+			values[i / n][i % n] = number;
+		}
+		return values;
+	}
+
+	/**
+	 * Loob (või tagastab juba loodud) dimensiooni heuristika. Heuristikad
+	 * on lõimede vahel jagatud.
+	 * @param dimension Mänguvälja dimensioon.
+	 * @return Tagastab heuristika.
+	 */
+	private synchronized Heuristic createHeuristic(int dimension) {
+		if (heuristics[dimension] != null)
+			return heuristics[dimension];
+		Heuristic heuristic;
+		if (heuristicName.equals("manhattan"))
+			heuristic = new ManhattanHeuristic();
+		else if (heuristicName.equals("lc"))
+			heuristic = new LinearConflictHeuristic();
+		else if (heuristicName.equals("wd"))
+			heuristic = new WalkingDistanceHeuristic();
+		else if (heuristicName.equals("max"))
+			heuristic = CombinedHeuristic.max(new LinearConflictHeuristic(), new WalkingDistanceHeuristic());
+		else
+			heuristic = openDatabase(dimension);
+		if (symmetric)
+			heuristic = new SymmetricHeuristic(heuristic, method.equals("ida"));
+		heuristics[dimension] = heuristic;
+		return heuristic;
+	}
+
+	/**
+	 * Avab dimensiooni mustriandmebaasi (3x3 ja 4x4 puhul koostatakse
+	 * puuduv andmebaas). Kui andmebaasi pole, kasutatakse lineaarseid
+	 * konflikte.
+	 * @param dimension Mänguvälja dimensioon.
+	 * @return Tagastab heuristika.
+	 */
+	private static Heuristic openDatabase(int dimension) {
+		String partition = (dimension == 3) ? "44" : (dimension == 4) ? "663" : "6666";
+		File directory = AdditivePatternDatabase.DEFAULT_DIRECTORY;
+		try {
+			if ((dimension == 3) || (dimension == 4)
+					|| ((dimension == 5) && AdditivePatternDatabase.exists(directory, dimension, partition)))
+				return AdditivePatternDatabase.open(directory, dimension, partition);
+		} catch (IOException e) {
+			System.err.println("Mustriandmebaasi avamine eba6nnestus: " + e.getMessage());
+		}
+		return new LinearConflictHeuristic();
+	}
+
+	/**
+	 * @param args Vt. klassi kirjeldust.
+	 */
+	public static void main(String[] args) {
+		String method = "astar";
+		String heuristic = "lc";
+		double weight = Search.DEFAULT_WEIGHT;
+		int threads = Runtime.getRuntime().availableProcessors();
+		String file = null;
+		String cacheFile = null;
+		boolean offHeap = false;
+		boolean postOptimize = false;
+		boolean symmetric = false;
+		try {
+			for (int i = 0; i < args.length; i++) {
+				if (args[i].equals("-m"))
+					method = args[++i];
+				else if (args[i].equals("-h"))
+					heuristic = args[++i];
+				else if (args[i].equals("-w"))
+					weight = Double.parseDouble(args[++i]);
+				else if (args[i].equals("-t"))
+					threads = Integer.parseInt(args[++i]);
+				else if (args[i].equals("-c"))
+					cacheFile = args[++i];
+				else if (args[i].equals("-o"))
+					offHeap = true;
+				else if (args[i].equals("-p"))
+					postOptimize = true;
+				else if (args[i].equals("-s"))
+					symmetric = true;
+				else
+					file = args[i];
+			}
+		} catch (RuntimeException e) {
+			usage();
+		}
+		if (threads < 1)
+			usage();
+
+		PrintStream output = new PrintStream(System.out, true);
+		SolutionCache cache = new SolutionCache();
+		if ((cacheFile != null) && new File(cacheFile).exists()) {
+			try {
+				cache.load(new File(cacheFile));
+			} catch (IOException e) {
+				System.err.println("Vahem2lu lugemine eba6nnestus: " + e.getMessage());
+			}
+		}
+		try {
+			BatchSolver solver = new BatchSolver(method, heuristic, weight, cache, output);
+			solver.setOffHeap(offHeap);
+			solver.setPostOptimize(postOptimize);
+			solver.setSymmetric(symmetric);
+			BufferedReader reader = new BufferedReader(new InputStreamReader(
+					((file == null) || file.equals("-")) ? System.in : new FileInputStream(file),
+					StandardCharsets.UTF_8));
+			try {
+				solver.solveAll(reader, threads);
+			} finally {
+				reader.close();
+			}
+			System.err.println("Vahem2lu: tabamusi " + cache.getHits() + ", m66daminekuid " + cache.getMisses());
+			if (cacheFile != null)
+				cache.save(new File(cacheFile));
+		} catch (IllegalArgumentException e) {
+			System.err.println(e.getMessage());
+			usage();
+		} catch (IOException e) {
+			System.err.println("Sisendi lugemine v6i vahem2lu kirjutamine eba6nnestus: " + e.getMessage());
+			System.exit(-1);
+		} catch (InterruptedException e) {
+			System.exit(-1);
+		}
+	}
+
+	private static void usage() {
+		System.err.println("Kasutamine: BatchSolver [-m astar|ida|anytime|reduce] [-h manhattan|lc|wd|max|pdb] "
+				+ "[-w kaal] [-t l6imi] [-c vahem2lu] [-o] [-p] [-s] [fail]");
+		System.exit(-1);
+	}
+}
@@ -0,0 +1,121 @@
+package ui;
+
+import java.io.File;
+import java.io.IOException;
+
+import solver.ExternalBreadthFirstSearch;
+import solver.Field;
+import solver.SearchAbortedException;
+import solver.SearchControl;
+
+/**
+ * Kauguste histogramm: läbib olekuruumi lõppseisust (või antud seisust)
+ * kettal hoitava laiuti otsinguga ({@link ExternalBreadthFirstSearch})
+ * ning väljastab iga valminud kihi kohta rea
+ * <pre>kaugus	seisude arv</pre>
+ * Otsing on jätkatav: katkestatud otsing jätkub sama kataloogiga uuesti
+ * käivitades.<br>
+ * Kasutamine: <code>DistanceHistogram [-d dimensioon] [-s "algseis"]
+ * [-l suurim kaugus] [-m puhver MB] [-k] kataloog</code>. Algseis on
+ * numbrid ridade kaupa tühikutega eraldatult (nagu
+ * {@link BatchSolver}-is), <code>-k</code> jätab kõik kihid kettale.
+ *
+ * @author Kristjan Kaitsa
+ * @version 1.0
+ *
+ */
+public class DistanceHistogram {
+	/**
+	 * @param args Vt. klassi kirjeldust.
+	 */
+	public static void main(String[] args) {
+		int dimension = 4;
+		String start = null;
+		int maxDepth = Integer.MAX_VALUE;
+		long memory = 0;
+		boolean keepLayers = false;
+		String directory = null;
+		try {
+			for (int i = 0; i < args.length; i++) {
+				if (args[i].equals("-d"))
+					dimension = Integer.parseInt(args[++i]);
+				else if (args[i].equals("-s"))
+					start = args[++i];
+				else if (args[i].equals("-l"))
+					maxDepth = Integer.parseInt(args[++i]);
+				else if (args[i].equals("-m"))
+					memory = Long.parseLong(args[++i]) << 20;
+				else if (args[i].equals("-k"))
+					keepLayers = true;
+				else
+					directory = args[i];
+			}
+		} catch (RuntimeException e) {
+			usage();
+		}
+		if ((directory == null) || (dimension < 2))
+			usage();
+
+		try {
+			Field field = new Field((start == null) ? solved(dimension) : parse(start));
+			if (!field.isSolvable())
+				throw new IllegalArgumentException("Algseis ei ole lahendatav.");
+			ExternalBreadthFirstSearch search = new ExternalBreadthFirstSearch(new File(directory), field);
+			search.setMaxDepth(maxDepth);
+			search.setKeepLayers(keepLayers);
+			if (memory > 0)
+				search.setMemoryLimit(memory);
+			SearchControl control = new SearchControl();
+			control.setProgressListener(progress -> System.err.print('*'), 10000);
+			search.setControl(control);
+			search.setLayerListener((depth, count) -> System.out.println(depth + "\t" + count));
+			long[] histogram = search.run();
+			long total = 0;
+			for (long count : histogram)
+				total += count;
+			System.err.println("Seise kokku: " + total);
+		} catch (IllegalArgumentException e) {
+			System.err.println(e.getMessage());
+			usage();
+		} catch (SearchAbortedException e) {
+			System.err.println(e.getMessage());
+			System.exit(-1);
+		} catch (IOException e) {
+			System.err.println("Kettal otsing eba6nnestus: " + e.getMessage());
+			System.exit(-1);
+		}
+	}
+
+	/**
+	 * @param dimension Mänguvälja dimensioon.
+	 * @return Tagastab lõppseisu massiivi.
+	 */
+	private static int[][] solved(int dimension) {
+		int[][] values = new int[dimension][dimension];
+		for (int index = 0; index < dimension * dimension - 1; index++)
+			values[index / dimension][index % dimension] = index + 1;
+		return values;
+	}
+
+	/**
+	 * @param line Välja numbrid tühikutega eraldatult.
+	 * @return Tagastab välja massiivi.
+	 * @throws IllegalArgumentException Visatakse, kui numbrite arv pole ruut.
+	 */
+	private static int[][] parse(String line) {
+		String[] numbers = line.trim().split("\\s+");
+		int dimension = (int) Math.round(Math.sqrt(numbers.length));
+		if (dimension * dimension != numbers.length)
+			throw new IllegalArgumentException("Numbrite arv ei ole ruut: " + numbers.length);
+		int[][] values = new int[dimension][dimension];
+		for (int index = 0; index < numbers.length; index++)
+			values[index / dimension][index % dimension] = Integer.parseInt(numbers[index]);
+		return values;
+	}
+
+	private static void usage() {
+		System.err.println("Kasutamine: DistanceHistogram [-d dimensioon] [-s \"algseis\"] "
+				+ "[-l suurim kaugus] [-m puhver MB] [-k] kataloog");
+		System.exit(-1);
+	}
+}
@@ -1,12 +1,14 @@
 package ui;
 
 import java.io.BufferedWriter;
+import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.util.HashSet;
 import java.util.InputMismatchException;
 import java.util.Scanner;
 import java.util.Set;
+import java.util.concurrent.CompletionException;
 
 import solver.*;
 import solver.Field.Direction;
@@ -14,21 +16,25 @@ import solver.Field.IllegalMoveException;
 import solver.Search.UnsolvableException;
 
 /**
- * 15-mngu (vi 3x3 vi 5x5) lahendaja.<br>
- * Tpsemalt algoritmist klassides {@link Field} ja {@link Search}.<br>
- * Antud klass sisaldab lihtsat tekstiphist liides lahendatavate 
- * mnguvljade sisestamiseks.
+ * 15-mängu (või 3x3, 5x5 ja suurema) lahendaja.<br>
+ * Täpsemalt algoritmist klassides {@link Field}, {@link Search},
+ * {@link IdaStarSearch}, {@link ParallelIdaStarSearch} ja
+ * {@link BidirectionalSearch}; 3x3 väli
+ * lahendatakse alati optimaalselt tabelist ({@link TableSearch}) ning
+ * 5x5-st suurem ridade ja veergude kaupa ({@link ReductionSolver}).<br>
+ * Antud klass sisaldab lihtsat tekstipõhist liides lahendatavate 
+ * mänguväljade sisestamiseks.
  * 
  * @author Kristjan Kaitsa
  * @version 1.0
  * 
  */
-public class Mng15 {
+public class Mäng15 {
 	private static Scanner input = new Scanner(System.in);
 	
 	/**
-	 * <code>main</code>-meetod, mis asub kasutajalt lahendatava mnguvlja
-	 * primist ning seejrel vljastab lahenduse.
+	 * <code>main</code>-meetod, mis asub kasutajalt lahendatava mänguvälja
+	 * pärimist ning seejärel väljastab lahenduse.
 	 * @param args Sisendparameetreid ei kasutata.
 	 */
 	public static void main(String[] args) {
@@ -37,13 +43,13 @@ public class M
 		//int[][] test = { {1, 2, 3, 4}, {5, 6, 7, 8}, {9, 10, 11, 12}, {13, 0, 14, 15} };
 		//int[][] test = { {5, 9, 6, 3}, {11, 14, 7, 2}, {12, 10, 4, 8}, {15, 0, 1, 13} };
 		
-		// Pis
+		// Päis
 		System.out.println("15-m2ngu lahendaja");
 		System.out.println("Autor: Kristjan Kaitsa");
 		System.out.println("------------------\n");
 		
-		// Mnguvlja mde
-		System.out.print("Sisestage m2nguv2lja m66de [3,4,5]: ");
+		// Mänguvälja mõõde
+		System.out.print("Sisestage m2nguv2lja m66de [3-" + ReductionSolver.MAX_DIMENSION + "]: ");
 		int n = 0;
 		try {
 			n = input.nextInt();
@@ -51,14 +57,14 @@ public class M
 			System.err.println("Vigane sisend, sisestage ainult numbreid.");
 			System.exit(-1);
 		}
-		if (n < 3 || n > 5) {
-			System.err.println("Sobimatu m66de: lubatud 3, 4 vi 5.");
+		if (n < 3 || n > ReductionSolver.MAX_DIMENSION) {
+			System.err.println("Sobimatu m66de: lubatud 3 kuni " + ReductionSolver.MAX_DIMENSION + ".");
 			System.exit(-1);
 		}
 		
 		input.nextLine(); // Puhastame buffri
 		
-		// Mnguvlja kasutajalt "kogumine"
+		// Mänguvälja kasutajalt "kogumine"
 		System.out.println("\nSisestage m2nguv2li rida-rea kaupa.");
 		System.out.println("Iga veeru j2rel vajutage tyhikut ning rea j2rel reavahetust.");
 		System.out.println("Tyhja ruudu kohale sisestage 0.");
@@ -66,49 +72,185 @@ public class M
 		
 		int[][] fieldToSolve = getInputField(n);
 		
+		// 3x3 väli lahendatakse tabelist, meetodit ja heuristikat pole vaja valida
+		if (n == EightPuzzleTable.DIMENSION) {
+			System.out.println("\n3x3 v2li lahendatakse eelarvutatud tabelist (optimaalne).");
+			Solver pathFinder = null;
+			try {
+				pathFinder = new TableSearch(new Field(fieldToSolve));
+			} catch (UnsolvableException e1) {
+				System.err.println("Antud v2li ei ole lahendatav!");
+				System.exit(-1);
+			}
+			solve(pathFinder, fieldToSolve);
+			return;
+		}
+		
+		// 5x5-st suurem väli lahendatakse ridade ja veergude kaupa
+		if (n > Field.MAX_DIMENSION) {
+			System.out.println("\nSuur v2li lahendatakse ridade ja veergude kaupa (lahendus ei pruugi olla lyhim).");
+			Solver pathFinder = null;
+			try {
+				pathFinder = new ReductionSolver(fieldToSolve);
+			} catch (UnsolvableException e1) {
+				System.err.println("Antud v2li ei ole lahendatav!");
+				System.exit(-1);
+			}
+			solve(pathFinder, fieldToSolve);
+			return;
+		}
+		
+		// Otsingumeetod
+		System.out.println("\nOtsingumeetodid:");
+		System.out.println("1 - kaalutud A* (kiire, lahendus ei pruugi olla lyhim)");
+		System.out.println("2 - IDA* (optimaalne lahendus, v6ib kaua aega v6tta)");
+		System.out.println("3 - paralleelne IDA* (optimaalne, kasutab k6iki protsessoreid)");
+		System.out.println("4 - kahesuunaline A* (optimaalne, otsib ka lahendusest algseisu poole)");
+		System.out.print("Valige otsingumeetod [1-4]: ");
+		int method = readChoice(1, 4, "Sobimatu otsingumeetod: lubatud 1 kuni 4.");
+		
+		// Heuristika
+		System.out.println("\nHeuristikad:");
+		System.out.println("1 - Manhattani kaugus");
+		System.out.println("2 - Manhattani kaugus + lineaarsed konfliktid");
+		System.out.println("3 - jalutuskaugus (walking distance)");
+		System.out.println("4 - suurim lineaarsete konfliktide ja jalutuskauguse seast");
+		System.out.println("5 - mustriandmebaas");
+		System.out.print("Valige heuristika [1-5]: ");
+		Heuristic heuristic = getHeuristic(n, readChoice(1, 5, "Sobimatu heuristika: lubatud 1 kuni 5."));
+		
 		// Otsing
-		Search pathFinder = null;
+		Solver pathFinder = null;
 		try {
-			pathFinder = new Search(new Field(fieldToSolve));
+			if (method == 4)
+				pathFinder = new BidirectionalSearch(new Field(fieldToSolve, heuristic));
+			else if (method == 3)
+				pathFinder = new ParallelIdaStarSearch(new Field(fieldToSolve, heuristic));
+			else if (method == 2)
+				pathFinder = new IdaStarSearch(new Field(fieldToSolve, heuristic));
+			else
+				pathFinder = new Search(new Field(fieldToSolve, heuristic));
 		} catch (UnsolvableException e1) {
 			System.err.println("Antud v2li ei ole lahendatav!");
 			System.exit(-1);
 		}
 						
-		(new Thread(pathFinder)).start();
-		
+		solve(pathFinder, fieldToSolve);
+	}
+	
+	/**
+	 * Lahendab välja ning väljastab tulemuse konsooli ja faili.
+	 * @param pathFinder Otsing.
+	 * @param fieldToSolve Lahendatav väli.
+	 */
+	private static void solve(Solver pathFinder, int[][] fieldToSolve) {
 		System.out.print("\nPalun oodake, lahendan: ");
-		while (pathFinder.getMovesToSolution() == null) {
-			System.out.print('*');
-			try {
-				Thread.sleep(500);
-			} catch (InterruptedException e) { }
+		SearchControl control = new SearchControl();
+		control.setProgressListener(progress -> System.out.print('*'), 500);
+		try {
+			(new AsyncSolver()).solve(pathFinder, control).join();
+		} catch (CompletionException e) {
+			if (!(e.getCause() instanceof SearchAbortedException))
+				throw e;
+			System.out.println("\nOtsing katkestati: " + e.getCause().getMessage());
+			System.exit(-1);
 		}
 		
-		// Tulemuse vljastamine
+		// Tulemuse väljastamine
 		System.out.println();
-		System.out.println("\nTeha liigutused*: " + pathFinder.getMovesToSolution().replace('', 'Y'));
+		System.out.println("\nTeha liigutused*: " + pathFinder.getMovesToSolution().replace('Ü', 'Y'));
 		System.out.println("K2ike: " + pathFinder.getMovesToSolution().length());
 		System.out.println("Aega kulus lahendamiseks: " + pathFinder.getTime() + " ms");
 		System.out.println("Vaadati l2bi olekuid: " + pathFinder.getStates());
+		System.out.println("Statistika: " + pathFinder.getStatistics());
 		System.out.println("\n* liigutatakse tyhja ruutu m2rgitud suunas: ");
 		System.out.println("Y - ylesse");
 		System.out.println("P - paremale");
 		System.out.println("A - alla");
 		System.out.println("V - vasakule");
 		
-		outputToFile(new Field(fieldToSolve), pathFinder.getMovesToSolution(), "lahendus.txt" );
-		
-		
+		if (fieldToSolve.length <= Field.MAX_DIMENSION)
+			outputToFile(new Field(fieldToSolve), pathFinder.getMovesToSolution(), "lahendus.txt" );
+	}
+	
+	/**
+	 * Loeb kasutajalt valiku numbri. Vigase sisendi korral väljutakse.
+	 * @param min Vähim lubatud number.
+	 * @param max Suurim lubatud number.
+	 * @param error Veateade, kui number ei jää lubatud vahemikku.
+	 * @return Tagastab valitud numbri.
+	 */
+	private static int readChoice(int min, int max, String error) {
+		int choice = 0;
+		try {
+			choice = input.nextInt();
+		} catch (InputMismatchException e) {
+			System.err.println("Vigane sisend, sisestage ainult numbreid.");
+			System.exit(-1);
+		}
+		if (choice < min || choice > max) {
+			System.err.println(error);
+			System.exit(-1);
+		}
+		return choice;
+	}
+	
+	/**
+	 * Loob kasutaja valitud heuristika.
+	 * @param n Mänguvälja dimensioon.
+	 * @param choice Valiku number.
+	 * @return Tagastab heuristika.
+	 */
+	private static Heuristic getHeuristic(int n, int choice) {
+		switch (choice) {
+		case 2:
+			return new LinearConflictHeuristic();
+		case 3:
+			return new WalkingDistanceHeuristic();
+		case 4:
+			return CombinedHeuristic.max(new LinearConflictHeuristic(), new WalkingDistanceHeuristic());
+		case 5:
+			AdditivePatternDatabase database = openDatabase(n);
+			if (database != null)
+				return database;
+			System.out.println("Mustriandmebaasi pole, kasutan lineaarseid konflikte.");
+			return new LinearConflictHeuristic();
+		default:
+			return new ManhattanHeuristic();
+		}
+	}
+	
+	/**
+	 * Avab mustriandmebaasi. 3x3 ja 4x4 puhul koostatakse
+	 * puuduv andmebaas kohe, 5x5 andmebaasi kasutatakse vaid siis, kui
+	 * see on eelnevalt koostatud (vt. {@link AdditivePatternDatabase#main}).
+	 * @param n Mänguvälja dimensioon.
+	 * @return Tagastab andmebaasi või <code>null</code>-i, kui seda pole
+	 * (siis kasutatakse lineaarseid konflikte).
+	 */
+	private static AdditivePatternDatabase openDatabase(int n) {
+		String partition = (n == 3) ? "44" : (n == 4) ? "663" : "6666";
+		File directory = AdditivePatternDatabase.DEFAULT_DIRECTORY;
+		boolean exists = AdditivePatternDatabase.exists(directory, n, partition);
+		if (!exists && (n == 5))
+			return null;
+		try {
+			if (!exists)
+				System.out.println("\nKoostan mustriandmebaasi (ainult esimesel korral, v6ib v6tta minuti)...");
+			return AdditivePatternDatabase.open(directory, n, partition);
+		} catch (IOException e) {
+			System.err.println("Mustriandmebaasi avamine eba6nnestus: " + e.getMessage());
+			return null;
+		}
 	}
 	
 	/**
-	 * Vtab kasutajalt parameetris mratud dimensiooniga
-	 * mnguvlja ning valideerib selle esmast korrektsust
+	 * Võtab kasutajalt parameetris määratud dimensiooniga
+	 * mänguvälja ning valideerib selle esmast korrektsust
 	 * jooksvalt.<br>
-	 * Vigade avastamiseks vljutakse.
-	 * @param n Mnguvlja dimensioon (15-mngu ehk 4x4 puhul 4)
-	 * @return Tagastab kahemtmelise massiivi mnguvlja numbritega.
+	 * Vigade avastamiseks väljutakse.
+	 * @param n Mänguvälja dimensioon (15-mängu ehk 4x4 puhul 4)
+	 * @return Tagastab kahemõõtmelise massiivi mänguvälja numbritega.
 	 */
 	private static int[][] getInputField(int n) {
 		Set<Integer> used = new HashSet<Integer>();
@@ -130,7 +272,7 @@ public class M
 					System.exit(-1);
 				}
 				if (intNumber < 0 || intNumber >= n*n || used.contains(intNumber)) {
-					System.err.println("Rida sisaldab illegaalset vi korduvat arvu.");
+					System.err.println("Rida sisaldab illegaalset või korduvat arvu.");
 					System.exit(-1);
 				}
 				inputData[i][j++] = intNumber;
@@ -144,7 +286,7 @@ public class M
 		try {
 			FileWriter fstream = new FileWriter(filename);
 			BufferedWriter out = new BufferedWriter(fstream);
-			out.write("Lahendus kikhaaval:");
+			out.write("Lahendus käikhaaval:");
 			out.newLine();
 			out.write("Algseis:");
 			out.newLine();
@@ -154,8 +296,8 @@ public class M
 			for (int i = 0; i < moves.length(); i++) {
 				try {
 					switch (moves.charAt(i)) {
-					case '':
-						out.write("lesse");
+					case 'Ü':
+						out.write("Ülesse");
 						field = new Field(field, Direction.NORTH);
 						break;
 					case 'P':
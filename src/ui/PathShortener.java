@@ -0,0 +1,117 @@
+package ui;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import solver.Field.IllegalMoveException;
+import solver.PathOptimizer;
+
+/**
+ * Salvestatud lahenduste lühendamine ({@link PathOptimizer}).<br>
+ * Iga sisendi rida on algseisu numbrid (nagu {@link BatchSolver}-is)
+ * ning viimase väljana käigud (Ü või Y, P, A, V). <code>#</code>-st rea
+ * lõpuni on kommentaar, tühjad read jäetakse vahele. Iga rea kohta
+ * väljastatakse tabulaatoritega eraldatult
+ * <pre>rea nr	käigud	käikude arv	algne käikude arv	aeg (ms)</pre>
+ * kus käikudes on Ü asemel Y. Vigase rea korral on teisel väljal
+ * <code>VIGA</code> ning kolmandal põhjus.<br>
+ * Kasutamine: <code>PathShortener [-l akna pikkus] [-n seisude piir]
+ * [-t lõimi] [fail]</code>. Lõimed lahendavad sama tee aknaid paralleelselt.
+ *
+ * @author Kristjan Kaitsa
+ * @version 1.0
+ *
+ */
+public class PathShortener {
+	/**
+	 * @param args Vt. klassi kirjeldust.
+	 */
+	public static void main(String[] args) {
+		int window = PathOptimizer.DEFAULT_WINDOW;
+		long nodeLimit = PathOptimizer.DEFAULT_NODE_LIMIT;
+		int threads = Runtime.getRuntime().availableProcessors();
+		String file = null;
+		try {
+			for (int i = 0; i < args.length; i++) {
+				if (args[i].equals("-l"))
+					window = Integer.parseInt(args[++i]);
+				else if (args[i].equals("-n"))
+					nodeLimit = Long.parseLong(args[++i]);
+				else if (args[i].equals("-t"))
+					threads = Integer.parseInt(args[++i]);
+				else
+					file = args[i];
+			}
+		} catch (RuntimeException e) {
+			usage();
+		}
+		if ((window < 2) || (threads < 1))
+			usage();
+
+		try {
+			BufferedReader reader = new BufferedReader(new InputStreamReader(
+					((file == null) || file.equals("-")) ? System.in : new FileInputStream(file),
+					StandardCharsets.UTF_8));
+			try {
+				String line;
+				int lineNumber = 0;
+				while ((line = reader.readLine()) != null) {
+					lineNumber++;
+					int comment = line.indexOf('#');
+					if (comment >= 0)
+						line = line.substring(0, comment);
+					line = line.trim();
+					if (line.isEmpty())
+						continue;
+					System.out.println(shorten(lineNumber, line, window, nodeLimit, threads));
+				}
+			} finally {
+				reader.close();
+			}
+		} catch (IOException e) {
+			System.err.println("Sisendi lugemine eba6nnestus: " + e.getMessage());
+			System.exit(-1);
+		}
+	}
+
+	/**
+	 * Lühendab ühe rea lahenduse.
+	 * @param number Sisendi rea number.
+	 * @param line Algseisu numbrid ja käigud.
+	 * @param window Akna pikkus.
+	 * @param nodeLimit Ühe akna otsingu seisude piir.
+	 * @param threads Lõimede arv.
+	 * @return Tagastab tulemuse rea.
+	 */
+	private static String shorten(int number, String line, int window, long nodeLimit, int threads) {
+		String[] tokens = line.split("[\\s,]+");
+		String moves = tokens[tokens.length - 1];
+		if (Character.isDigit(moves.charAt(0)))
+			moves = "";
+		else
+			line = line.substring(0, line.length() - moves.length());
+		try {
+			PathOptimizer optimizer = new PathOptimizer(BatchSolver.parse(line));
+			optimizer.setWindow(window);
+			optimizer.setNodeLimit(nodeLimit);
+			optimizer.setParallelism(threads);
+			long start = System.nanoTime();
+			String shorter = optimizer.optimize(moves);
+			return number + "\t" + shorter.replace('Ü', 'Y') + "\t" + shorter.length() + "\t" + moves.length()
+					+ "\t" + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+		} catch (IllegalArgumentException e) {
+			return number + "\tVIGA\t" + e.getMessage();
+		} catch (IllegalMoveException e) {
+			return number + "\tVIGA\tk2ik viib v2ljalt v2lja";
+		}
+	}
+
+	private static void usage() {
+		System.err.println("Kasutamine: PathShortener [-l akna pikkus] [-n seisude piir] [-t l6imi] [fail]");
+		System.exit(-1);
+	}
+}
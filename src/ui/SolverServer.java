@@ -0,0 +1,382 @@
+package ui;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import solver.Search;
+import solver.SearchControl;
+import solver.SolutionCache;
+
+/**
+ * Püsivalt töötav lahendusserver: kuulab kohalikku TCP porti ning
+ * lahendab väljad ühise {@link BatchSolver}-iga, seega jäävad heuristikad,
+ * mustriandmebaasid ja lahenduste vahemälu päringute vahel soojaks (JVM-i
+ * käivitust ja JIT-i soojenemist iga välja eest ei maksta).<br>
+ * Protokoll on reapõhine (UTF-8). Päring:
+ * <pre>tunnus [@tähtaeg ms] numbrid...</pre>
+ * kus numbrid on nagu {@link BatchSolver}-is ning tähtaeg (vaikimisi
+ * <code>-d</code>) loetakse päringu saabumisest. Vastus on
+ * {@link BatchSolver}-i tulemuse rida, kus rea numbri asemel on päringu
+ * tunnus; vastused saadetakse valmimise järjekorras, seega võib klient
+ * päringuid ootamata järjest saata. Tähtaja ületamisel on vastus
+ * <code>tunnus	VIGA	t2htaeg</code>.<br>
+ * Iga ühendust teenindab oma lõim, lahendamine toimub fikseeritud
+ * suurusega lõimekogumis. Järjest saabunud 3x3 päringud (mis lahenduvad
+ * tabelist mikrosekunditega) antakse kogumile kuni {@link #BATCH_SIZE}
+ * kaupa korraga. Kogumis on pooleli kuni
+ * {@link BatchSolver#QUEUED_PER_THREAD} päringut (või partiid) lõime kohta - kui kõik
+ * kohad on täis, jääb ühenduse lugemine ootama (kuni päringu tähtajani),
+ * seega pidurdab liiga kiire klient TCP kaudu iseennast ning mälukasutus
+ * ei sõltu päringute arvust.<br>
+ * Kasutamine: <code>SolverServer [-p port] [-m astar|ida|anytime|reduce]
+ * [-h manhattan|lc|wd|max|pdb] [-w kaal] [-t lõimi] [-d tähtaeg ms]
+ * [-c vahemälu fail] [-o] [-l] [-s]</code>. Vahemälu fail kirjutatakse serveri
+ * lõpetamisel, <code>-l</code> lühendab lahendusi tähtaja piires (vt.
+ * {@link BatchSolver#setPostOptimize(boolean)}) ning <code>-s</code> lisab
+ * heuristikale peegelduse (IDA* korral ka duaali) (vt. {@link BatchSolver#setSymmetric(boolean)}).
+ *
+ * @author Kristjan Kaitsa
+ * @version 1.0
+ *
+ */
+public class SolverServer {
+	/** Vaikimisi port. */
+	public static final int DEFAULT_PORT = 1515;
+	/** Vaikimisi tähtaeg millisekundites. */
+	public static final long DEFAULT_DEADLINE = 10000;
+	/** Suurim ühe korraga kogumile antava 3x3 päringute partii suurus. */
+	public static final int BATCH_SIZE = 64;
+
+	/** Lahendaja (ühine kõigile ühendustele). */
+	private final BatchSolver solver;
+	/** Lahendamise lõimekogum. */
+	private final ExecutorService pool;
+	/** Vabad kohad kogumis (partii võtab ühe koha). */
+	private final Semaphore slots;
+	/** Ühenduste lõimed. */
+	private final ExecutorService connections = Executors.newCachedThreadPool(task -> {
+		Thread thread = new Thread(task, "yhendus");
+		thread.setDaemon(true);
+		return thread;
+	});
+	/** Vaikimisi tähtaeg nanosekundites. */
+	private final long defaultDeadline;
+
+	/**
+	 * @param solver Lahendaja.
+	 * @param threads Lahendamise lõimede arv.
+	 * @param defaultDeadline Vaikimisi tähtaeg millisekundites.
+	 */
+	public SolverServer(BatchSolver solver, int threads, long defaultDeadline) {
+		this.solver = solver;
+		this.pool = Executors.newFixedThreadPool(threads);
+		this.slots = new Semaphore(threads * BatchSolver.QUEUED_PER_THREAD);
+		this.defaultDeadline = TimeUnit.MILLISECONDS.toNanos(defaultDeadline);
+		solver.setMemoryLimit(Runtime.getRuntime().maxMemory() / (2 * threads));
+	}
+
+	/**
+	 * Võtab ühendusi vastu, kuni pesa suletakse.
+	 * @param server Kuulav pesa.
+	 * @throws IOException Visatakse, kui ühenduse vastuvõtmine ebaõnnestub.
+	 */
+	public void serve(ServerSocket server) throws IOException {
+		while (true) {
+			final Socket socket = server.accept();
+			connections.execute(new Runnable() {
+				@Override
+				public void run() {
+					handle(socket);
+				}
+			});
+		}
+	}
+
+	/**
+	 * Loeb ühenduse päringud ning annab need kogumile. Sisendi lõppedes
+	 * oodatakse kõik vastused ära ja suletakse ühendus.
+	 * @param socket Ühendus.
+	 */
+	private void handle(Socket socket) {
+		try {
+			BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(),
+					StandardCharsets.UTF_8));
+			Connection connection = new Connection(new PrintStream(socket.getOutputStream(), true, "UTF-8"));
+			List<Request> batch = new ArrayList<Request>();
+			String line;
+			while ((line = reader.readLine()) != null) {
+				Request request = parse(line, connection);
+				if (request == null)
+					continue;
+				if (request.small) {
+					batch.add(request);
+					if ((batch.size() < BATCH_SIZE) && reader.ready())
+						continue;
+				} else {
+					submit(batch, connection);
+					batch.add(request);
+				}
+				submit(batch, connection);
+			}
+			submit(batch, connection);
+			connection.awaitPending();
+		} catch (IOException e) {
+			// klient sulges ühenduse
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			try {
+				socket.close();
+			} catch (IOException e) {
+				// ühendus on niikuinii suletud
+			}
+		}
+	}
+
+	/**
+	 * Teisendab rea päringuks. Tühjad read jäetakse vahele ning vigasele
+	 * tähtajale vastatakse kohe.
+	 * @param line Päringu rida.
+	 * @param connection Ühendus.
+	 * @return Tagastab päringu või <code>null</code>-i, kui rida ei vaja
+	 * lahendamist.
+	 */
+	private Request parse(String line, Connection connection) {
+		long received = System.nanoTime();
+		String[] tokens = line.trim().split("\\s+", 2);
+		if (tokens[0].isEmpty())
+			return null;
+		String id = tokens[0];
+		String board = (tokens.length > 1) ? tokens[1] : "";
+		long deadline = received + defaultDeadline;
+		if (board.startsWith("@")) {
+			tokens = board.split("\\s+", 2);
+			try {
+				deadline = received + TimeUnit.MILLISECONDS.toNanos(Long.parseLong(tokens[0].substring(1)));
+			} catch (NumberFormatException e) {
+				connection.output.println(id + "\tVIGA\tvigane t2htaeg " + tokens[0]);
+				return null;
+			}
+			board = (tokens.length > 1) ? tokens[1] : "";
+		}
+		boolean small = board.split("[\\s,]+").length == 9;
+		return new Request(id, board, deadline, small);
+	}
+
+	/**
+	 * Annab partii kogumile. Kui kogum on täis, jääb ootama kuni partii
+	 * viimase päringu tähtajani; selle möödudes vastatakse tähtaja
+	 * ületamisega.
+	 * @param batch Päringud (tühjendatakse).
+	 * @param connection Ühendus, kuhu vastused kirjutatakse.
+	 * @throws InterruptedException Visatakse, kui ootamine katkestatakse.
+	 */
+	private void submit(List<Request> batch, final Connection connection) throws InterruptedException {
+		if (batch.isEmpty())
+			return;
+		final List<Request> requests = new ArrayList<Request>(batch);
+		batch.clear();
+		long deadline = Long.MIN_VALUE;
+		for (Request request : requests)
+			deadline = Math.max(deadline, request.deadline);
+		if (!slots.tryAcquire(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+			for (Request request : requests)
+				connection.output.println(request.id + "\tVIGA\tt2htaeg");
+			return;
+		}
+		connection.add(requests.size());
+		pool.execute(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					for (Request request : requests) {
+						if (connection.output.checkError())
+							break;
+						connection.output.println(solve(request));
+					}
+				} finally {
+					slots.release();
+					connection.done(requests.size());
+				}
+			}
+		});
+	}
+
+	/**
+	 * Lahendab päringu, kui selle tähtaeg pole möödunud.
+	 * @param request Päring.
+	 * @return Tagastab vastuse rea.
+	 */
+	private String solve(Request request) {
+		long remaining = request.deadline - System.nanoTime();
+		if (remaining <= 0)
+			return request.id + "\tVIGA\tt2htaeg";
+		SearchControl control = new SearchControl();
+		control.setTimeout(remaining, TimeUnit.NANOSECONDS);
+		return solver.solve(request.id, request.board, control);
+	}
+
+	/**
+	 * Kliendi päring.
+	 */
+	private static class Request {
+		/** Päringu tunnus. */
+		final String id;
+		/** Välja numbrid. */
+		final String board;
+		/** Tähtaeg (<code>System.nanoTime()</code>). */
+		final long deadline;
+		/** Kas tegu on 3x3 väljaga (lahendub tabelist). */
+		final boolean small;
+
+		Request(String id, String board, long deadline, boolean small) {
+			this.id = id;
+			this.board = board;
+			this.deadline = deadline;
+			this.small = small;
+		}
+	}
+
+	/**
+	 * Ühenduse väljund ja pooleliolevate päringute arv.
+	 */
+	private static class Connection {
+		/** Väljund (<code>println</code> on sünkroniseeritud). */
+		final PrintStream output;
+		/** Pooleliolevate päringute arv. */
+		private int pending = 0;
+
+		Connection(PrintStream output) {
+			this.output = output;
+		}
+
+		synchronized void add(int count) {
+			pending += count;
+		}
+
+		synchronized void done(int count) {
+			pending -= count;
+			if (pending == 0)
+				notifyAll();
+		}
+
+		synchronized void awaitPending() throws InterruptedException {
+			while (pending > 0)
+				wait();
+		}
+	}
+
+	/**
+	 * @param dimension Mänguvälja dimensioon.
+	 * @return Tagastab lõppseisu numbrid reana.
+	 */
+	private static String solvedLine(int dimension) {
+		StringBuilder line = new StringBuilder();
+		for (int index = 1; index < dimension * dimension; index++)
+			line.append(index).append(' ');
+		return line.append(0).toString();
+	}
+
+	/**
+	 * @param args Vt. klassi kirjeldust.
+	 */
+	public static void main(String[] args) {
+		int port = DEFAULT_PORT;
+		String method = "astar";
+		String heuristic = "lc";
+		double weight = Search.DEFAULT_WEIGHT;
+		int threads = Runtime.getRuntime().availableProcessors();
+		long deadline = DEFAULT_DEADLINE;
+		String cacheFile = null;
+		boolean offHeap = false;
+		boolean postOptimize = false;
+		boolean symmetric = false;
+		try {
+			for (int i = 0; i < args.length; i++) {
+				if (args[i].equals("-p"))
+					port = Integer.parseInt(args[++i]);
+				else if (args[i].equals("-m"))
+					method = args[++i];
+				else if (args[i].equals("-h"))
+					heuristic = args[++i];
+				else if (args[i].equals("-w"))
+					weight = Double.parseDouble(args[++i]);
+				else if (args[i].equals("-t"))
+					threads = Integer.parseInt(args[++i]);
+				else if (args[i].equals("-d"))
+					deadline = Long.parseLong(args[++i]);
+				else if (args[i].equals("-c"))
+					cacheFile = args[++i];
+				else if (args[i].equals("-o"))
+					offHeap = true;
+				else if (args[i].equals("-l"))
+					postOptimize = true;
+				else if (args[i].equals("-s"))
+					symmetric = true;
+				else
+					usage();
+			}
+		} catch (RuntimeException e) {
+			usage();
+		}
+		if ((threads < 1) || (deadline < 1))
+			usage();
+
+		final SolutionCache cache = new SolutionCache();
+		if ((cacheFile != null) && new File(cacheFile).exists()) {
+			try {
+				cache.load(new File(cacheFile));
+			} catch (IOException e) {
+				System.err.println("Vahem2lu lugemine eba6nnestus: " + e.getMessage());
+			}
+		}
+		if (cacheFile != null) {
+			final File file = new File(cacheFile);
+			Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+				try {
+					cache.save(file);
+				} catch (IOException e) {
+					System.err.println("Vahem2lu kirjutamine eba6nnestus: " + e.getMessage());
+				}
+			}));
+		}
+		try {
+			BatchSolver solver = new BatchSolver(method, heuristic, weight, cache, System.out);
+			solver.setOffHeap(offHeap);
+			solver.setPostOptimize(postOptimize);
+			solver.setSymmetric(symmetric);
+			SolverServer server = new SolverServer(solver, threads, deadline);
+			// heuristikad ja andmebaasid laetakse enne esimest päringut
+			for (int dimension = 3; dimension <= 4; dimension++)
+				solver.solve("0", solvedLine(dimension), new SearchControl());
+			ServerSocket socket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+			System.err.println("Kuulan porti " + socket.getLocalPort());
+			server.serve(socket);
+		} catch (IllegalArgumentException e) {
+			System.err.println(e.getMessage());
+			usage();
+		} catch (IOException e) {
+			System.err.println("Serveri k2ivitamine eba6nnestus: " + e.getMessage());
+			System.exit(-1);
+		}
+	}
+
+	private static void usage() {
+		System.err.println("Kasutamine: SolverServer [-p port] [-m astar|ida|anytime|reduce] [-h manhattan|lc|wd|max|pdb] "
+				+ "[-w kaal] [-t l6imi] [-d t2htaeg ms] [-c vahem2lu] [-o] [-l] [-s]");
+		System.exit(-1);
+	}
+}